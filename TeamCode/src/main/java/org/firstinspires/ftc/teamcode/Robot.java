@@ -9,25 +9,27 @@ import org.firstinspires.ftc.teamcode.opencv.SampleTrackPipeline;
 import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
 import org.firstinspires.ftc.teamcode.subsystem.*;
 import org.firstinspires.ftc.teamcode.util.ActionCommand;
+import org.firstinspires.ftc.teamcode.util.EstimatedCommand;
+import org.firstinspires.ftc.teamcode.util.LeadCommand;
+import org.firstinspires.ftc.teamcode.util.PoseToPoseCommand;
+import org.firstinspires.ftc.teamcode.util.TrajectoryPlanner;
 import org.firstinspires.ftc.teamcode.util.math.Pose2D;
 import org.firstinspires.ftc.teamcode.util.math.Precision;
-import org.opencv.core.Point;
 import xyz.devmello.voyager.robot.Drive;
 
-import java.util.ArrayList;
-
 import static org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys.POS_DOWN;
+import static org.firstinspires.ftc.teamcode.util.TrajectoryCache.HeadingMode.CONSTANT;
 
 public class Robot {
 
     public static Pose2d startPose = new Pose2d(new Vector2d(0,0), Math.toRadians(90));
 
-    public static void specimenScore(PinpointDrive drive, OuttakeV4BSys outtakeV4BSys, OuttakeClawSys outtakeClawSys, LiftSys liftSys) {
+    public static void specimenScore(DriveSys driveSys, OuttakeV4BSys outtakeV4BSys, OuttakeClawSys outtakeClawSys, LiftSys liftSys) {
+        PinpointDrive drive = driveSys.drive;
         DriveSys.AUTOMATION = true;
         drive.setBrake();
-        Action score = drive.actionBuilder(drive.pose)
-                .strafeToLinearHeading(new Vector2d(8, -37.1), Math.toRadians(270))
-                .build();
+        PoseToPoseCommand scoreCommand = new PoseToPoseCommand(driveSys, 8, -37.1, Math.toRadians(270));
+        EstimatedCommand liftCommand = liftSys.goTo(LiftSys.HIGH_RUNG);
 
         schedule(
                 new SequentialCommandGroup(
@@ -35,13 +37,13 @@ public class Robot {
                         new WaitCommand(300),
                         new SequentialCommandGroup(
                                 outtakeV4BSys.mid(),
-                                new ParallelCommandGroup(
-                                        new ActionCommand(score),
-                                        liftSys.goTo(LiftSys.HIGH_RUNG)
+                                new LeadCommand(
+                                        new ParallelCommandGroup(scoreCommand, liftCommand),
+                                        outtakeV4BSys.specimenScore(),
+                                        LeadCommand.DEFAULT_LEAD_MS,
+                                        () -> Math.max(scoreCommand.getTimeRemaining(), liftCommand.getTimeRemaining())
                                 ),
-                                outtakeV4BSys.specimenScore(),
                                 liftSys.goTo(LiftSys.HIGH_RUNG-400),
-                                new WaitCommand(200),
                                 outtakeClawSys.release(),
                                 new InstantCommand(drive::setCoast),
                                 new InstantCommand(()->DriveSys.AUTOMATION = false)
@@ -50,16 +52,14 @@ public class Robot {
         );
     }
 
-    public static void specimenPickup(PinpointDrive drive, OuttakeV4BSys outtakeV4BSys, OuttakeClawSys outtakeClawSys, LiftSys liftSys) {
+    public static void specimenPickup(DriveSys driveSys, OuttakeV4BSys outtakeV4BSys, OuttakeClawSys outtakeClawSys, LiftSys liftSys) {
+        PinpointDrive drive = driveSys.drive;
         DriveSys.AUTOMATION = true;
         drive.setBrake();
-        Action pickup = drive.actionBuilder(drive.pose)
-                .strafeToLinearHeading(new Vector2d(34.7, -58), Math.toRadians(90))
-                .build();
 
         schedule(
                 new ParallelCommandGroup(
-                        new ActionCommand(pickup),
+                        new PoseToPoseCommand(driveSys, 34.7, -58, Math.toRadians(90)),
                         new SequentialCommandGroup(
                                 liftSys.goTo(LiftSys.NONE),
                                 outtakeV4BSys.specimen()
@@ -75,51 +75,16 @@ public class Robot {
         IntakeClawSys.AUTO = true;
         DriveSys.AUTOMATION = true;
         drive.setBrake();
-        double xCoverageInches = 14.80314960629921;
-        double yCoverageInches = 10.7440945;
-        double cameraOffsetInches = 1;
-
-        ArrayList<SampleTrackPipeline.AnalyzedStone> clientStoneList = pipeline.getDetectedStones();
-
-        if (clientStoneList.isEmpty()) {
-            return;
-        }
+        SampleTrackPipeline.GoToStone sample = pipeline.calculateMovementPose(drive.pose);
 
-        // Assume the frame size is known
-        Point frameCenter = new Point(pipeline.frameSize.width / 2, pipeline.frameSize.height / 2);
-        SampleTrackPipeline.AnalyzedStone closestStone = null;
-        double closestDistance = Double.MAX_VALUE;
-
-        for (SampleTrackPipeline.AnalyzedStone stone : clientStoneList) {
-            double distanceToCenter = Math.hypot(stone.center.x - frameCenter.x, stone.center.y - frameCenter.y);
-            if (distanceToCenter < closestDistance) {
-                closestDistance = distanceToCenter;
-                closestStone = stone;
-            }
-        }
-
-        if (closestStone == null) {
+        if (sample == null) {
             return;
         }
 
-        // Calculate the offset in pixels from the frame center
-        double deltaX = closestStone.center.x - frameCenter.x;
-        double deltaY = closestStone.center.y - frameCenter.y;
-
-        // Convert pixel offset to real-world offset (in inches)
-        double realWorldX = (deltaX / pipeline.frameSize.width) * xCoverageInches - 2;
-        double realWorldY = (deltaY / pipeline.frameSize.height) * yCoverageInches - cameraOffsetInches;
-
-        // Log the results
-        Log.i("goTo X", String.valueOf(realWorldX));
-        Log.i("goTo Y", String.valueOf(realWorldY));
+        Log.i("goTo X", String.valueOf(sample.position.x));
+        Log.i("goTo Y", String.valueOf(sample.position.y));
 
-        SampleTrackPipeline.GoToStone sample = new SampleTrackPipeline.GoToStone(
-                new Vector2d(drive.pose.position.x + realWorldX, drive.pose.position.y + realWorldY),
-                closestStone.angle
-        );
-
-        Action goTo = drive.actionBuilder(drive.pose).strafeTo(sample.position).build();
+        Action goTo = TrajectoryPlanner.plan(drive, sample.position, 0, CONSTANT);
         double angle = Math.round(Precision.calculateWeightedValue(IntakeClawSys.YAW_LEFT, IntakeClawSys.YAW_RIGHT, (sample.angle % 179) / 180) * 5) / 5.0;
 
         schedule(
@@ -134,8 +99,10 @@ public class Robot {
                                 new WaitCommand(200),
                                 intakeClawSys.pinch(),
                                 new WaitCommand(200),
-                                intakeV4bSys.dropOff(),
-                                extendoSys.goTo(ExtendoSys.EXTENDO_HOME)
+                                new ParallelCommandGroup(
+                                        intakeV4bSys.dropOff(),
+                                        extendoSys.goTo(ExtendoSys.EXTENDO_HOME)
+                                )
                         )
                         //implement a transfer to the outtake
                 ),
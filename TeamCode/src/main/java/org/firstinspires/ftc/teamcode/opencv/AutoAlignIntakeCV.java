@@ -1,82 +1,132 @@
 package org.firstinspires.ftc.teamcode.opencv;
 
+import com.acmerobotics.dashboard.config.Config;
 import org.opencv.core.*;
 import org.opencv.imgproc.Imgproc;
 import org.openftc.easyopencv.OpenCvPipeline;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Finds the quadrilateral closest to the center of the frame and reports its orientation.
+ *
+ * <p>Every buffer is allocated once and reused, and the 55x55 rectangular erode/dilate is done as a 1x55
+ * pass followed by a 55x1 pass, which gives the same result for about a tenth of the work. When nothing is
+ * found {@link #hasDetection()} is false and the previous result is cleared. Drawing the result allocates its label,
+ * so drawOnScreen is off by default.
+ */
+@Config
 public class AutoAlignIntakeCV extends OpenCvPipeline {
-
-    public RotatedRect rect;
-    public Point center;
-    public Scalar avgColor;
+    public static int MORPH_SIZE = 55;
+    public static double CANNY_LOW = 50;
+    public static double CANNY_HIGH = 150;
+    public static boolean drawOnScreen = false;
+
+    private static final Scalar WHITE = new Scalar(255, 255, 255);
+    private static final Scalar GREEN = new Scalar(0, 255, 0);
+
+    public volatile RotatedRect rect;
+    public volatile Point center;
+    public volatile Scalar avgColor;
+    private volatile double orientation = -1;
+
+    private final Mat gray = new Mat();
+    private final Mat morphed = new Mat();
+    private final Mat edges = new Mat();
+    private final Mat hierarchy = new Mat();
+    private final MatOfPoint2f contour2f = new MatOfPoint2f();
+    private final MatOfPoint2f approx = new MatOfPoint2f();
+    private final MatOfPoint2f best = new MatOfPoint2f();
+    private final MatOfPoint quad = new MatOfPoint();
+    private final List<MatOfPoint> quadList = Collections.singletonList(quad);
+    private final List<MatOfPoint> contours = new ArrayList<>();
+    private final Point imageCenter = new Point();
+    private final Point textOrigin = new Point(55, 20);
+    private Mat rowKernel, colKernel;
+    private int kernelSize = -1;
 
     @Override
     public Mat processFrame(Mat input) {
-        Mat gray = new Mat();
-        Imgproc.cvtColor(input, gray, Imgproc.COLOR_BGR2GRAY);
-        Imgproc.stackBlur(gray, gray, new Size(1.0, 1.0));
-
-        Imgproc.erode(gray, gray, Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(55, 55)));
-        Imgproc.dilate(gray, gray, Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(55, 55)));
-
-        Mat edges = new Mat();
-
-        Imgproc.Canny(gray, edges, 50, 150);
-
-        List<MatOfPoint> contours = new ArrayList<MatOfPoint>();
-        Mat hierarchy = new Mat();
-
+        updateKernels();
+        Imgproc.cvtColor(input, gray, Imgproc.COLOR_RGBA2GRAY);
+        Imgproc.erode(gray, morphed, rowKernel);
+        Imgproc.erode(morphed, morphed, colKernel);
+        Imgproc.dilate(morphed, morphed, rowKernel);
+        Imgproc.dilate(morphed, morphed, colKernel);
+        Imgproc.Canny(morphed, edges, CANNY_LOW, CANNY_HIGH);
+
+        for (MatOfPoint contour : contours) contour.release();
+        contours.clear();
         Imgproc.findContours(edges, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
 
-        Point imgCtr = new Point(input.cols() / 2, input.rows() / 2);
-        double minDist = Double.MAX_VALUE;
-        MatOfPoint2f centerRectangle = null;
-
-        for (MatOfPoint ctr : contours) {
-            // Approximate the contour to a polygon
-            MatOfPoint2f ctr2f = new MatOfPoint2f(ctr.toArray());
-            MatOfPoint2f approx = new MatOfPoint2f();
-            Imgproc.approxPolyDP(ctr2f, approx, 0.02 * Imgproc.arcLength(ctr2f, true), true);
-
-            if (approx.total() == 4) {
-                // Get bounding rectangle
-                rect = Imgproc.minAreaRect(approx);
-                center = new Point(rect.center.x, rect.center.y);
-
-                // Calculate distance from image center
-                double distance = Math.sqrt(Math.pow(center.x - imgCtr.x, 2) + Math.pow(center.y - imgCtr.y, 2));
-                if (distance < minDist) {
-                    minDist = distance;
-                    centerRectangle = approx;
-                }
+        imageCenter.x = input.cols() / 2.0;
+        imageCenter.y = input.rows() / 2.0;
+        double minDistance = Double.MAX_VALUE;
+        RotatedRect closest = null;
+
+        for (MatOfPoint contour : contours) {
+            contour.convertTo(contour2f, CvType.CV_32F);
+            Imgproc.approxPolyDP(contour2f, approx, 0.02 * Imgproc.arcLength(contour2f, true), true);
+            if (approx.total() != 4) continue;
+
+            RotatedRect candidate = Imgproc.minAreaRect(approx);
+            double distance = Math.hypot(candidate.center.x - imageCenter.x, candidate.center.y - imageCenter.y);
+            if (distance < minDistance) {
+                minDistance = distance;
+                closest = candidate;
+                approx.copyTo(best);
             }
         }
 
-        Mat color = input.submat((int) center.y, (int) center.y+3, (int) center.x, (int) center.x+3);
-
-        avgColor = Core.mean(color);
-
-        if (centerRectangle != null) {
-            MatOfPoint[] pts = new MatOfPoint[] {new MatOfPoint(centerRectangle.toArray())};
-            Imgproc.drawContours(input, Arrays.asList(pts), -1, new Scalar(255, 255, 255), 1);
-            Imgproc.drawMarker(input, center, new Scalar(0, 255, 0));
+        if (closest == null) {
+            rect = null;
+            center = null;
+            avgColor = null;
+            orientation = -1;
+            return input;
         }
 
-        Imgproc.putText(input, "Angle: " + (90 - rect.angle), new Point(55, 20), 1, 1, new Scalar(255, 255, 255), 1);
-
-        Imgproc.putText(input, "Color: " + avgColor, new Point(55, 140), 1, 1, new Scalar(255, 255, 255), 1);
-
-
+        int x = (int) Math.max(0, Math.min(input.cols() - 3, closest.center.x));
+        int y = (int) Math.max(0, Math.min(input.rows() - 3, closest.center.y));
+        Mat patch = input.submat(y, y + 3, x, x + 3);
+        avgColor = Core.mean(patch);
+        patch.release();
+
+        rect = closest;
+        center = closest.center;
+        orientation = 90 - closest.angle;
+
+        if (drawOnScreen) {
+            best.convertTo(quad, CvType.CV_32S);
+            Imgproc.polylines(input, quadList, true, WHITE, 1);
+            Imgproc.drawMarker(input, closest.center, GREEN);
+            Imgproc.putText(input, "Angle: " + orientation, textOrigin, 1, 1, WHITE, 1);
+        }
         return input;
     }
 
+    private void updateKernels() {
+        if (kernelSize == MORPH_SIZE) return;
+        if (rowKernel != null) {
+            rowKernel.release();
+            colKernel.release();
+        }
+        kernelSize = MORPH_SIZE;
+        rowKernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(kernelSize, 1));
+        colKernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(1, kernelSize));
+    }
+
+    public boolean hasDetection() {
+        return orientation != -1;
+    }
 
+    /**
+     * @return the orientation of the quadrilateral closest to the center of the frame, or -1 if there is none
+     */
     public double getOrientation() {
-        return 90 - rect.angle;
+        return orientation;
     }
 
     public Scalar getColor() {
@@ -0,0 +1,301 @@
+package org.firstinspires.ftc.teamcode.opencv;
+
+import com.acmerobotics.dashboard.config.Config;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+
+import java.io.*;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Maps camera pixels onto the floor in robot-relative inches.
+ *
+ * <p>A pixel is first undistorted with a pinhole model (focal lengths, principal point and two radial
+ * terms), then projected onto the ground plane through a 3x3 homography. Both steps are folded into a
+ * per-pixel lookup table when the model is built so that {@link #forward(double, double)} and
+ * {@link #left(double, double)} are a single array read.
+ *
+ * <p>Robot frame: +forward is the direction the intake points, +left is to the robot's left. The
+ * default homography reproduces the old linear coverage constants so an uncalibrated robot behaves the
+ * way it always has; run the Camera Calibration tuner to replace it.
+ */
+@Config
+public class CameraModel {
+    public static class Params {
+        // pinhole intrinsics (pixels)
+        public double fx = 280;
+        public double fy = 280;
+        public double cx = 160;
+        public double cy = 120;
+        public double k1 = 0;
+        public double k2 = 0;
+
+        // undistorted pixel -> (forward, left) inches, row major. The old mapping added the x pixel offset
+        // to field y and the y pixel offset to field x, which at a heading of 90 is forward and right.
+        public double h00 = 14.80314960629921 / 320, h01 = 0, h02 = -14.80314960629921 / 2 - 4;
+        public double h10 = 0, h11 = -10.7440945 / 240, h12 = 10.7440945 / 2 + 3;
+        public double h20 = 0, h21 = 0, h22 = 1;
+    }
+
+    public static Params PARAMS = new Params();
+
+    public static final String CALIBRATION_FILE = "camera_calibration.properties";
+
+    private final int width, height;
+    private final float[] forwardLut, leftLut;
+
+    public CameraModel(int width, int height) {
+        this(width, height, PARAMS);
+    }
+
+    public CameraModel(int width, int height, Params params) {
+        this.width = width;
+        this.height = height;
+        forwardLut = new float[width * height];
+        leftLut = new float[width * height];
+
+        double[] h = homography(params);
+        double[] p = new double[2];
+        for (int v = 0; v < height; v++) {
+            for (int u = 0; u < width; u++) {
+                undistort(params, u, v, p);
+                double un = p[0], vn = p[1];
+                double w = h[6] * un + h[7] * vn + h[8];
+                int i = v * width + u;
+                forwardLut[i] = (float) ((h[0] * un + h[1] * vn + h[2]) / w);
+                leftLut[i] = (float) ((h[3] * un + h[4] * vn + h[5]) / w);
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return distance in front of the robot center, in inches, of the floor point seen at (u, v)
+     */
+    public double forward(double u, double v) {
+        return forwardLut[index(u, v)];
+    }
+
+    /**
+     * @return distance to the left of the robot center, in inches, of the floor point seen at (u, v)
+     */
+    public double left(double u, double v) {
+        return leftLut[index(u, v)];
+    }
+
+    /**
+     * Projects a pixel onto the field given the pose the frame was taken from.
+     *
+     * @param out receives {x, y}; reused by callers so that no array is allocated per lookup
+     */
+    public void toField(double robotX, double robotY, double robotHeading, double u, double v, double[] out) {
+        int i = index(u, v);
+        double f = forwardLut[i];
+        double l = leftLut[i];
+        double cos = Math.cos(robotHeading);
+        double sin = Math.sin(robotHeading);
+        out[0] = robotX + f * cos - l * sin;
+        out[1] = robotY + f * sin + l * cos;
+    }
+
+    private int index(double u, double v) {
+        int x = (int) Math.round(u);
+        int y = (int) Math.round(v);
+        if (x < 0) x = 0;
+        else if (x >= width) x = width - 1;
+        if (y < 0) y = 0;
+        else if (y >= height) y = height - 1;
+        return y * width + x;
+    }
+
+    private static double[] homography(Params p) {
+        return new double[]{p.h00, p.h01, p.h02, p.h10, p.h11, p.h12, p.h20, p.h21, p.h22};
+    }
+
+    /**
+     * Removes radial distortion with a few fixed point iterations and returns the corrected pixel, so the
+     * homography can stay in pixel units.
+     */
+    static double[] undistort(Params p, double u, double v, double[] out) {
+        double xd = (u - p.cx) / p.fx;
+        double yd = (v - p.cy) / p.fy;
+        double x = xd, y = yd;
+        if (p.k1 != 0 || p.k2 != 0) {
+            for (int i = 0; i < 5; i++) {
+                double r2 = x * x + y * y;
+                double scale = 1 + p.k1 * r2 + p.k2 * r2 * r2;
+                x = xd / scale;
+                y = yd / scale;
+            }
+        }
+        out[0] = x * p.fx + p.cx;
+        out[1] = y * p.fy + p.cy;
+        return out;
+    }
+
+    /**
+     * Solves the ground plane homography from pixel / floor correspondences with a normalized direct linear
+     * transform. Pixels are undistorted with the intrinsics already in {@code params} before solving.
+     *
+     * @param pixels  at least four {u, v} pairs, not all collinear
+     * @param floor   matching {forward, left} inches in the robot frame
+     * @return the params with the homography filled in
+     */
+    public static Params solveHomography(Params params, List<double[]> pixels, List<double[]> floor) {
+        int n = pixels.size();
+        if (n < 4 || floor.size() != n) {
+            throw new IllegalArgumentException("Need at least 4 matching point pairs, got " + n);
+        }
+
+        double[][] src = new double[n][];
+        for (int i = 0; i < n; i++) {
+            src[i] = undistort(params, pixels.get(i)[0], pixels.get(i)[1], new double[2]);
+        }
+        double[] srcT = normalization(src);
+        double[] dstT = normalization(floor.toArray(new double[0][]));
+
+        RealMatrix a = new Array2DRowRealMatrix(2 * n, 9);
+        for (int i = 0; i < n; i++) {
+            double x = (src[i][0] - srcT[0]) * srcT[2];
+            double y = (src[i][1] - srcT[1]) * srcT[2];
+            double X = (floor.get(i)[0] - dstT[0]) * dstT[2];
+            double Y = (floor.get(i)[1] - dstT[1]) * dstT[2];
+            a.setRow(2 * i, new double[]{-x, -y, -1, 0, 0, 0, X * x, X * y, X});
+            a.setRow(2 * i + 1, new double[]{0, 0, 0, -x, -y, -1, Y * x, Y * y, Y});
+        }
+
+        // Pad to a square system so the SVD always exposes the 9th right singular vector.
+        if (2 * n < 9) {
+            RealMatrix padded = new Array2DRowRealMatrix(9, 9);
+            padded.setSubMatrix(a.getData(), 0, 0);
+            a = padded;
+        }
+        RealMatrix v = new SingularValueDecomposition(a).getV();
+        RealMatrix hn = new Array2DRowRealMatrix(3, 3);
+        for (int i = 0; i < 9; i++) {
+            hn.setEntry(i / 3, i % 3, v.getEntry(i, 8));
+        }
+
+        // Undo the normalization: H = Tdst^-1 * Hn * Tsrc
+        RealMatrix tSrc = new Array2DRowRealMatrix(new double[][]{
+                {srcT[2], 0, -srcT[2] * srcT[0]},
+                {0, srcT[2], -srcT[2] * srcT[1]},
+                {0, 0, 1}});
+        RealMatrix tDstInv = new Array2DRowRealMatrix(new double[][]{
+                {1 / dstT[2], 0, dstT[0]},
+                {0, 1 / dstT[2], dstT[1]},
+                {0, 0, 1}});
+        RealMatrix h = tDstInv.multiply(hn).multiply(tSrc);
+        double s = h.getEntry(2, 2);
+
+        params.h00 = h.getEntry(0, 0) / s;
+        params.h01 = h.getEntry(0, 1) / s;
+        params.h02 = h.getEntry(0, 2) / s;
+        params.h10 = h.getEntry(1, 0) / s;
+        params.h11 = h.getEntry(1, 1) / s;
+        params.h12 = h.getEntry(1, 2) / s;
+        params.h20 = h.getEntry(2, 0) / s;
+        params.h21 = h.getEntry(2, 1) / s;
+        params.h22 = 1;
+        return params;
+    }
+
+    /**
+     * @return {meanX, meanY, scale} such that the points have mean distance sqrt(2) from the origin
+     */
+    private static double[] normalization(double[][] pts) {
+        double mx = 0, my = 0;
+        for (double[] p : pts) {
+            mx += p[0];
+            my += p[1];
+        }
+        mx /= pts.length;
+        my /= pts.length;
+        double d = 0;
+        for (double[] p : pts) {
+            d += Math.hypot(p[0] - mx, p[1] - my);
+        }
+        d /= pts.length;
+        return new double[]{mx, my, d == 0 ? 1 : Math.sqrt(2) / d};
+    }
+
+    /**
+     * @return the RMS floor error, in inches, of the current params over a set of correspondences
+     */
+    public static double reprojectionError(Params params, List<double[]> pixels, List<double[]> floor) {
+        double[] h = homography(params);
+        double sum = 0;
+        double[] p = new double[2];
+        for (int i = 0; i < pixels.size(); i++) {
+            undistort(params, pixels.get(i)[0], pixels.get(i)[1], p);
+            double w = h[6] * p[0] + h[7] * p[1] + h[8];
+            double f = (h[0] * p[0] + h[1] * p[1] + h[2]) / w;
+            double l = (h[3] * p[0] + h[4] * p[1] + h[5]) / w;
+            sum += Math.pow(f - floor.get(i)[0], 2) + Math.pow(l - floor.get(i)[1], 2);
+        }
+        return Math.sqrt(sum / pixels.size());
+    }
+
+    public static void save(Params params, File file) throws IOException {
+        Properties props = new Properties();
+        double[] h = homography(params);
+        props.setProperty("fx", Double.toString(params.fx));
+        props.setProperty("fy", Double.toString(params.fy));
+        props.setProperty("cx", Double.toString(params.cx));
+        props.setProperty("cy", Double.toString(params.cy));
+        props.setProperty("k1", Double.toString(params.k1));
+        props.setProperty("k2", Double.toString(params.k2));
+        for (int i = 0; i < 9; i++) {
+            props.setProperty("h" + i / 3 + i % 3, Double.toString(h[i]));
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            props.store(out, "CameraModel calibration");
+        }
+    }
+
+    /**
+     * Loads a saved calibration into {@link #PARAMS}. Missing files leave the current values untouched.
+     *
+     * @return true if a calibration was loaded
+     */
+    public static boolean load(File file) {
+        if (!file.exists()) return false;
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        } catch (IOException e) {
+            return false;
+        }
+        Params p = PARAMS;
+        p.fx = get(props, "fx", p.fx);
+        p.fy = get(props, "fy", p.fy);
+        p.cx = get(props, "cx", p.cx);
+        p.cy = get(props, "cy", p.cy);
+        p.k1 = get(props, "k1", p.k1);
+        p.k2 = get(props, "k2", p.k2);
+        p.h00 = get(props, "h00", p.h00);
+        p.h01 = get(props, "h01", p.h01);
+        p.h02 = get(props, "h02", p.h02);
+        p.h10 = get(props, "h10", p.h10);
+        p.h11 = get(props, "h11", p.h11);
+        p.h12 = get(props, "h12", p.h12);
+        p.h20 = get(props, "h20", p.h20);
+        p.h21 = get(props, "h21", p.h21);
+        p.h22 = get(props, "h22", p.h22);
+        return true;
+    }
+
+    private static double get(Properties props, String key, double fallback) {
+        String value = props.getProperty(key);
+        return value == null ? fallback : Double.parseDouble(value);
+    }
+}
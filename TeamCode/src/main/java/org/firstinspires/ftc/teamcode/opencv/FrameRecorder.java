@@ -0,0 +1,176 @@
+package org.firstinspires.ftc.teamcode.opencv;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.config.Config;
+import org.firstinspires.ftc.teamcode.opencv.bench.FrameCorpus;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dumps camera frames to disk as a {@link FrameCorpus} the offline benchmark can replay.
+ *
+ * <p>The camera thread copies each frame into one of a fixed pool of preallocated Mats and hands it to a
+ * background writer. When the writer falls behind and the pool is empty, frames are dropped and counted
+ * instead of queued, so neither the camera thread nor the control loop ever waits on storage.
+ *
+ * <p>The control loop publishes the robot state with {@link #setState}; each frame is stamped with whatever
+ * state was latest when the camera delivered it.
+ */
+@Config
+public class FrameRecorder {
+    public static int POOL_SIZE = 6;
+    /** Record every nth frame, 1 to keep everything. */
+    public static int DECIMATION = 1;
+
+    public static class RobotState {
+        public final double x, y, heading, yaw;
+        public final String extendo, intake;
+
+        public RobotState(double x, double y, double heading, double yaw, String extendo, String intake) {
+            this.x = x;
+            this.y = y;
+            this.heading = heading;
+            this.yaw = yaw;
+            this.extendo = extendo;
+            this.intake = intake;
+        }
+    }
+
+    private static final RobotState UNKNOWN = new RobotState(Double.NaN, Double.NaN, Double.NaN, Double.NaN, "", "");
+    private static final String HEADER = "file,timestamp_ns,x,y,heading,yaw,extendo,intake";
+
+    private static class Slot {
+        final Mat frame = new Mat();
+        long timestamp;
+        RobotState state;
+    }
+
+    private final File directory;
+    private final ArrayBlockingQueue<Slot> free;
+    private final ArrayBlockingQueue<Slot> pending;
+    private final Slot[] slots;
+    private volatile RobotState state = UNKNOWN;
+    private volatile boolean running = false;
+    private Thread writer;
+
+    private volatile int written = 0;
+    private final AtomicInteger dropped = new AtomicInteger();
+    private int frameCount = 0;
+
+    public FrameRecorder(File directory) {
+        this.directory = directory;
+        slots = new Slot[POOL_SIZE];
+        free = new ArrayBlockingQueue<>(POOL_SIZE);
+        pending = new ArrayBlockingQueue<>(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            slots[i] = new Slot();
+            free.add(slots[i]);
+        }
+    }
+
+    public void start() {
+        if (running) return;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.e("FrameRecorder", "Could not create " + directory);
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "FrameRecorder");
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    /**
+     * Stops accepting frames, writes out whatever is already queued and releases the pool.
+     */
+    public void stop() {
+        if (!running) return;
+        running = false;
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writer.isAlive()) {
+            for (Slot slot : slots) slot.frame.release();
+        }
+    }
+
+    /**
+     * Called by the control loop whenever it has a fresh pose.
+     */
+    public void setState(RobotState state) {
+        this.state = state;
+    }
+
+    /**
+     * Called from {@code processFrame} before anything is drawn on the frame. Never blocks.
+     */
+    public void submit(Mat rgba) {
+        if (!running || frameCount++ % Math.max(1, DECIMATION) != 0) return;
+        Slot slot = free.poll();
+        if (slot == null) {
+            dropped.incrementAndGet();
+            return;
+        }
+        rgba.copyTo(slot.frame);
+        slot.timestamp = System.nanoTime();
+        slot.state = state;
+        pending.offer(slot);
+    }
+
+    public int getWritten() {
+        return written;
+    }
+
+    public int getDropped() {
+        return dropped.get();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    private void writeLoop() {
+        Mat bgr = new Mat();
+        try (BufferedWriter manifest = new BufferedWriter(new FileWriter(new File(directory, FrameCorpus.FRAMES_FILE)))) {
+            manifest.write(HEADER);
+            manifest.newLine();
+            while (running || !pending.isEmpty()) {
+                Slot slot = pending.poll(50, TimeUnit.MILLISECONDS);
+                if (slot == null) continue;
+                String file = String.format(Locale.US, "frame_%06d.png", written);
+                Imgproc.cvtColor(slot.frame, bgr, Imgproc.COLOR_RGBA2BGR);
+                boolean ok = Imgcodecs.imwrite(new File(directory, file).getAbsolutePath(), bgr);
+                RobotState s = slot.state;
+                long timestamp = slot.timestamp;
+                free.offer(slot);
+                if (!ok) {
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                manifest.write(String.format(Locale.US, "%s,%d,%.3f,%.3f,%.5f,%.4f,%s,%s",
+                        file, timestamp, s.x, s.y, s.heading, s.yaw, s.extendo, s.intake));
+                manifest.newLine();
+                written++;
+            }
+        } catch (IOException e) {
+            Log.e("FrameRecorder", "Could not write frames", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            bgr.release();
+        }
+    }
+}
@@ -6,17 +6,20 @@ import com.acmerobotics.roadrunner.Action;
 import com.acmerobotics.roadrunner.Pose2d;
 import com.acmerobotics.roadrunner.Vector2d;
 import com.arcrobotics.ftclib.command.*;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
 import org.firstinspires.ftc.teamcode.opmode.BaseOpMode;
 import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
 import org.firstinspires.ftc.teamcode.subsystem.*;
 import org.firstinspires.ftc.teamcode.util.ActionCommand;
-import org.firstinspires.ftc.teamcode.util.filters.MovingAverageFilter;
+import org.firstinspires.ftc.teamcode.util.TrajectoryCache;
+import org.firstinspires.ftc.teamcode.util.TrajectoryPlanner;
 import org.firstinspires.ftc.teamcode.util.math.Precision;
 import org.opencv.core.*;
 import org.opencv.imgproc.Imgproc;
 import org.openftc.easyopencv.OpenCvPipeline;
 import xyz.devmello.voyager.time.ElapsedTimer;
 
+import java.io.File;
 import java.util.ArrayList;
 
 import static org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys.POS_DOWN;
@@ -27,10 +30,11 @@ import static org.firstinspires.ftc.teamcode.subsystem.OuttakeV4BSys.PITCH_HOME;
 public class SampleTrackPipeline extends OpenCvPipeline {
 
     public BaseOpMode.TEAM team;
-    public final MovingAverageFilter angleFilter = new MovingAverageFilter(70);
+    public final SampleTracker tracker = new SampleTracker();
+    private volatile int lockedTrackId = -1;
+    private volatile double trackedAngle = -1;
+    public volatile FrameRecorder recorder;
 
-    public static double xOffset = 4;
-    public static double yOffset = 3;
     public static boolean drawOnScreen = false;
     public static double sizeThreshold = 3000;
     Mat ycrcbMat = new Mat();
@@ -47,6 +51,8 @@ public class SampleTrackPipeline extends OpenCvPipeline {
     Mat contoursOnPlainImageMat = new Mat();
 
     public Size frameSize = new Size(320, 240);
+    public final CameraModel cameraModel;
+    private final double[] fieldPoint = new double[2];
 
     /*
      * Threshold values
@@ -89,14 +95,23 @@ public class SampleTrackPipeline extends OpenCvPipeline {
     public SampleTrackPipeline(BaseOpMode.TEAM team) {
         this.team = team;
         MEMLEAK_DETECTION_ENABLED = false;
+        CameraModel.load(new File(AppUtil.FIRST_FOLDER, CameraModel.CALIBRATION_FILE));
+        cameraModel = new CameraModel((int) frameSize.width, (int) frameSize.height);
     }
 
     @Override
     public Mat processFrame(Mat input) {
+        FrameRecorder recorder = this.recorder;
+        if (recorder != null) recorder.submit(input);
         if (IntakeClawSys.TRACK) {
             internalStoneList.clear();
             findContours(input);
             clientStoneList = new ArrayList<>(internalStoneList);
+            updateTracker();
+        } else if (!tracker.getTracks().isEmpty()) {
+            tracker.reset();
+            lockedTrackId = -1;
+            trackedAngle = -1;
         }
         return input;
     }
@@ -205,79 +220,68 @@ public class SampleTrackPipeline extends OpenCvPipeline {
         return clientStoneList;
     }
 
-    public double getAngle() {
-        if (clientStoneList.isEmpty()) {
-            return -1;
-        }
-        Point frameCenter = new Point(frameSize.width / 2, frameSize.height / 2);
-        AnalyzedStone closestStone = null;
-        double closestDistance = Double.MAX_VALUE;
-
-        for (AnalyzedStone stone : clientStoneList) {
-            double distanceToCenter = Math.hypot(stone.center.x - frameCenter.x, stone.center.y - frameCenter.y - 60);
-            if (distanceToCenter < closestDistance) {
-                closestDistance = distanceToCenter;
-                closestStone = stone;
-            }
-        }
-
-        if (closestStone != null) {
-            return angleFilter.estimate(closestStone.angle);
+    private void updateTracker() {
+        tracker.update(internalStoneList);
+        SampleTracker.Track track = tracker.select(lockedTrackId, frameSize.width / 2, frameSize.height / 2 + 60);
+        if (track == null) {
+            lockedTrackId = -1;
+            trackedAngle = -1;
         } else {
-            return -1;
+            lockedTrackId = track.id;
+            trackedAngle = track.angle;
         }
     }
 
-    private GoToStone calculateMovementPose(Pose2d currentPose) {
-        double xCoverageInches = 14.80314960629921;
-        double yCoverageInches = 10.7440945;
+    /**
+     * @return the filtered angle of the sample being aligned to, or -1 if no sample is tracked
+     */
+    public double getAngle() {
+        return trackedAngle;
+    }
 
-        if (clientStoneList.isEmpty()) {
-            return null;
-        }
+    public int getTrackedId() {
+        return lockedTrackId;
+    }
 
-        // Assume the frame size is known
-        Point frameCenter = new Point(frameSize.width / 2, frameSize.height / 2);
+    /**
+     * @return the detected stone closest to the center of the frame, or null if nothing is detected
+     */
+    public AnalyzedStone getClosestStone() {
+        ArrayList<AnalyzedStone> stones = clientStoneList;
+        double centerX = frameSize.width / 2;
+        double centerY = frameSize.height / 2;
         AnalyzedStone closestStone = null;
         double closestDistance = Double.MAX_VALUE;
 
-        for (AnalyzedStone stone : clientStoneList) {
-            double distanceToCenter = Math.hypot(stone.center.x - frameCenter.x, stone.center.y - frameCenter.y);
+        for (AnalyzedStone stone : stones) {
+            double distanceToCenter = Math.hypot(stone.center.x - centerX, stone.center.y - centerY);
             if (distanceToCenter < closestDistance) {
                 closestDistance = distanceToCenter;
                 closestStone = stone;
             }
         }
+        return closestStone;
+    }
 
+    public GoToStone calculateMovementPose(Pose2d currentPose) {
+        AnalyzedStone closestStone = getClosestStone();
         if (closestStone == null) {
             return null;
         }
 
-        // Calculate the offset in pixels from the frame center
-        double deltaX = closestStone.center.x - frameCenter.x;
-        double deltaY = closestStone.center.y - frameCenter.y;
-
-        // Convert pixel offset to real-world offset (in inches)
-        double realWorldX = (deltaX / frameSize.width) * xCoverageInches - xOffset;
-        double realWorldY = (deltaY / frameSize.height) * yCoverageInches - yOffset;
+        cameraModel.toField(currentPose.position.x, currentPose.position.y, currentPose.heading.toDouble(),
+                closestStone.center.x, closestStone.center.y, fieldPoint);
 
-        // Log the results
-        Log.i("FrameSize", "Width: " + frameSize.width + ", Height: " + frameSize.height);
-        Log.i("Delta", "deltaX: " + deltaX + ", deltaY: " + deltaY);
-        Log.i("RealWorld", "X: " + realWorldX + ", Y: " + realWorldY);
+        Log.i("RealWorld", "X: " + fieldPoint[0] + ", Y: " + fieldPoint[1]);
 
-        return new GoToStone(
-                new Vector2d(currentPose.position.x + realWorldY, currentPose.position.y + realWorldX),
-                closestStone.angle
-        );
+        return new GoToStone(new Vector2d(fieldPoint[0], fieldPoint[1]), closestStone.angle);
     }
 
-
     public void getAction(PinpointDrive drive, IntakeClawSys intakeClaw, IntakeV4bSys intakeV4bSys, ExtendoSys extendoSys, OuttakeV4BSys outtakeV4BSys, OuttakeClawSys outtakeClawSys, LiftSys liftSys, ElapsedTimer elapsedTimer) {
         GoToStone sample = calculateMovementPose(drive.pose);
         if (sample != null) {
             Vector2d samplePosition = sample.position;
-            Action goTo = drive.actionBuilder(drive.pose).strafeTo(samplePosition).build();
+            Action goTo = TrajectoryPlanner.plan(drive, samplePosition, 0, TrajectoryCache.HeadingMode.CONSTANT);
 
             double angle = Math.round(Precision.calculateWeightedValue(IntakeClawSys.YAW_LEFT, IntakeClawSys.YAW_RIGHT, (sample.angle % 179) / 180) * 5) / 5.0;
             schedule(
@@ -288,8 +292,10 @@ public class SampleTrackPipeline extends OpenCvPipeline {
                             ),
                             new SequentialCommandGroup(
                                     new WaitCommand(200),
-                                    outtakeClawSys.release(),
-                                    intakeV4bSys.goToPos(POS_DOWN - 0.03),
+                                    new ParallelCommandGroup(
+                                            outtakeClawSys.release(),
+                                            intakeV4bSys.goToPos(POS_DOWN - 0.03)
+                                    ),
                                     new WaitCommand(200),
                                     intakeClaw.pinch(),
                                     new WaitCommand(200),
@@ -301,13 +307,13 @@ public class SampleTrackPipeline extends OpenCvPipeline {
                     )
             );
         } else {
-            Action park = drive.actionBuilder(drive.pose)
-                    .strafeToLinearHeading(new Vector2d(23, 7), Math.toRadians(0))
-                    .build();
+            Action park = TrajectoryPlanner.plan(drive, new Vector2d(23, 7), 0, TrajectoryCache.HeadingMode.LINEAR);
             schedule(
                     new SequentialCommandGroup(
-                            extendoSys.goTo(ExtendoSys.EXTENDO_HOME),
-                            intakeV4bSys.dropOff(),
+                            new ParallelCommandGroup(
+                                    extendoSys.goTo(ExtendoSys.EXTENDO_HOME),
+                                    intakeV4bSys.dropOff()
+                            ),
                             intakeClaw.dropoff(),
                             new WaitCommand(200),
                             new ParallelCommandGroup(
@@ -321,13 +327,10 @@ public class SampleTrackPipeline extends OpenCvPipeline {
     }
 
     private Command parkOrScore(PinpointDrive drive, IntakeClawSys intakeClaw, IntakeV4bSys intakeV4bSys, ExtendoSys extendoSys, OuttakeV4BSys outtakeV4BSys, OuttakeClawSys outtakeClawSys, LiftSys liftSys, ElapsedTimer elapsedTimer, Vector2d samplePosition) {
-        Action score = drive.actionBuilder(new Pose2d(samplePosition, Math.toRadians(180)))
-                .strafeToSplineHeading(new Vector2d(52, 55.5), Math.toRadians(225))
-                .build();
+        Action score = TrajectoryPlanner.plan(drive, new Pose2d(samplePosition, Math.toRadians(180)), new Vector2d(52, 55.5),
+                Math.toRadians(225), TrajectoryCache.HeadingMode.SPLINE);
 
-        Action park = drive.actionBuilder(drive.pose)
-                .strafeToLinearHeading(new Vector2d(23, 7), Math.toRadians(0))
-                .build();
+        Action park = TrajectoryPlanner.plan(drive, new Vector2d(23, 7), 0, TrajectoryCache.HeadingMode.LINEAR);
 
         //elapsedTimer.elapsedSeconds() < 28
         if (true) {
@@ -360,8 +363,10 @@ public class SampleTrackPipeline extends OpenCvPipeline {
             );
         } else {
             return new SequentialCommandGroup(
-                    extendoSys.goTo(ExtendoSys.EXTENDO_HOME),
-                    intakeV4bSys.dropOff(),
+                    new ParallelCommandGroup(
+                            extendoSys.goTo(ExtendoSys.EXTENDO_HOME),
+                            intakeV4bSys.dropOff()
+                    ),
                     intakeClaw.dropoff(),
                     new WaitCommand(200),
                     new ParallelCommandGroup(
@@ -0,0 +1,137 @@
+package org.firstinspires.ftc.teamcode.opencv;
+
+import com.acmerobotics.dashboard.config.Config;
+import org.firstinspires.ftc.teamcode.util.filters.AngleKalmanFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Associates sample detections across frames so that each physical sample keeps its own id and its own
+ * angle filter. Detections are matched to tracks greedily by center distance, closest pair first, inside
+ * a gating radius. Unmatched detections start new tracks, and tracks that go unmatched for too many
+ * frames are dropped.
+ */
+@Config
+public class SampleTracker {
+    public static double MATCH_DISTANCE = 40;
+    public static int MAX_MISSES = 4;
+    public static double ANGLE_Q = 4;
+    public static double ANGLE_R = 25;
+    public static double MIN_CONFIDENCE = 0.5;
+    public static double HIT_GAIN = 0.35;
+    public static double MISS_DECAY = 0.6;
+
+    private static final int MAX_TRACKS = 16;
+
+    public static class Track {
+        public final int id;
+        public double x, y;
+        public double angle;
+        public double confidence;
+        public String color;
+        int misses;
+        private final AngleKalmanFilter angleFilter = new AngleKalmanFilter(180, ANGLE_Q, ANGLE_R);
+
+        Track(int id) {
+            this.id = id;
+        }
+
+        void hit(SampleTrackPipeline.AnalyzedStone stone) {
+            x = stone.center.x;
+            y = stone.center.y;
+            color = stone.color;
+            angle = angleFilter.estimate(stone.angle);
+            confidence += (1 - confidence) * HIT_GAIN;
+            misses = 0;
+        }
+
+        void miss() {
+            confidence *= MISS_DECAY;
+            misses++;
+        }
+    }
+
+    private final ArrayList<Track> tracks = new ArrayList<>(MAX_TRACKS);
+    private final boolean[] trackMatched = new boolean[MAX_TRACKS];
+    private final boolean[] detectionMatched = new boolean[MAX_TRACKS * 2];
+    private int nextId = 0;
+
+    /**
+     * Advances every track by one frame.
+     */
+    public void update(List<SampleTrackPipeline.AnalyzedStone> detections) {
+        int detectionCount = Math.min(detections.size(), detectionMatched.length);
+        for (int i = 0; i < tracks.size(); i++) trackMatched[i] = false;
+        for (int j = 0; j < detectionCount; j++) detectionMatched[j] = false;
+
+        // Greedy assignment: repeatedly take the closest unmatched pair inside the gate.
+        while (true) {
+            int bestTrack = -1, bestDetection = -1;
+            double bestDistance = MATCH_DISTANCE;
+            for (int i = 0; i < tracks.size(); i++) {
+                if (trackMatched[i]) continue;
+                Track track = tracks.get(i);
+                for (int j = 0; j < detectionCount; j++) {
+                    if (detectionMatched[j]) continue;
+                    SampleTrackPipeline.AnalyzedStone stone = detections.get(j);
+                    double distance = Math.hypot(stone.center.x - track.x, stone.center.y - track.y);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        bestTrack = i;
+                        bestDetection = j;
+                    }
+                }
+            }
+            if (bestTrack < 0) break;
+            trackMatched[bestTrack] = true;
+            detectionMatched[bestDetection] = true;
+            tracks.get(bestTrack).hit(detections.get(bestDetection));
+        }
+
+        for (int i = tracks.size() - 1; i >= 0; i--) {
+            if (trackMatched[i]) continue;
+            Track track = tracks.get(i);
+            track.miss();
+            if (track.misses > MAX_MISSES) tracks.remove(i);
+        }
+
+        for (int j = 0; j < detectionCount && tracks.size() < MAX_TRACKS; j++) {
+            if (detectionMatched[j]) continue;
+            Track track = new Track(nextId++);
+            track.hit(detections.get(j));
+            tracks.add(track);
+        }
+    }
+
+    /**
+     * Picks the track to align to. The previously chosen track is kept for as long as it stays confident,
+     * so the target only switches when the old one is actually gone.
+     *
+     * @param lockedId the id returned last time, or -1
+     * @return the chosen track, or null if no track is confident enough
+     */
+    public Track select(int lockedId, double aimX, double aimY) {
+        Track best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < tracks.size(); i++) {
+            Track track = tracks.get(i);
+            if (track.confidence < MIN_CONFIDENCE) continue;
+            if (track.id == lockedId) return track;
+            double distance = Math.hypot(track.x - aimX, track.y - aimY);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = track;
+            }
+        }
+        return best;
+    }
+
+    public List<Track> getTracks() {
+        return tracks;
+    }
+
+    public void reset() {
+        tracks.clear();
+    }
+}
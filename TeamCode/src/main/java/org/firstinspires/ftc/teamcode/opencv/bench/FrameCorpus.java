@@ -0,0 +1,116 @@
+package org.firstinspires.ftc.teamcode.opencv.bench;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A directory of recorded camera frames.
+ *
+ * <pre>
+ * frames.csv   file,timestamp_ns[,robot state columns...]   one row per frame, written by the recorder
+ * labels.csv   file,x,y,angle                               one row per sample, written by hand
+ * *.png        lossless frames, stored BGR like every other OpenCV image on disk
+ * </pre>
+ *
+ * Frames without a row in labels.csv are treated as containing no samples.
+ */
+public class FrameCorpus {
+    public static final String FRAMES_FILE = "frames.csv";
+    public static final String LABELS_FILE = "labels.csv";
+
+    public static class Label {
+        public final double x, y, angle;
+
+        public Label(double x, double y, double angle) {
+            this.x = x;
+            this.y = y;
+            this.angle = angle;
+        }
+    }
+
+    public static class Frame {
+        public final String file;
+        public final long timestampNanos;
+        /** Every column of the manifest row, including file and timestamp, keyed by header name. */
+        public final Map<String, String> state;
+        public final List<Label> labels = new ArrayList<>();
+
+        Frame(String file, long timestampNanos, Map<String, String> state) {
+            this.file = file;
+            this.timestampNanos = timestampNanos;
+            this.state = state;
+        }
+    }
+
+    private final File directory;
+    private final List<Frame> frames = new ArrayList<>();
+
+    public FrameCorpus(File directory) throws IOException {
+        this.directory = directory;
+        Map<String, Frame> byFile = new LinkedHashMap<>();
+
+        List<String[]> rows = readCsv(new File(directory, FRAMES_FILE));
+        if (rows.isEmpty()) {
+            throw new FileNotFoundException("No frames in " + new File(directory, FRAMES_FILE));
+        }
+        String[] header = rows.get(0);
+        for (String[] row : rows.subList(1, rows.size())) {
+            Map<String, String> state = new HashMap<>();
+            for (int i = 0; i < header.length && i < row.length; i++) {
+                state.put(header[i], row[i]);
+            }
+            Frame frame = new Frame(row[0], row.length > 1 ? Long.parseLong(row[1]) : 0, state);
+            byFile.put(frame.file, frame);
+        }
+
+        File labels = new File(directory, LABELS_FILE);
+        if (labels.exists()) {
+            List<String[]> labelRows = readCsv(labels);
+            for (String[] row : labelRows.subList(1, labelRows.size())) {
+                Frame frame = byFile.get(row[0]);
+                if (frame == null) continue;
+                frame.labels.add(new Label(Double.parseDouble(row[1]), Double.parseDouble(row[2]), Double.parseDouble(row[3])));
+            }
+        }
+        frames.addAll(byFile.values());
+    }
+
+    public List<Frame> getFrames() {
+        return frames;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Loads a frame in the RGBA layout EasyOpenCV hands to {@code processFrame}.
+     */
+    public Mat load(Frame frame, Mat out) {
+        Mat bgr = Imgcodecs.imread(new File(directory, frame.file).getAbsolutePath(), Imgcodecs.IMREAD_COLOR);
+        if (bgr.empty()) {
+            bgr.release();
+            throw new IllegalStateException("Could not read " + frame.file);
+        }
+        Imgproc.cvtColor(bgr, out, Imgproc.COLOR_BGR2RGBA);
+        bgr.release();
+        return out;
+    }
+
+    private static List<String[]> readCsv(File file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                rows.add(line.split(","));
+            }
+        }
+        return rows;
+    }
+}
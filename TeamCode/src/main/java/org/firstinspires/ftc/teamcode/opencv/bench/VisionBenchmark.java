@@ -0,0 +1,270 @@
+package org.firstinspires.ftc.teamcode.opencv.bench;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.opencv.AutoAlignIntakeCV;
+import org.firstinspires.ftc.teamcode.opencv.SampleTrackPipeline;
+import org.firstinspires.ftc.teamcode.opencv.eocvtest.AutoAlignIntakeCVcopy;
+import org.firstinspires.ftc.teamcode.opencv.eocvtest.SamplePipeline;
+import org.firstinspires.ftc.teamcode.opmode.BaseOpMode;
+import org.firstinspires.ftc.teamcode.subsystem.IntakeClawSys;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.openftc.easyopencv.OpenCvPipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a pipeline over a {@link FrameCorpus} through the same {@code processFrame} contract the camera uses
+ * and scores it against the labels. Nothing here touches robot hardware, so it runs anywhere OpenCV does.
+ */
+public class VisionBenchmark {
+    /** Detections further than this from a label, in pixels, do not count as finding it. */
+    public static double MATCH_RADIUS = 25;
+
+    public static class Detection {
+        public final double x, y, angle;
+
+        public Detection(double x, double y, double angle) {
+            this.x = x;
+            this.y = y;
+            this.angle = angle;
+        }
+    }
+
+    /**
+     * Wraps a pipeline so the benchmark can read its detections after each frame.
+     */
+    public interface Adapter {
+        String name();
+
+        OpenCvPipeline pipeline();
+
+        void detections(List<Detection> out);
+    }
+
+    public static class Result {
+        public String name;
+        public int frames, errors;
+        public double fps, meanMs, p50Ms, p99Ms, maxMs;
+        public int truePositives, falsePositives, falseNegatives;
+        public double meanAngleError;
+
+        public double precision() {
+            int found = truePositives + falsePositives;
+            return found == 0 ? 1 : (double) truePositives / found;
+        }
+
+        public double recall() {
+            int labelled = truePositives + falseNegatives;
+            return labelled == 0 ? 1 : (double) truePositives / labelled;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d frames, %d errors, %.1f fps, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms, " +
+                            "precision %.3f, recall %.3f, angle error %.2f deg",
+                    name, frames, errors, fps, meanMs, p50Ms, p99Ms, maxMs, precision(), recall(), meanAngleError);
+        }
+    }
+
+    public static Result run(FrameCorpus corpus, Adapter adapter, int warmupFrames) {
+        List<FrameCorpus.Frame> frames = corpus.getFrames();
+        OpenCvPipeline pipeline = adapter.pipeline();
+        Mat original = new Mat();
+        Mat input = new Mat();
+        List<Detection> detections = new ArrayList<>();
+        long[] latencies = new long[frames.size()];
+
+        Result result = new Result();
+        result.name = adapter.name();
+        double angleErrorSum = 0;
+        int angleSamples = 0;
+
+        // init runs once, on the first frame, whether or not there is a warmup pass.
+        if (!frames.isEmpty()) {
+            corpus.load(frames.get(0), original);
+            original.copyTo(input);
+            pipeline.init(input);
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            boolean warmup = pass == 0;
+            int count = warmup ? Math.min(warmupFrames, frames.size()) : frames.size();
+            for (int i = 0; i < count; i++) {
+                FrameCorpus.Frame frame = frames.get(i);
+                corpus.load(frame, original);
+                original.copyTo(input);
+
+                long start = System.nanoTime();
+                try {
+                    pipeline.processFrame(input);
+                } catch (RuntimeException e) {
+                    if (!warmup) {
+                        result.errors++;
+                        // Nothing was detected, so every label in the frame was missed.
+                        result.falseNegatives += frame.labels.size();
+                    }
+                    continue;
+                }
+                long elapsed = System.nanoTime() - start;
+                if (warmup) continue;
+                latencies[result.frames++] = elapsed;
+
+                detections.clear();
+                adapter.detections(detections);
+                boolean[] used = new boolean[detections.size()];
+                for (FrameCorpus.Label label : frame.labels) {
+                    int best = -1;
+                    double bestDistance = MATCH_RADIUS;
+                    for (int j = 0; j < detections.size(); j++) {
+                        if (used[j]) continue;
+                        double d = Math.hypot(detections.get(j).x - label.x, detections.get(j).y - label.y);
+                        if (d < bestDistance) {
+                            bestDistance = d;
+                            best = j;
+                        }
+                    }
+                    if (best < 0) {
+                        result.falseNegatives++;
+                        continue;
+                    }
+                    used[best] = true;
+                    result.truePositives++;
+                    double angle = detections.get(best).angle;
+                    if (!Double.isNaN(angle) && !Double.isNaN(label.angle)) {
+                        angleErrorSum += axialError(angle, label.angle);
+                        angleSamples++;
+                    }
+                }
+                for (boolean u : used) {
+                    if (!u) result.falsePositives++;
+                }
+            }
+        }
+        original.release();
+        input.release();
+
+        long[] measured = Arrays.copyOf(latencies, result.frames);
+        Arrays.sort(measured);
+        long total = 0;
+        for (long l : measured) total += l;
+        if (measured.length > 0) {
+            result.meanMs = total / 1e6 / measured.length;
+            result.p50Ms = percentile(measured, 0.50) / 1e6;
+            result.p99Ms = percentile(measured, 0.99) / 1e6;
+            result.maxMs = measured[measured.length - 1] / 1e6;
+            result.fps = measured.length / (total / 1e9);
+        }
+        result.meanAngleError = angleSamples == 0 ? Double.NaN : angleErrorSum / angleSamples;
+        return result;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Sample orientations repeat every 180 degrees.
+     */
+    static double axialError(double a, double b) {
+        double d = Math.abs(a - b) % 180;
+        return Math.min(d, 180 - d);
+    }
+
+    public static Adapter sampleTrack(BaseOpMode.TEAM team) {
+        SampleTrackPipeline pipeline = new SampleTrackPipeline(team);
+        IntakeClawSys.TRACK = true;
+        return new Adapter() {
+            @Override
+            public String name() {
+                return "SampleTrackPipeline";
+            }
+
+            @Override
+            public OpenCvPipeline pipeline() {
+                return pipeline;
+            }
+
+            @Override
+            public void detections(List<Detection> out) {
+                for (SampleTrackPipeline.AnalyzedStone stone : pipeline.getDetectedStones()) {
+                    out.add(new Detection(stone.center.x, stone.center.y, stone.angle));
+                }
+            }
+        };
+    }
+
+    public static Adapter samplePipeline(Telemetry telemetry) {
+        SamplePipeline pipeline = new SamplePipeline(telemetry);
+        return new Adapter() {
+            @Override
+            public String name() {
+                return "eocvtest.SamplePipeline";
+            }
+
+            @Override
+            public OpenCvPipeline pipeline() {
+                return pipeline;
+            }
+
+            @Override
+            public void detections(List<Detection> out) {
+                for (SamplePipeline.AnalyzedStone stone : pipeline.getDetectedStones()) {
+                    out.add(new Detection(stone.center.x, stone.center.y, stone.angle));
+                }
+            }
+        };
+    }
+
+    public static Adapter autoAlign() {
+        AutoAlignIntakeCV pipeline = new AutoAlignIntakeCV();
+        return new Adapter() {
+            @Override
+            public String name() {
+                return "AutoAlignIntakeCV";
+            }
+
+            @Override
+            public OpenCvPipeline pipeline() {
+                return pipeline;
+            }
+
+            @Override
+            public void detections(List<Detection> out) {
+                Point center = pipeline.center;
+                if (pipeline.hasDetection() && center != null) {
+                    out.add(new Detection(center.x, center.y, pipeline.getOrientation()));
+                }
+            }
+        };
+    }
+
+    /**
+     * The original AutoAlignIntakeCV, kept as a baseline. It throws on frames without a quadrilateral, which
+     * shows up in the error count.
+     */
+    public static Adapter autoAlignLegacy() {
+        AutoAlignIntakeCVcopy pipeline = new AutoAlignIntakeCVcopy();
+        return new Adapter() {
+            @Override
+            public String name() {
+                return "AutoAlignIntakeCVcopy";
+            }
+
+            @Override
+            public OpenCvPipeline pipeline() {
+                return pipeline;
+            }
+
+            @Override
+            public void detections(List<Detection> out) {
+                if (pipeline.center != null && pipeline.rect != null) {
+                    out.add(new Detection(pipeline.center.x, pipeline.center.y, pipeline.getOrientation()));
+                }
+            }
+        };
+    }
+}
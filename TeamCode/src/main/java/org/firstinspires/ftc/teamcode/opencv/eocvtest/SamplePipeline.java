@@ -53,10 +53,10 @@ public class SamplePipeline extends OpenCvPipeline {
     static final Scalar BLUE = new Scalar(0, 0, 255);
     static final Scalar YELLOW = new Scalar(255, 255, 0);
 
-    static class AnalyzedStone {
-        double angle;
-        String color;
-        Point center;  // Added center to track proximity to the screen center
+    public static class AnalyzedStone {
+        public double angle;
+        public String color;
+        public Point center;  // Added center to track proximity to the screen center
     }
 
     ArrayList<AnalyzedStone> internalStoneList = new ArrayList<>();
@@ -215,6 +215,10 @@ public class SamplePipeline extends OpenCvPipeline {
         }
     }
 
+    public ArrayList<AnalyzedStone> getDetectedStones() {
+        return clientStoneList;
+    }
+
     public void setDrawOnScreen(boolean enabled) {
         this.drawOnScreen = enabled;
     }
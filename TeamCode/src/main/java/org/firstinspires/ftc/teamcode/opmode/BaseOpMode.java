@@ -21,11 +21,16 @@ import org.firstinspires.ftc.teamcode.Robot;
 import org.firstinspires.ftc.teamcode.opencv.SampleTrackPipeline;
 import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
 import org.firstinspires.ftc.teamcode.subsystem.*;
+import org.firstinspires.ftc.teamcode.util.BatteryVoltage;
 import org.firstinspires.ftc.teamcode.util.GamepadServer;
 import org.firstinspires.ftc.teamcode.util.GoBildaPinpointDriver;
+import org.firstinspires.ftc.teamcode.util.InitGraph;
+import org.firstinspires.ftc.teamcode.util.RobotStateStore;
+import org.firstinspires.ftc.teamcode.util.TimedServo;
+import org.firstinspires.ftc.teamcode.util.TrajectoryCache;
+import org.firstinspires.ftc.teamcode.util.localization.AprilTagRelocalizer;
 import org.openftc.easyopencv.OpenCvCamera;
 import org.openftc.easyopencv.OpenCvCameraFactory;
-import org.openftc.easyopencv.PipelineRecordingParameters;
 import xyz.devmello.voyager.robot.Drive;
 
 import java.util.Arrays;
@@ -38,7 +43,8 @@ public class BaseOpMode extends CommandOpMode {
     protected GamepadEx gamepadEx1, gamepadEx2;
     protected MotorEx fl, fr, bl, br, lil, lir, hang;
     private double loopTime = 0;
-    protected SimpleServo ipr, iPitch, extL, extR, iClaw, iYaw, oClaw, oPitch, oPos, transmission;
+    protected TimedServo ipr, iPitch, extL, extR, iClaw, iYaw, oClaw, oPitch, oPos;
+    protected SimpleServo transmission;
     protected TouchSensor touch;
     protected DriveSys driveSys;
     protected ExtendoSys extendoSys;
@@ -51,6 +57,7 @@ public class BaseOpMode extends CommandOpMode {
     protected OuttakeV4BSys outtakeV4bSys;
     protected SampleTrackPipeline pipeline;
     protected TransmissionSys transmissionSys;
+    protected AprilTagRelocalizer relocalizer;
     public enum TEAM {
         RED,
         BLUE
@@ -61,6 +68,7 @@ public class BaseOpMode extends CommandOpMode {
     }
     List<LynxModule> allHubs;
     GamepadServer gamepadServer;
+    private PinpointDrive pinpointDrive;
 
     @Override
     public void initialize() {
@@ -69,10 +77,24 @@ public class BaseOpMode extends CommandOpMode {
         setTeam();
         gamepadEx1 = new GamepadEx(gamepad1);
         gamepadEx2 = new GamepadEx(gamepad2);
-        initHw();
-        configHw();
-        initSys();
-        setupMisc();
+        // Picks up where auto left off, once.
+        RobotStateStore.State saved = RobotStateStore.restore();
+        if (saved != null) Robot.startPose = saved.pose;
+
+        // Hardware lookups and the drive (firmware check, imu, pinpoint) don't need each other. The cameras and hub
+        // setup in misc wait for both, since they touch the same hubs.
+        new InitGraph("Teleop")
+                .step("hardware", () -> {
+                    initHw();
+                    configHw();
+                })
+                .step("drive", () -> pinpointDrive = new PinpointDrive(hardwareMap, Robot.startPose))
+                .step("trajectories", () -> TrajectoryCache.warm(pinpointDrive), "drive")
+                .step("subsystems", this::initSys, "hardware", "drive")
+                .step("misc", this::setupMisc, "hardware", "drive")
+                .run();
+        // Servos and subsystem states aren't restored, they start from their init positions as usual.
+        if (saved != null) liftSys.restorePosition(saved.liftTicks);
     }
 
     public void initHw() {
@@ -83,15 +105,15 @@ public class BaseOpMode extends CommandOpMode {
         lil = new MotorEx(hardwareMap, "lil");
         lir = new MotorEx(hardwareMap, "lir");
         hang = new MotorEx(hardwareMap, "hang");
-        extL = new SimpleServo(hardwareMap, "extL", 0, 270);
-        extR = new SimpleServo(hardwareMap, "extR", 0, 270);
-        ipr = new SimpleServo(hardwareMap, "iPos", 0, 255);
-        iPitch = new SimpleServo(hardwareMap, "iPitch", 0, 255);
-        iClaw = new SimpleServo(hardwareMap, "iClaw", 0, 180);
-        iYaw = new SimpleServo(hardwareMap, "iYaw", 0, 180);
-        oClaw = new SimpleServo(hardwareMap, "oClaw", 0, 180);
-        oPitch = new SimpleServo(hardwareMap, "oPitch", 0, 180);
-        oPos = new SimpleServo(hardwareMap, "oPos", 0, 180);
+        extL = new TimedServo(hardwareMap, "extL", 0, 270, () -> ExtendoSys.SPEED);
+        extR = new TimedServo(hardwareMap, "extR", 0, 270, () -> ExtendoSys.SPEED);
+        ipr = new TimedServo(hardwareMap, "iPos", 0, 255, () -> IntakeV4bSys.POS_SPEED);
+        iPitch = new TimedServo(hardwareMap, "iPitch", 0, 255, () -> IntakeV4bSys.ROLL_SPEED);
+        iClaw = new TimedServo(hardwareMap, "iClaw", 0, 180, () -> IntakeClawSys.CLAW_SPEED);
+        iYaw = new TimedServo(hardwareMap, "iYaw", 0, 180, () -> IntakeClawSys.YAW_SPEED);
+        oClaw = new TimedServo(hardwareMap, "oClaw", 0, 180, () -> OuttakeClawSys.CLAW_SPEED);
+        oPitch = new TimedServo(hardwareMap, "oPitch", 0, 180, () -> OuttakeV4BSys.PITCH_SPEED);
+        oPos = new TimedServo(hardwareMap, "oPos", 0, 180, () -> OuttakeV4BSys.ARM_SPEED);
         transmission = new SimpleServo(hardwareMap, "trans", 0, 180);
         touch = hardwareMap.get(TouchSensor.class, "touch");
 
@@ -102,9 +124,10 @@ public class BaseOpMode extends CommandOpMode {
     }
 
     public void initSys() {
-        driveSys = new DriveSys(hardwareMap);
+        driveSys = new DriveSys(pinpointDrive);
         extendoSys = new ExtendoSys(extL,extR);
-        liftSys = new LiftSys(lil, lir, gamepadEx2::getRightY, touch);
+        liftSys = new LiftSys(lil, lir, gamepadEx2::getRightY, touch, new BatteryVoltage(hardwareMap));
+        driveSys.setLiftHeight(liftSys::getPosition);
         intakeV4bSys = new IntakeV4bSys(ipr, iPitch);
         intakeClawSys = new IntakeClawSys(iClaw, iYaw, ()-> gamepadEx1.getTrigger(LEFT_TRIGGER), () -> gamepadEx1.getTrigger(RIGHT_TRIGGER));
         outtakeClawSys = new OuttakeClawSys(oClaw);
@@ -120,6 +143,7 @@ public class BaseOpMode extends CommandOpMode {
         pipeline = new SampleTrackPipeline(team);
         camera = OpenCvCameraFactory.getInstance().createWebcam(webcamName);
         camera.setPipeline(pipeline);
+        relocalizer = AprilTagRelocalizer.create(hardwareMap);
         //FtcDashboard.getInstance().startCameraStream(camera, 0);
         allHubs = hardwareMap.getAll(LynxModule.class);
         for (LynxModule module : allHubs) {
@@ -127,6 +151,19 @@ public class BaseOpMode extends CommandOpMode {
         }
     }
 
+    /**
+     * Init doesn't wait on the pinpoint, so this shows when it has finished calibrating.
+     */
+    @Override
+    public void waitForStart() {
+        while (opModeInInit()) {
+            driveSys.drive.estimator.poll();
+            tad("Odometry", driveSys.drive.estimator.getState());
+            telemetry.update();
+            sleep(20);
+        }
+    }
+
     protected GamepadButton gb1(GamepadKeys.Button button) {
         return gamepadEx1.getGamepadButton(button);
     }
@@ -141,8 +178,10 @@ public class BaseOpMode extends CommandOpMode {
 
     @Override
     public void run() {
+        driveSys.drive.estimator.nextLoop();
         super.run();
         if (!DriveSys.AUTOMATION) driveSys.drive.updatePoseEstimate();
+        if (relocalizer != null) relocalizer.update(driveSys.drive.estimator.fusion);
 //        activityManager.getMemoryInfo(memoryInfo);
 //        tad("Available Memory", (float) memoryInfo.availMem / (float) memoryInfo.totalMem * 100.0F);
         tad("ANGLE", pipeline.getAngle());
@@ -161,6 +200,8 @@ public class BaseOpMode extends CommandOpMode {
     @Override
     public void reset() {
         super.reset();
+        TrajectoryCache.save();
+        if (relocalizer != null) relocalizer.close();
         //gamepadServer.shutdown();
     }
 
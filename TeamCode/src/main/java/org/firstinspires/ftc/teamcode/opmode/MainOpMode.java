@@ -49,8 +49,10 @@ public class MainOpMode extends BaseOpMode {
                         intakeClawSys.intake()
                 ),
                 new SequentialCommandGroup(
-                        intakeV4bSys.goToRoll(ROLL_OUT),
-                        intakeClawSys.release(),
+                        new ParallelCommandGroup(
+                                intakeV4bSys.goToRoll(ROLL_OUT),
+                                intakeClawSys.release()
+                        ),
                         new WaitCommand(150),
                         new InstantCommand(pipeline::disableTracking),
                         intakeV4bSys.goToPos(POS_DOWN - 0.05),
@@ -59,8 +61,10 @@ public class MainOpMode extends BaseOpMode {
                         new WaitCommand(100),
                         intakeClawSys.dropoff(),
                         new WaitCommand(150),
-                        intakeV4bSys.dropOff(),
-                        extendoSys.goTo(ExtendoSys.EXTENDO_HOME)
+                        new ParallelCommandGroup(
+                                intakeV4bSys.dropOff(),
+                                extendoSys.goTo(ExtendoSys.EXTENDO_HOME)
+                        )
                 )
         );
 
@@ -129,8 +133,8 @@ public class MainOpMode extends BaseOpMode {
         );
 
         gb1(GamepadKeys.Button.DPAD_DOWN).toggleWhenPressed(
-                new InstantCommand(()-> Robot.specimenPickup(driveSys.drive, outtakeV4bSys, outtakeClawSys, liftSys)),
-                new InstantCommand(()-> Robot.specimenScore(driveSys.drive, outtakeV4bSys, outtakeClawSys, liftSys))
+                new InstantCommand(()-> Robot.specimenPickup(driveSys, outtakeV4bSys, outtakeClawSys, liftSys)),
+                new InstantCommand(()-> Robot.specimenScore(driveSys, outtakeV4bSys, outtakeClawSys, liftSys))
         );
 //
 //        gb1(GamepadKeys.Button.BACK).whenPressed(()->DriveSys.AUTOMATION = false);
@@ -0,0 +1,44 @@
+package org.firstinspires.ftc.teamcode.opmode;
+
+import com.acmerobotics.roadrunner.Pose2d;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.opencv.FrameRecorder;
+import org.firstinspires.ftc.teamcode.subsystem.ExtendoSys;
+import org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys;
+
+import java.io.File;
+
+/**
+ * Normal teleop that also dumps every camera frame and the robot state to
+ * FIRST/vision_recordings/&lt;start time&gt; for the offline vision benchmark.
+ */
+@TeleOp(name = "Record OpMode", group = "Tuning")
+public class RecordOpMode extends MainOpMode {
+    private FrameRecorder recorder;
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        recorder = new FrameRecorder(new File(AppUtil.FIRST_FOLDER, "vision_recordings/" + System.currentTimeMillis()));
+        recorder.start();
+        pipeline.recorder = recorder;
+    }
+
+    @Override
+    public void run() {
+        Pose2d pose = driveSys.drive.pose;
+        recorder.setState(new FrameRecorder.RobotState(pose.position.x, pose.position.y, pose.heading.toDouble(),
+                intakeClawSys.getYawPosition(), ExtendoSys.state.name(), IntakeV4bSys.state.name()));
+        tad("Frames written", recorder.getWritten());
+        tad("Frames dropped", recorder.getDropped());
+        super.run();
+    }
+
+    @Override
+    public void reset() {
+        pipeline.recorder = null;
+        recorder.stop();
+        super.reset();
+    }
+}
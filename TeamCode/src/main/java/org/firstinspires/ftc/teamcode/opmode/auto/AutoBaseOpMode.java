@@ -9,6 +9,8 @@ import com.acmerobotics.roadrunner.Pose2d;
 import com.acmerobotics.roadrunner.ftc.GoBildaPinpointDriverRR;
 import com.arcrobotics.ftclib.command.Command;
 import com.arcrobotics.ftclib.command.CommandScheduler;
+import com.arcrobotics.ftclib.command.InstantCommand;
+import com.arcrobotics.ftclib.command.WaitCommand;
 import com.arcrobotics.ftclib.command.Subsystem;
 import com.arcrobotics.ftclib.gamepad.GamepadEx;
 import com.arcrobotics.ftclib.hardware.SimpleServo;
@@ -22,13 +24,24 @@ import org.firstinspires.ftc.teamcode.Robot;
 import org.firstinspires.ftc.teamcode.opencv.SampleTrackPipeline;
 import org.firstinspires.ftc.teamcode.opmode.BaseOpMode;
 import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
+import org.firstinspires.ftc.teamcode.routine.Routine;
+import org.firstinspires.ftc.teamcode.routine.RoutineCompiler;
 import org.firstinspires.ftc.teamcode.subsystem.*;
+import org.firstinspires.ftc.teamcode.util.BatteryVoltage;
+import org.firstinspires.ftc.teamcode.util.InitGraph;
+import org.firstinspires.ftc.teamcode.util.RobotStateStore;
+import org.firstinspires.ftc.teamcode.util.TimedServo;
+import org.firstinspires.ftc.teamcode.util.TrajectoryCache;
 import org.openftc.easyopencv.OpenCvCamera;
 import org.openftc.easyopencv.OpenCvCameraFactory;
+import org.json.JSONException;
 import org.openftc.easyopencv.OpenCvCameraRotation;
 import xyz.devmello.voyager.time.ElapsedTimer;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static com.arcrobotics.ftclib.gamepad.GamepadKeys.Trigger.LEFT_TRIGGER;
@@ -39,7 +52,8 @@ public class AutoBaseOpMode extends OpMode {
     protected TouchSensor touch;
     protected MotorEx fl, fr, bl, br, lil, lir, hang;
     protected ElapsedTimer elapsedTimer;
-    protected SimpleServo ipr, iPitch, extL, extR, iClaw, iYaw, oClaw, oPitch, oPos, transmission;
+    protected TimedServo ipr, iPitch, extL, extR, iClaw, iYaw, oClaw, oPitch, oPos;
+    protected SimpleServo transmission;
     protected PinpointDrive drive;
     protected ExtendoSys extendoSys;
     protected LiftSys liftSys;
@@ -68,10 +82,19 @@ public class AutoBaseOpMode extends OpMode {
         setTeam();
         gamepadEx1 = new GamepadEx(gamepad1);
         gamepadEx2 = new GamepadEx(gamepad2);
-        initHw();
-        configHw();
-        initSys();
-        setupMisc();
+        InitGraph init = new InitGraph(getClass().getSimpleName())
+                .step("hardware", () -> {
+                    initHw();
+                    configHw();
+                })
+                .step("drive", () -> drive = new PinpointDrive(hardwareMap, startPose()))
+                // The hub setup in misc touches the same hubs as the drive, so it waits for it.
+                .step("subsystems", this::initSys, "hardware", "drive")
+                .step("misc", this::setupMisc, "hardware", "drive")
+                // Maps the handoff file here so saving from the loop never touches the filesystem.
+                .step("state", RobotStateStore::open);
+        addInitSteps(init);
+        init.run();
         register(extendoSys, liftSys, intakeClawSys, outtakeClawSys, timeSys, intakeV4bSys, outtakeV4bSys);
         intakeClawSys.setPipeline(pipeline);
         IntakeClawSys.AUTO = true;
@@ -103,15 +126,15 @@ public class AutoBaseOpMode extends OpMode {
         lil = new MotorEx(hardwareMap, "lil");
         lir = new MotorEx(hardwareMap, "lir");
         hang = new MotorEx(hardwareMap, "hang");
-        extL = new SimpleServo(hardwareMap, "extL", 0, 270);
-        extR = new SimpleServo(hardwareMap, "extR", 0, 270);
-        ipr = new SimpleServo(hardwareMap, "iPos", 0, 255);
-        iPitch = new SimpleServo(hardwareMap, "iPitch", 0, 255);
-        iClaw = new SimpleServo(hardwareMap, "iClaw", 0, 180);
-        iYaw = new SimpleServo(hardwareMap, "iYaw", 0, 180);
-        oClaw = new SimpleServo(hardwareMap, "oClaw", 0, 180);
-        oPitch = new SimpleServo(hardwareMap, "oPitch", 0, 180);
-        oPos = new SimpleServo(hardwareMap, "oPos", 0, 180);
+        extL = new TimedServo(hardwareMap, "extL", 0, 270, () -> ExtendoSys.SPEED);
+        extR = new TimedServo(hardwareMap, "extR", 0, 270, () -> ExtendoSys.SPEED);
+        ipr = new TimedServo(hardwareMap, "iPos", 0, 255, () -> IntakeV4bSys.POS_SPEED);
+        iPitch = new TimedServo(hardwareMap, "iPitch", 0, 255, () -> IntakeV4bSys.ROLL_SPEED);
+        iClaw = new TimedServo(hardwareMap, "iClaw", 0, 180, () -> IntakeClawSys.CLAW_SPEED);
+        iYaw = new TimedServo(hardwareMap, "iYaw", 0, 180, () -> IntakeClawSys.YAW_SPEED);
+        oClaw = new TimedServo(hardwareMap, "oClaw", 0, 180, () -> OuttakeClawSys.CLAW_SPEED);
+        oPitch = new TimedServo(hardwareMap, "oPitch", 0, 180, () -> OuttakeV4BSys.PITCH_SPEED);
+        oPos = new TimedServo(hardwareMap, "oPos", 0, 180, () -> OuttakeV4BSys.ARM_SPEED);
         transmission = new SimpleServo(hardwareMap, "trans", 0, 180);
         touch = hardwareMap.get(TouchSensor.class, "touch");
     }
@@ -122,7 +145,7 @@ public class AutoBaseOpMode extends OpMode {
 
     public void initSys() {
         extendoSys = new ExtendoSys(extL,extR);
-        liftSys = new LiftSys(lil, lir, gamepadEx1::getRightY, touch);
+        liftSys = new LiftSys(lil, lir, gamepadEx1::getRightY, touch, new BatteryVoltage(hardwareMap));
         intakeV4bSys = new IntakeV4bSys(ipr, iPitch);
         intakeClawSys = new IntakeClawSys(iClaw, iYaw, ()-> gamepadEx1.getTrigger(LEFT_TRIGGER), () -> gamepadEx1.getTrigger(RIGHT_TRIGGER));
         outtakeClawSys = new OuttakeClawSys(oClaw);
@@ -144,6 +167,78 @@ public class AutoBaseOpMode extends OpMode {
         }
     }
 
+    /**
+     * Where the robot starts, for the drive. Called from the drive init step.
+     */
+    protected Pose2d startPose() {
+        return Robot.startPose;
+    }
+
+    /**
+     * Adds init steps that run alongside the base ones, such as building trajectories. Steps can depend on
+     * "hardware", "drive", "subsystems" and "misc".
+     */
+    protected void addInitSteps(InitGraph init) {
+    }
+
+    protected Routine loadRoutine(String name) {
+        try {
+            return Routine.load(name);
+        } catch (IOException | JSONException e) {
+            throw new RuntimeException("Could not load routine " + name, e);
+        }
+    }
+
+    /**
+     * Compiles a routine against this OpMode's drive and subsystems. Call from init, after super.init().
+     */
+    protected Command compileRoutine(Routine routine) {
+        return new RoutineCompiler(drive, routineCommands()).compile(routine);
+    }
+
+    protected Command compileRoutine(String name) {
+        return compileRoutine(loadRoutine(name));
+    }
+
+    /**
+     * The mechanism commands a routine step can use, by name.
+     */
+    protected Map<String, RoutineCompiler.CommandFactory> routineCommands() {
+        Map<String, RoutineCompiler.CommandFactory> commands = new HashMap<>();
+        commands.put("wait", args -> new WaitCommand((long) args[0]));
+        commands.put("lift.goTo", args -> args.length > 1 ? liftSys.goTo((int) args[0], args[1]) : liftSys.goTo((int) args[0]));
+        commands.put("extendo.goTo", args -> extendoSys.goTo(args[0]));
+        commands.put("intakeV4b.pos", args -> intakeV4bSys.goToPos(args[0]));
+        commands.put("intakeV4b.roll", args -> intakeV4bSys.goToRoll(args[0]));
+        commands.put("intakeV4b.intake", args -> intakeV4bSys.intake());
+        commands.put("intakeV4b.dropOff", args -> intakeV4bSys.dropOff());
+        commands.put("intakeV4b.specimenIntake", args -> intakeV4bSys.specimenIntake());
+        commands.put("intakeClaw.pinch", args -> intakeClawSys.pinch());
+        commands.put("intakeClaw.superPinch", args -> intakeClawSys.superPinch());
+        commands.put("intakeClaw.release", args -> intakeClawSys.release());
+        commands.put("intakeClaw.yaw", args -> intakeClawSys.rotateYaw(args[0]));
+        commands.put("intakeClaw.intake", args -> intakeClawSys.intake());
+        commands.put("intakeClaw.dropoff", args -> intakeClawSys.dropoff());
+        commands.put("outtakeV4b.arm", args -> outtakeV4bSys.setArm(args[0]));
+        commands.put("outtakeV4b.pitch", args -> outtakeV4bSys.setPitch(args[0]));
+        commands.put("outtakeV4b.move", args -> outtakeV4bSys.moveTo(args[0], args[1]));
+        commands.put("outtakeV4b.mid", args -> outtakeV4bSys.mid());
+        commands.put("outtakeV4b.home", args -> outtakeV4bSys.home());
+        commands.put("outtakeV4b.away", args -> outtakeV4bSys.away());
+        commands.put("outtakeV4b.specimen", args -> outtakeV4bSys.specimen());
+        commands.put("outtakeV4b.specimenScore", args -> outtakeV4bSys.specimenScore());
+        commands.put("outtakeV4b.touch", args -> outtakeV4bSys.touch());
+        commands.put("outtakeClaw.grab", args -> outtakeClawSys.grab());
+        commands.put("outtakeClaw.superGrab", args -> outtakeClawSys.superGrab());
+        commands.put("outtakeClaw.grabSpecimen", args -> outtakeClawSys.grabSpecimen());
+        commands.put("outtakeClaw.release", args -> outtakeClawSys.release());
+        commands.put("outtakeClaw.superRelease", args -> outtakeClawSys.superRelease());
+        commands.put("tracking.enable", args -> new InstantCommand(pipeline::enableTracking));
+        commands.put("tracking.disable", args -> new InstantCommand(pipeline::disableTracking));
+        commands.put("drive.tolerance", args -> new InstantCommand(() -> drive.setTolerance((int) args[0], (int) args[1])));
+        return commands;
+    }
+
     protected void tad(String caption, Object value) {
         telemetry.addData(caption, value);
     }
@@ -158,7 +253,9 @@ public class AutoBaseOpMode extends OpMode {
 
     @Override
     public void loop() {
+        drive.estimator.nextLoop();
         CommandScheduler.getInstance().run();
+        RobotStateStore.save(drive.pose, liftSys.getPosition());
     }
 
     @Override
@@ -168,6 +265,17 @@ public class AutoBaseOpMode extends OpMode {
         elapsedTimer.toString() ;
         IntakeClawSys.AUTO = false;
         Robot.startPose = drive.pose;
+        RobotStateStore.flush(drive.pose, liftSys.getPosition());
+        TrajectoryCache.save();
+    }
+
+    @Override
+    public void init_loop() {
+        // Teleop automations reuse these, so get them built while waiting for start.
+        TrajectoryCache.warm(drive);
+        drive.estimator.poll();
+        tad("Odometry", drive.estimator.getState());
+        telemetry.update();
     }
 
     @Override
@@ -10,11 +10,12 @@ import com.arcrobotics.ftclib.command.SequentialCommandGroup;
 import com.arcrobotics.ftclib.command.WaitCommand;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import org.firstinspires.ftc.teamcode.Robot;
-import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.ModelConstraints;
 import org.firstinspires.ftc.teamcode.subsystem.ExtendoSys;
 import org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys;
 import org.firstinspires.ftc.teamcode.subsystem.LiftSys;
 import org.firstinspires.ftc.teamcode.util.ActionCommand;
+import org.firstinspires.ftc.teamcode.util.InitGraph;
 
 import static org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys.POS_SPECIMEN_IN;
 import static org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys.ROLL_IN_SPECIMEN;
@@ -35,12 +36,17 @@ public class RightAltAuto extends AutoBaseOpMode{
     public static double dropOffN = -36.8;
 
     @Override
-    public void init() {
-        super.init();
-        drive = new PinpointDrive(hardwareMap, new Pose2d(16.7, -62.2, Math.toRadians(270)));
-        telemetry.addData("Initialization", true);
-        telemetry.update();
-        oClaw.setPosition(clawPos);
+    protected Pose2d startPose() {
+        return new Pose2d(16.7, -62.2, Math.toRadians(270));
+    }
+
+    @Override
+    protected void addInitSteps(InitGraph init) {
+        init.step("trajectories", this::buildTrajectories, "drive");
+    }
+
+    private void buildTrajectories() {
+        ModelConstraints fast = drive.modelConstraints();
 
         preLoad = drive.actionBuilder(new Pose2d(16.7, -62.2, Math.toRadians(270)))
                 .strafeTo(new Vector2d(4, dropOffN), drive.defaultVelConstraint, drive.defaultAccelConstraint)
@@ -84,12 +90,20 @@ public class RightAltAuto extends AutoBaseOpMode{
                 .build();
 
         score3 = drive.actionBuilder(new Pose2d(34.7, pickupN, Math.toRadians(90)))
-                .strafeToLinearHeading(new Vector2d(8, dropOffN), Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
+                .strafeToLinearHeading(new Vector2d(8, dropOffN), Math.toRadians(270), fast.vel, fast.accel)
                 .build();
 
         park = drive.actionBuilder(new Pose2d(8, dropOffN, Math.toRadians(270)))
-                .strafeToLinearHeading(new Vector2d(24, -45), Math.toRadians(315), drive.defaultVelConstraint, drive.maxAccelConstraint)
+                .strafeToLinearHeading(new Vector2d(24, -45), Math.toRadians(315), drive.defaultVelConstraint, fast.accel)
                 .build();
+    }
+
+    @Override
+    public void init() {
+        super.init();
+        telemetry.addData("Initialization", true);
+        telemetry.update();
+        oClaw.setPosition(clawPos);
 
         schedule(
                 new SequentialCommandGroup(
@@ -102,7 +116,6 @@ public class RightAltAuto extends AutoBaseOpMode{
                         new WaitCommand(250),
                         //outtake v4b sm shit
                         liftSys.goTo(LiftSys.HIGH_RUNG - 400),
-                        new WaitCommand(200),
                         outtakeClawSys.release(),
                         new WaitCommand(150),
                         outtakeV4bSys.mid(),
@@ -132,7 +145,6 @@ public class RightAltAuto extends AutoBaseOpMode{
                         outtakeV4bSys.away(),
                         //outtake v4b some shit
                         liftSys.goTo(LiftSys.HIGH_RUNG-400),
-                        new WaitCommand(200),
                         outtakeClawSys.release(),
                         new WaitCommand(100),
                         //PICKUP 2
@@ -185,9 +197,11 @@ public class RightAltAuto extends AutoBaseOpMode{
                                 liftSys.goTo(LiftSys.NONE),
                                 outtakeV4bSys.mid()
                         ),
-                        extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
-                        intakeV4bSys.goToPos(IntakeV4bSys.POS_DOWN),
-                        intakeV4bSys.goToRoll(IntakeV4bSys.ROLL_OUT),
+                        new ParallelCommandGroup(
+                                extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
+                                intakeV4bSys.goToPos(IntakeV4bSys.POS_DOWN),
+                                intakeV4bSys.goToRoll(IntakeV4bSys.ROLL_OUT)
+                        ),
                         new InstantCommand(()->drive.setTolerance(1, 4))
                 )
         );
@@ -197,7 +211,7 @@ public class RightAltAuto extends AutoBaseOpMode{
     public void loop() {
         liftSys.periodic();
         super.loop();
-        Pose2d poseEstimate = drive.odometry.getPositionRR();
+        Pose2d poseEstimate = drive.estimator.getSnapshot().pose();
         telemetry.addData("x", poseEstimate.position.x);
         telemetry.addData("y", poseEstimate.position.y);
         telemetry.addData("heading", poseEstimate.heading);
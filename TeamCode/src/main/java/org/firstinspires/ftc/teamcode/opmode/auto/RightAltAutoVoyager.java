@@ -11,11 +11,12 @@ import com.arcrobotics.ftclib.command.WaitCommand;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import org.firstinspires.ftc.teamcode.Robot;
-import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.ModelConstraints;
 import org.firstinspires.ftc.teamcode.subsystem.ExtendoSys;
 import org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys;
 import org.firstinspires.ftc.teamcode.subsystem.LiftSys;
 import org.firstinspires.ftc.teamcode.util.ActionCommand;
+import org.firstinspires.ftc.teamcode.util.InitGraph;
 import org.firstinspires.ftc.teamcode.util.VoyagerCommand;
 import org.firstinspires.ftc.teamcode.util.pathfinder.PathfinderRobot;
 import xyz.devmello.voyager.Voyager;
@@ -53,15 +54,24 @@ public class RightAltAutoVoyager extends AutoBaseOpMode{
     public static double pickupN = -57.3;
     public static double dropOffN = -37.1;
 
+    @Override
+    protected Pose2d startPose() {
+        return new Pose2d(16.7, -62.2, Math.toRadians(270));
+    }
+
+    @Override
+    protected void addInitSteps(InitGraph init) {
+        init.step("voyager", () -> pathfinderRobot.init(hardwareMap, drive.estimator), "drive");
+    }
+
     @Override
     public void init() {
         super.init();
-        pathfinderRobot.init(hardwareMap);
         Voyager voyager = pathfinderRobot.voyager();
         voyager.setSpeed(1);
         voyager.setAngleTolerance(Angle.fromDeg(3));
         voyager.setTolerance(2);
-        drive = new PinpointDrive(hardwareMap, new Pose2d(16.7, -62.2, Math.toRadians(270)));
+        ModelConstraints fast = drive.modelConstraints();
         telemetry.addData("Initialization", true);
         telemetry.update();
         oClaw.setPosition(0.8);
@@ -97,7 +107,7 @@ public class RightAltAutoVoyager extends AutoBaseOpMode{
                 .build();
 
         park = drive.actionBuilder(new Pose2d(2, dropOffN - 0.5, Math.toRadians(270)))
-                .strafeToLinearHeading(new Vector2d(24, -45), Math.toRadians(315), drive.defaultVelConstraint, drive.maxAccelConstraint)
+                .strafeToLinearHeading(new Vector2d(24, -45), Math.toRadians(315), drive.defaultVelConstraint, fast.accel)
                 .build();
 
         schedule(
@@ -111,7 +121,6 @@ public class RightAltAutoVoyager extends AutoBaseOpMode{
                         new WaitCommand(250),
                         //outtake v4b sm shit
                         liftSys.goTo(LiftSys.HIGH_RUNG - 400),
-                        new WaitCommand(200),
                         outtakeClawSys.release(),
                         new WaitCommand(150),
                         outtakeV4bSys.mid(),
@@ -144,7 +153,6 @@ public class RightAltAutoVoyager extends AutoBaseOpMode{
                         outtakeV4bSys.specimenScore(),
                         //outtake v4b some shit
                         liftSys.goTo(LiftSys.HIGH_RUNG-400),
-                        new WaitCommand(200),
                         outtakeClawSys.release(),
                         new WaitCommand(100),
                         //PICKUP 2
@@ -208,7 +216,7 @@ public class RightAltAutoVoyager extends AutoBaseOpMode{
         drive.updatePoseEstimate();
         telemetry.addData("Voyager", pathfinderRobot.voyager().getOdometry().getPosition().toString());
         super.loop();
-        Pose2d poseEstimate = drive.odometry.getPositionRR();
+        Pose2d poseEstimate = drive.estimator.getSnapshot().pose();
         telemetry.addData("x", poseEstimate.position.x);
         telemetry.addData("y", poseEstimate.position.y);
         telemetry.addData("heading", poseEstimate.heading);
@@ -9,10 +9,11 @@ import com.arcrobotics.ftclib.command.ParallelCommandGroup;
 import com.arcrobotics.ftclib.command.SequentialCommandGroup;
 import com.arcrobotics.ftclib.command.WaitCommand;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
-import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.ModelConstraints;
 import org.firstinspires.ftc.teamcode.subsystem.ExtendoSys;
 import org.firstinspires.ftc.teamcode.subsystem.LiftSys;
 import org.firstinspires.ftc.teamcode.util.ActionCommand;
+import org.firstinspires.ftc.teamcode.util.InitGraph;
 
 import static java.lang.Thread.sleep;
 import static org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys.*;
@@ -30,17 +31,22 @@ public class RightAuto extends AutoBaseOpMode{
     Action park;
 
     @Override
-    public void init() {
-        super.init();
-        drive = new PinpointDrive(hardwareMap, new Pose2d(16.7, -62.2, Math.toRadians(270)));
-        telemetry.addData("Initialization", true);
-        telemetry.update();
-        oClaw.setPosition(0.3);
-        
+    protected Pose2d startPose() {
+        return new Pose2d(16.7, -62.2, Math.toRadians(270));
+    }
+
+    @Override
+    protected void addInitSteps(InitGraph init) {
+        init.step("trajectories", this::buildTrajectories, "drive");
+    }
+
+    private void buildTrajectories() {
+        ModelConstraints fast = drive.modelConstraints();
+
         preLoad = drive.actionBuilder(new Pose2d(16.7, -62.2, Math.toRadians(270)))
-                .strafeTo(new Vector2d(4, -34.9), drive.maxVelConstraint, drive.maxAccelConstraint)
+                .strafeTo(new Vector2d(4, -34.9), fast.vel, fast.accel)
                 .build();
-        
+
         dropOff = drive.actionBuilder(new Pose2d(4, -34.9, Math.toRadians(270)))
 //                .strafeTo(new Vector2d(25.4, -34.9), drive.maxVelConstraint, drive.defaultAccelConstraint)
 //                .strafeTo(new Vector2d(46.4, -8.9), drive.maxVelConstraint, drive.defaultAccelConstraint)
@@ -52,42 +58,48 @@ public class RightAuto extends AutoBaseOpMode{
 //                .strafeTo(new Vector2d(63.5, -14.6), drive.maxVelConstraint, drive.defaultAccelConstraint)
 //                .strafeTo(new Vector2d(63.5, -62.5), drive.maxVelConstraint, drive.defaultAccelConstraint)
                 .strafeTo(new Vector2d(11, -36))
-                .splineToConstantHeading(new Vector2d(46.4, -8.9), Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
-                .splineToConstantHeading(new Vector2d(46.2, -49.5 ),Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
-                .splineToConstantHeading(new Vector2d(50.31, -13.74), Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
-                .splineToConstantHeading(new Vector2d(57.6, -13.74), Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
-                .splineToConstantHeading(new Vector2d(57.6, -49.5), Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
-                .splineToConstantHeading(new Vector2d(58.5, -13.74), Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
-                .splineToConstantHeading(new Vector2d(63.5, -13.74), Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
-                .splineToConstantHeading(new Vector2d(63.5, -62.5), Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
+                .splineToConstantHeading(new Vector2d(46.4, -8.9), Math.toRadians(270), fast.vel, fast.accel)
+                .splineToConstantHeading(new Vector2d(46.2, -49.5 ),Math.toRadians(270), fast.vel, fast.accel)
+                .splineToConstantHeading(new Vector2d(50.31, -13.74), Math.toRadians(270), fast.vel, fast.accel)
+                .splineToConstantHeading(new Vector2d(57.6, -13.74), Math.toRadians(270), fast.vel, fast.accel)
+                .splineToConstantHeading(new Vector2d(57.6, -49.5), Math.toRadians(270), fast.vel, fast.accel)
+                .splineToConstantHeading(new Vector2d(58.5, -13.74), Math.toRadians(270), fast.vel, fast.accel)
+                .splineToConstantHeading(new Vector2d(63.5, -13.74), Math.toRadians(270), fast.vel, fast.accel)
+                .splineToConstantHeading(new Vector2d(63.5, -62.5), Math.toRadians(270), fast.vel, fast.accel)
                 .build();
-        
+
         score1 = drive.actionBuilder(new Pose2d(63.5, -62.5, Math.toRadians(270)))
-                .strafeTo(new Vector2d(6, -34.9), drive.maxVelConstraint, drive.maxAccelConstraint)
+                .strafeTo(new Vector2d(6, -34.9), fast.vel, fast.accel)
                 .build();
-        
+
         pickUp2 = drive.actionBuilder(new Pose2d(6, -34.9, Math.toRadians(270)))
-                .strafeTo(new Vector2d(34.7, -39.8), drive.maxVelConstraint, drive.maxAccelConstraint)
+                .strafeTo(new Vector2d(34.7, -39.8), fast.vel, fast.accel)
                 .build();
-        
+
         score2 = drive.actionBuilder(new Pose2d(34.7, -39.8, Math.toRadians(270)))
-                .strafeTo(new Vector2d(8, -34.9), drive.maxVelConstraint, drive.maxAccelConstraint)
+                .strafeTo(new Vector2d(8, -34.9), fast.vel, fast.accel)
                 .build();
-        
+
         pickUp3 = drive.actionBuilder(new Pose2d(8, -34.9, Math.toRadians(270)))
-                .strafeTo(new Vector2d(34.7, -39.8), drive.maxVelConstraint, drive.maxAccelConstraint)
+                .strafeTo(new Vector2d(34.7, -39.8), fast.vel, fast.accel)
                 .build();
-        
+
         score3 = drive.actionBuilder(new Pose2d(34.7, -39.8, Math.toRadians(270)))
-                .strafeTo(new Vector2d(10, -34.9), drive.maxVelConstraint, drive.maxAccelConstraint)
+                .strafeTo(new Vector2d(10, -34.9), fast.vel, fast.accel)
                 .build();
 
-        
+
         park = drive.actionBuilder(new Pose2d(10, -34.9, Math.toRadians(270)))
-                .strafeTo(new Vector2d(16.7, -62.2), drive.maxVelConstraint, drive.maxAccelConstraint)
+                .strafeTo(new Vector2d(16.7, -62.2), fast.vel, fast.accel)
                 .build();
+    }
 
-
+    @Override
+    public void init() {
+        super.init();
+        telemetry.addData("Initialization", true);
+        telemetry.update();
+        oClaw.setPosition(0.3);
 
         schedule(
             new SequentialCommandGroup(
@@ -126,9 +138,11 @@ public class RightAuto extends AutoBaseOpMode{
                     new ParallelCommandGroup(
                             new ActionCommand(score1),
                             new SequentialCommandGroup(
-                                    outtakeClawSys.grab(),
-                                    intakeClawSys.release(),
                                     new WaitCommand(200),
+                                    new ParallelCommandGroup(
+                                            outtakeClawSys.grab(),
+                                            intakeClawSys.release()
+                                    ),
                                     new ParallelCommandGroup(
                                             liftSys.goTo(LiftSys.HIGH_RUNG),
                                             outtakeV4bSys.away()
@@ -137,7 +151,6 @@ public class RightAuto extends AutoBaseOpMode{
                     ),
                     //outtake v4b some shit
                     liftSys.goTo(LiftSys.HIGH_RUNG-200),
-                    new WaitCommand(200),
                     outtakeClawSys.release(),
                     new WaitCommand(100),
                     //PICKUP 2
@@ -150,24 +163,30 @@ public class RightAuto extends AutoBaseOpMode{
                             )
                     ),
                     //SCORE 2
-                    extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
-                    intakeV4bSys.specimenIntake(),
-                    intakeClawSys.release(),
-                    outtakeClawSys.release(),
                     new WaitCommand(300),
+                    new ParallelCommandGroup(
+                            extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
+                            intakeV4bSys.specimenIntake(),
+                            intakeClawSys.release(),
+                            outtakeClawSys.release()
+                    ),
                     intakeClawSys.pinch(),
                     new WaitCommand(150),
-                    intakeV4bSys.goToRoll(ROLL_IN_SPECIMEN),
-                    extendoSys.goTo(ExtendoSys.EXTENDO_HOME),
-                    intakeV4bSys.goToPos(POS_SPECIMEN_IN),
-                    outtakeV4bSys.specimen(),
+                    new ParallelCommandGroup(
+                            intakeV4bSys.goToRoll(ROLL_IN_SPECIMEN),
+                            extendoSys.goTo(ExtendoSys.EXTENDO_HOME),
+                            intakeV4bSys.goToPos(POS_SPECIMEN_IN),
+                            outtakeV4bSys.specimen()
+                    ),
                     new ParallelCommandGroup(
                             new ActionCommand(score2),
                             new SequentialCommandGroup(
                                     new WaitCommand(300),
-                                    outtakeClawSys.grab(),
-                                    intakeClawSys.release(),
                                     new WaitCommand(200),
+                                    new ParallelCommandGroup(
+                                            outtakeClawSys.grab(),
+                                            intakeClawSys.release()
+                                    ),
                                     new ParallelCommandGroup(
                                             liftSys.goTo(LiftSys.HIGH_RUNG),
                                             outtakeV4bSys.away()
@@ -188,24 +207,30 @@ public class RightAuto extends AutoBaseOpMode{
                             )
                     ),
                     //SCORE 3
-                    extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
-                    intakeV4bSys.specimenIntake(),
-                    intakeClawSys.release(),
-                    outtakeClawSys.release(),
                     new WaitCommand(300),
+                    new ParallelCommandGroup(
+                            extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
+                            intakeV4bSys.specimenIntake(),
+                            intakeClawSys.release(),
+                            outtakeClawSys.release()
+                    ),
                     intakeClawSys.pinch(),
                     new WaitCommand(150),
-                    intakeV4bSys.goToRoll(ROLL_IN_SPECIMEN),
-                    extendoSys.goTo(ExtendoSys.EXTENDO_HOME),
-                    intakeV4bSys.goToPos(POS_SPECIMEN_IN),
-                    outtakeV4bSys.specimen(),
+                    new ParallelCommandGroup(
+                            intakeV4bSys.goToRoll(ROLL_IN_SPECIMEN),
+                            extendoSys.goTo(ExtendoSys.EXTENDO_HOME),
+                            intakeV4bSys.goToPos(POS_SPECIMEN_IN),
+                            outtakeV4bSys.specimen()
+                    ),
                     new ParallelCommandGroup(
                             new ActionCommand(score3),
                             new SequentialCommandGroup(
                                     new WaitCommand(300),
-                                    outtakeClawSys.grab(),
-                                    intakeClawSys.release(),
                                     new WaitCommand(200),
+                                    new ParallelCommandGroup(
+                                            outtakeClawSys.grab(),
+                                            intakeClawSys.release()
+                                    ),
                                     new ParallelCommandGroup(
                                             liftSys.goTo(LiftSys.HIGH_RUNG),
                                             outtakeV4bSys.away()
@@ -232,7 +257,7 @@ public class RightAuto extends AutoBaseOpMode{
     public void loop() {
         liftSys.periodic();
         super.loop();
-        Pose2d poseEstimate = drive.odometry.getPositionRR();
+        Pose2d poseEstimate = drive.estimator.getSnapshot().pose();
         telemetry.addData("x", poseEstimate.position.x);
         telemetry.addData("y", poseEstimate.position.y);
         telemetry.addData("heading", poseEstimate.heading);
@@ -8,18 +8,18 @@ import com.arcrobotics.ftclib.command.ParallelCommandGroup;
 import com.arcrobotics.ftclib.command.SequentialCommandGroup;
 import com.arcrobotics.ftclib.command.WaitCommand;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
-import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.ModelConstraints;
 import org.firstinspires.ftc.teamcode.subsystem.ExtendoSys;
 import org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys;
 import org.firstinspires.ftc.teamcode.subsystem.LiftSys;
 import org.firstinspires.ftc.teamcode.util.ActionCommand;
+import org.firstinspires.ftc.teamcode.util.BlendedPath;
 
 @TeleOp(name="Right SPEED Auto")
 public class RightSpeedAuto extends AutoBaseOpMode{
     Action preLoad;
     Action dropOffLocation;
-    Action dropOff2;
-    Action dropOff3;
+    Action dropOffTurn;
     Action pickup1;
     Action score1;
     Action pickUp2;
@@ -28,57 +28,62 @@ public class RightSpeedAuto extends AutoBaseOpMode{
     Action score3;
     Action park;
 
+    @Override
+    protected Pose2d startPose() {
+        return new Pose2d(16.7, -62.2, Math.toRadians(270));
+    }
+
     @Override
     public void init() {
         super.init();
-        drive = new PinpointDrive(hardwareMap, new Pose2d(16.7, -62.2, Math.toRadians(270)));
+        ModelConstraints fast = drive.modelConstraints();
         telemetry.addData("Initialization", true);
         telemetry.update();
         oClaw.setPosition(0.3);
 
-        preLoad = drive.actionBuilder(new Pose2d(16.7, -62.2, Math.toRadians(270)))
-                .strafeTo(new Vector2d(4, -34.9), drive.defaultVelConstraint, drive.defaultAccelConstraint)
-                .build();
-
-        dropOffLocation = drive.actionBuilder(new Pose2d(4, -34.9, Math.toRadians(270)))
-                .strafeToLinearHeading(new Vector2d(58.7, -50), Math.toRadians(115))
-                .build();
+        // Each path is planned in the background from where the one before it should end, and planned again from
+        // the actual pose if the robot isn't there.
+        preLoad = new BlendedPath()
+                .to(new Vector2d(4, -34.9))
+                .build(drive, new Pose2d(16.7, -62.2, Math.toRadians(270)));
 
-        dropOff2 = drive.actionBuilder(new Pose2d(58.7,-50, Math.toRadians(115)))
-                .strafeToLinearHeading(new Vector2d(58.7, -50), Math.toRadians(90))
-                .build();
+        dropOffLocation = new BlendedPath()
+                .to(new Vector2d(58.7, -50), Math.toRadians(115))
+                .build(drive, new Pose2d(4, -34.9, Math.toRadians(270)));
 
-        dropOff3 = drive.actionBuilder(new Pose2d(58.7,-50,Math.toRadians(70)))
-                .strafeToLinearHeading(new Vector2d(58.7, -50),Math.toRadians(70))
-                .build();
+        dropOffTurn = new BlendedPath()
+                .to(new Vector2d(58.7, -50), Math.toRadians(70))
+                .build(drive, new Pose2d(58.7, -50, Math.toRadians(115)));
 
-        pickup1 = drive.actionBuilder(new Pose2d(58.7,-50,Math.toRadians(70)))
-                .strafeToLinearHeading(new Vector2d(34.7, -60), Math.toRadians(90))
-                .build();
+        pickup1 = new BlendedPath()
+                .to(new Vector2d(34.7, -60), Math.toRadians(90))
+                .build(drive, new Pose2d(58.7, -50, Math.toRadians(70)));
 
-        score1 = drive.actionBuilder(new Pose2d(34.7, -60, Math.toRadians(90)))
-                .strafeToLinearHeading(new Vector2d(6, -34.9), Math.toRadians(270),drive.defaultVelConstraint, drive.defaultAccelConstraint)
-                .build();
+        score1 = new BlendedPath()
+                .to(new Vector2d(6, -34.9), Math.toRadians(270))
+                .build(drive, new Pose2d(34.7, -60, Math.toRadians(90)));
 
-        pickUp2 = drive.actionBuilder(new Pose2d(6, -34.9, Math.toRadians(270)))
-                .strafeToLinearHeading(new Vector2d(34.7, -60), Math.toRadians(90), drive.defaultVelConstraint, drive.defaultAccelConstraint)
-                .build();
+        pickUp2 = new BlendedPath()
+                .to(new Vector2d(34.7, -60), Math.toRadians(90))
+                .build(drive, new Pose2d(6, -34.9, Math.toRadians(270)));
 
-        score2 = drive.actionBuilder(new Pose2d(34.7, -60, Math.toRadians(90)))
-                .strafeToLinearHeading(new Vector2d(8, -34.9), Math.toRadians(270), drive.defaultVelConstraint, drive.defaultAccelConstraint)
-                .build();
+        score2 = new BlendedPath()
+                .to(new Vector2d(8, -34.9), Math.toRadians(270))
+                .build(drive, new Pose2d(34.7, -60, Math.toRadians(90)));
 
-        pickUp3 = drive.actionBuilder(new Pose2d(8, -34.9, Math.toRadians(270)))
-                .strafeToLinearHeading(new Vector2d(34.7, -60), Math.toRadians(90), drive.defaultVelConstraint, drive.defaultAccelConstraint)
-                .build();
+        pickUp3 = new BlendedPath()
+                .to(new Vector2d(34.7, -60), Math.toRadians(90))
+                .build(drive, new Pose2d(8, -34.9, Math.toRadians(270)));
 
-        score3 = drive.actionBuilder(new Pose2d(34.7, -60, Math.toRadians(90)))
-                .strafeToLinearHeading(new Vector2d(10, -34.9), Math.toRadians(270), drive.maxVelConstraint, drive.maxAccelConstraint)
-                .build();
+        score3 = new BlendedPath()
+                .to(new Vector2d(10, -34.9), Math.toRadians(270))
+                .constraints(fast.vel, fast.accel)
+                .build(drive, new Pose2d(34.7, -60, Math.toRadians(90)));
 
-        park = drive.actionBuilder(new Pose2d(10, -34.9, Math.toRadians(270)))
-                .strafeToLinearHeading(new Vector2d(24, -45), Math.toRadians(315), drive.defaultVelConstraint, drive.maxAccelConstraint)
-                .build();
+        park = new BlendedPath()
+                .to(new Vector2d(24, -45), Math.toRadians(315))
+                .constraints(null, fast.accel)
+                .build(drive, new Pose2d(10, -34.9, Math.toRadians(270)));
 
         schedule(
                 new SequentialCommandGroup(
@@ -99,12 +104,11 @@ public class RightSpeedAuto extends AutoBaseOpMode{
                                 new ActionCommand(dropOffLocation)
                         ),
                         new WaitCommand(150),
-                        new ActionCommand(dropOff2),
-                        new ActionCommand(dropOff3),
+                        new ActionCommand(dropOffTurn),
                         new SequentialCommandGroup(
                                 new ParallelCommandGroup(
                                         extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
-                                        new SequentialCommandGroup(
+                                        new ParallelCommandGroup(
                                                 intakeV4bSys.goToPos(IntakeV4bSys.POS_DOWN),
                                                 intakeV4bSys.goToRoll(IntakeV4bSys.ROLL_OUT)
                                         )
@@ -139,7 +143,6 @@ public class RightSpeedAuto extends AutoBaseOpMode{
                         outtakeV4bSys.away(),
                         //outtake v4b some shit
                         liftSys.goTo(LiftSys.HIGH_RUNG-200),
-                        new WaitCommand(200),
                         outtakeClawSys.release(),
                         new WaitCommand(100),
                         //PICKUP 2
@@ -190,9 +193,11 @@ public class RightSpeedAuto extends AutoBaseOpMode{
                                 liftSys.goTo(LiftSys.NONE),
                                 outtakeV4bSys.mid()
                         ),
-                        extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
-                        intakeV4bSys.goToPos(IntakeV4bSys.POS_DOWN),
-                        intakeV4bSys.goToRoll(IntakeV4bSys.ROLL_OUT),
+                        new ParallelCommandGroup(
+                                extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
+                                intakeV4bSys.goToPos(IntakeV4bSys.POS_DOWN),
+                                intakeV4bSys.goToRoll(IntakeV4bSys.ROLL_OUT)
+                        ),
                         new InstantCommand(()->drive.setTolerance(1, 4))
                 )
         );
@@ -202,7 +207,7 @@ public class RightSpeedAuto extends AutoBaseOpMode{
     public void loop() {
         liftSys.periodic();
         super.loop();
-        Pose2d poseEstimate = drive.odometry.getPositionRR();
+        Pose2d poseEstimate = drive.estimator.getSnapshot().pose();
         telemetry.addData("x", poseEstimate.position.x);
         telemetry.addData("y", poseEstimate.position.y);
         telemetry.addData("heading", poseEstimate.heading);
@@ -0,0 +1,31 @@
+package org.firstinspires.ftc.teamcode.opmode.auto;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.Pose2d;
+import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
+import org.firstinspires.ftc.teamcode.routine.Routine;
+import org.firstinspires.ftc.teamcode.routine.RoutineCompiler;
+
+/**
+ * Runs any routine by name, from FIRST/routines on the robot or assets/routines, so a new routine only needs a
+ * JSON file.
+ */
+@Config
+@Autonomous(name = "Routine Auto", group = "Autonomous")
+public class RoutineAuto extends AutoBaseOpMode {
+    public static String ROUTINE = "left";
+
+    private Routine routine;
+
+    @Override
+    protected Pose2d startPose() {
+        routine = loadRoutine(ROUTINE);
+        return RoutineCompiler.toPose(routine.start);
+    }
+
+    @Override
+    public void init() {
+        super.init();
+        schedule(compileRoutine(routine));
+    }
+}
@@ -0,0 +1,181 @@
+package org.firstinspires.ftc.teamcode.opmode.tuning;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.arcrobotics.ftclib.hardware.SimpleServo;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.opencv.CameraModel;
+import org.firstinspires.ftc.teamcode.opencv.SampleTrackPipeline;
+import org.firstinspires.ftc.teamcode.opmode.BaseOpMode;
+import org.firstinspires.ftc.teamcode.subsystem.IntakeClawSys;
+import org.firstinspires.ftc.teamcode.subsystem.IntakeV4bSys;
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+import org.openftc.easyopencv.OpenCvCamera;
+import org.openftc.easyopencv.OpenCvCameraFactory;
+import org.openftc.easyopencv.OpenCvCameraRotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solves the {@link CameraModel} ground plane homography with the intake held in its tracking position.
+ *
+ * <p>Checkerboard: lay the board flat with its rows of BOARD_COLS corners running away from the robot, which is
+ * left to right in the image. BOARD_FORWARD / BOARD_LEFT are the robot-frame offsets of the inner corner that shows
+ * up top left in the image, the one nearest the robot on its left. Press A to capture.
+ *
+ * <p>Tape: put a sample (or a tape square) at TAPE_FORWARD / TAPE_LEFT and press A to capture the center the
+ * sample pipeline sees. Repeat over the whole frame, at least four spots.
+ *
+ * <p>X solves, Y writes the result to the calibration file, B clears the captured points.
+ */
+@Config
+@TeleOp(name = "Camera Calibration", group = "Tuning")
+public class CameraCalibrationTuner extends LinearOpMode {
+    public static boolean CHECKERBOARD = true;
+    public static int BOARD_COLS = 7;
+    public static int BOARD_ROWS = 5;
+    public static double SQUARE_INCHES = 1;
+    public static double BOARD_FORWARD = 12;
+    public static double BOARD_LEFT = 3;
+
+    public static double TAPE_FORWARD = 8;
+    public static double TAPE_LEFT = 0;
+
+    private final List<double[]> pixels = new ArrayList<>();
+    private final List<double[]> floor = new ArrayList<>();
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
+        IntakeClawSys.TRACK = true;
+
+        SimpleServo ipr = new SimpleServo(hardwareMap, "iPos", 0, 255);
+        SimpleServo iPitch = new SimpleServo(hardwareMap, "iPitch", 0, 255);
+        WebcamName webcamName = hardwareMap.get(WebcamName.class, "Webcam 1");
+        CalibrationPipeline pipeline = new CalibrationPipeline(BaseOpMode.TEAM.BLUE);
+        OpenCvCamera camera = OpenCvCameraFactory.getInstance().createWebcam(webcamName);
+        camera.setPipeline(pipeline);
+        camera.openCameraDeviceAsync(new OpenCvCamera.AsyncCameraOpenListener() {
+            @Override
+            public void onOpened() {
+                camera.startStreaming(320, 240, OpenCvCameraRotation.UPRIGHT);
+            }
+
+            @Override
+            public void onError(int errorCode) {
+                Log.e("OpenCv", "Error opening camera: " + errorCode);
+            }
+        });
+        FtcDashboard.getInstance().startCameraStream(camera, 0);
+
+        waitForStart();
+        boolean lastA = false, lastX = false, lastY = false;
+        double rms = Double.NaN;
+        while (opModeIsActive() && !isStopRequested()) {
+            ipr.setPosition(IntakeV4bSys.POS_MID);
+            iPitch.setPosition(0.8);
+
+            if (gamepad1.a && !lastA) {
+                capture(pipeline);
+            }
+            if (gamepad1.b) {
+                pixels.clear();
+                floor.clear();
+                rms = Double.NaN;
+            }
+            if (gamepad1.x && !lastX && pixels.size() >= 4) {
+                CameraModel.solveHomography(CameraModel.PARAMS, pixels, floor);
+                rms = CameraModel.reprojectionError(CameraModel.PARAMS, pixels, floor);
+            }
+            if (gamepad1.y && !lastY) {
+                try {
+                    CameraModel.save(CameraModel.PARAMS, new File(AppUtil.FIRST_FOLDER, CameraModel.CALIBRATION_FILE));
+                    telemetry.log().add("Saved camera calibration");
+                } catch (IOException e) {
+                    Log.e("CameraCalibration", "Could not save calibration", e);
+                }
+            }
+            lastA = gamepad1.a;
+            lastX = gamepad1.x;
+            lastY = gamepad1.y;
+
+            CameraModel.Params p = CameraModel.PARAMS;
+            telemetry.addData("Mode", CHECKERBOARD ? "Checkerboard" : "Tape");
+            telemetry.addData("Points", pixels.size());
+            telemetry.addData("Corners visible", pipeline.corners.length);
+            telemetry.addData("RMS error (in)", rms);
+            telemetry.addData("H row 0", "%.5f %.5f %.5f", p.h00, p.h01, p.h02);
+            telemetry.addData("H row 1", "%.5f %.5f %.5f", p.h10, p.h11, p.h12);
+            telemetry.addData("H row 2", "%.5f %.5f %.5f", p.h20, p.h21, p.h22);
+            telemetry.update();
+        }
+        IntakeClawSys.TRACK = false;
+    }
+
+    private void capture(CalibrationPipeline pipeline) {
+        if (CHECKERBOARD) {
+            Point[] corners = pipeline.corners;
+            if (corners.length != BOARD_COLS * BOARD_ROWS) return;
+            Point first = corners[0], next = corners[1], below = corners[BOARD_COLS];
+            if (Math.abs(next.x - first.x) < Math.abs(next.y - first.y)) {
+                telemetry.log().add("Turn the board so its rows run left to right in the image");
+                return;
+            }
+            // findChessboardCorners can start from any corner, so count from the one top left in the image. Image x
+            // is forward and image y is to the right, as in the default homography.
+            boolean flipCols = next.x < first.x, flipRows = below.y < first.y;
+            for (int i = 0; i < corners.length; i++) {
+                int row = i / BOARD_COLS;
+                int col = i % BOARD_COLS;
+                if (flipRows) row = BOARD_ROWS - 1 - row;
+                if (flipCols) col = BOARD_COLS - 1 - col;
+                pixels.add(new double[]{corners[i].x, corners[i].y});
+                floor.add(new double[]{BOARD_FORWARD + col * SQUARE_INCHES, BOARD_LEFT - row * SQUARE_INCHES});
+            }
+        } else {
+            SampleTrackPipeline.AnalyzedStone stone = pipeline.getClosestStone();
+            if (stone == null) return;
+            pixels.add(new double[]{stone.center.x, stone.center.y});
+            floor.add(new double[]{TAPE_FORWARD, TAPE_LEFT});
+        }
+    }
+
+    static class CalibrationPipeline extends SampleTrackPipeline {
+        private final Mat gray = new Mat();
+        private final MatOfPoint2f found = new MatOfPoint2f();
+        volatile Point[] corners = new Point[0];
+
+        CalibrationPipeline(BaseOpMode.TEAM team) {
+            super(team);
+        }
+
+        @Override
+        public Mat processFrame(Mat input) {
+            if (!CHECKERBOARD) {
+                return super.processFrame(input);
+            }
+            Imgproc.cvtColor(input, gray, Imgproc.COLOR_RGB2GRAY);
+            Size pattern = new Size(BOARD_COLS, BOARD_ROWS);
+            if (Calib3d.findChessboardCorners(gray, pattern, found,
+                    Calib3d.CALIB_CB_ADAPTIVE_THRESH | Calib3d.CALIB_CB_NORMALIZE_IMAGE | Calib3d.CALIB_CB_FAST_CHECK)) {
+                Imgproc.cornerSubPix(gray, found, new Size(5, 5), new Size(-1, -1),
+                        new TermCriteria(TermCriteria.EPS + TermCriteria.COUNT, 30, 0.01));
+                corners = found.toArray();
+                Calib3d.drawChessboardCorners(input, pattern, found, true);
+            } else {
+                corners = new Point[0];
+            }
+            return input;
+        }
+    }
+}
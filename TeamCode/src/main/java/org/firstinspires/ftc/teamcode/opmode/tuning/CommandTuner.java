@@ -20,7 +20,7 @@ public class CommandTuner extends BaseOpMode {
                 new ParallelCommandGroup(
                         outtakeV4bSys.mid(),
                         extendoSys.goTo(ExtendoSys.EXTENDO_MAX),
-                        new SequentialCommandGroup(
+                        new ParallelCommandGroup(
                                 intakeV4bSys.goToPos(POS_SPECIMEN_OUT),
                                 intakeV4bSys.goToRoll(ROLL_OUT_SPECIMEN)
                         ),
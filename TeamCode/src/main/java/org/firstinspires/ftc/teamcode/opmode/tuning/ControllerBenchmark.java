@@ -0,0 +1,112 @@
+package org.firstinspires.ftc.teamcode.opmode.tuning;
+
+import android.os.Debug;
+import android.util.Log;
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.arcrobotics.ftclib.controller.wpilibcontroller.ProfiledPIDController;
+import com.arcrobotics.ftclib.trajectory.TrapezoidProfile;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import org.firstinspires.ftc.teamcode.util.ProfiledPIDFController;
+
+/**
+ * Checks {@link ProfiledPIDFController} against ftclib's trapezoid profile and compares its per call cost
+ * and allocations with ftclib's ProfiledPIDController. Needs no hardware; results show up once started.
+ */
+@Config
+@TeleOp(name = "Controller Benchmark", group = "Tuning")
+public class ControllerBenchmark extends LinearOpMode {
+    public static int ITERATIONS = 100000;
+    public static double DT = 0.01;
+    public static double MAX_VEL = 2500;
+    public static double MAX_ACCEL = 6000;
+    public static double kP = 0.009;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
+        waitForStart();
+
+        double[] reference = compareWithReference();
+        report("Max setpoint position error", reference[0]);
+        report("Max setpoint velocity error", reference[1]);
+
+        ProfiledPIDFController controller = new ProfiledPIDFController(kP, 0, 0, MAX_VEL, MAX_ACCEL);
+        ProfiledPIDController ftclib = new ProfiledPIDController(kP, 0, 0, new TrapezoidProfile.Constraints(MAX_VEL, MAX_ACCEL));
+
+        // Warm both up so class loading and JIT don't land in the measurement.
+        runController(controller, ITERATIONS / 10);
+        runFtclib(ftclib, ITERATIONS / 10);
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        long start = System.nanoTime();
+        runController(controller, ITERATIONS);
+        long controllerNanos = System.nanoTime() - start;
+        int controllerAllocs = Debug.getThreadAllocCount();
+
+        Debug.resetThreadAllocCount();
+        start = System.nanoTime();
+        runFtclib(ftclib, ITERATIONS);
+        long ftclibNanos = System.nanoTime() - start;
+        int ftclibAllocs = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+
+        report("ProfiledPIDFController ns/call", (double) controllerNanos / ITERATIONS);
+        report("ProfiledPIDFController allocations", controllerAllocs);
+        report("ftclib ProfiledPIDController ns/call", (double) ftclibNanos / ITERATIONS);
+        report("ftclib ProfiledPIDController allocations", ftclibAllocs);
+        telemetry.update();
+
+        while (opModeIsActive()) {
+            idle();
+        }
+    }
+
+    /**
+     * Steps both profiles with the same fixed dt through a move, a reversal mid move and a settle.
+     */
+    private double[] compareWithReference() {
+        TrapezoidProfile.Constraints constraints = new TrapezoidProfile.Constraints(MAX_VEL, MAX_ACCEL);
+        TrapezoidProfile.State setpoint = new TrapezoidProfile.State(0, 0);
+        ProfiledPIDFController controller = new ProfiledPIDFController(kP, 0, 0, MAX_VEL, MAX_ACCEL);
+        controller.reset(0);
+
+        double maxPosition = 0, maxVelocity = 0;
+        int steps = (int) (4 / DT);
+        for (int i = 0; i < steps; i++) {
+            double goal = i < steps / 4 ? 2000 : 300;
+            setpoint = new TrapezoidProfile(constraints, new TrapezoidProfile.State(goal, 0), setpoint).calculate(DT);
+            controller.setGoal(goal);
+            controller.calculate(controller.getSetpointPosition(), DT);
+            maxPosition = Math.max(maxPosition, Math.abs(setpoint.position - controller.getSetpointPosition()));
+            maxVelocity = Math.max(maxVelocity, Math.abs(setpoint.velocity - controller.getSetpointVelocity()));
+        }
+        return new double[]{maxPosition, maxVelocity};
+    }
+
+    private static void runController(ProfiledPIDFController controller, int iterations) {
+        double position = 0;
+        controller.reset(0);
+        for (int i = 0; i < iterations; i++) {
+            controller.setGoal((i / 500) % 2 == 0 ? 2000 : 0);
+            position += controller.calculate(position, DT) * MAX_VEL * DT;
+        }
+    }
+
+    private static void runFtclib(ProfiledPIDController controller, int iterations) {
+        double position = 0;
+        controller.reset(0);
+        for (int i = 0; i < iterations; i++) {
+            controller.setGoal((i / 500) % 2 == 0 ? 2000 : 0);
+            position += controller.calculate(position) * MAX_VEL * DT;
+        }
+    }
+
+    private void report(String caption, double value) {
+        Log.i("ControllerBenchmark", caption + ": " + value);
+        telemetry.addData(caption, value);
+    }
+}
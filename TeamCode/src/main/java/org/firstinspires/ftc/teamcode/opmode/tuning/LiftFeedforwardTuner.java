@@ -0,0 +1,188 @@
+package org.firstinspires.ftc.teamcode.opmode.tuning;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.arcrobotics.ftclib.hardware.motors.Motor;
+import com.arcrobotics.ftclib.hardware.motors.MotorEx;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.hardware.TouchSensor;
+import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.subsystem.LiftFeedforward;
+import org.firstinspires.ftc.teamcode.util.BatteryVoltage;
+import org.firstinspires.ftc.teamcode.util.filters.LowPassFilter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fits {@link LiftFeedforward} from logged voltage ramps.
+ *
+ * <p>A runs a slow ramp up to TOP followed by a slow ramp back down, which mostly measures gravity, friction
+ * and kV. B runs a voltage step up to TOP followed by the down ramp, which adds the acceleration data kA
+ * needs. Run each a few times from the bottom, then press X to fit and Y to copy the result into
+ * LiftFeedforward. Samples are also written to FIRST/lift_ramps.csv.
+ */
+@Config
+@TeleOp(name = "Lift Feedforward Tuner", group = "Tuning")
+public class LiftFeedforwardTuner extends LinearOpMode {
+    public static double RAMP_RATE = 0.5;
+    public static double STEP_VOLTAGE = 6;
+    public static double MAX_VOLTAGE = 8;
+    public static double TOP = 1900;
+    public static double BOTTOM = 100;
+    /** Samples slower than this, in ticks/s, are static friction and get left out of the fit. */
+    public static double MIN_VELOCITY = 40;
+    public static double ACCEL_FILTER_GAIN = 0.3;
+
+    private enum Phase {IDLE, RAMP_UP, STEP_UP, RAMP_DOWN}
+
+    private final List<double[]> samples = new ArrayList<>();
+    private double[] fit;
+    private double rSquared = Double.NaN;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
+        MotorEx top = new MotorEx(hardwareMap, "lil");
+        MotorEx bottom = new MotorEx(hardwareMap, "lir");
+        TouchSensor touch = hardwareMap.get(TouchSensor.class, "touch");
+        Motor.Encoder encoder = bottom.encoder;
+        encoder.reset();
+        BatteryVoltage battery = new BatteryVoltage(hardwareMap);
+        LowPassFilter accelFilter = new LowPassFilter(ACCEL_FILTER_GAIN);
+
+        waitForStart();
+        Phase phase = Phase.IDLE;
+        double phaseStart = 0, downStartVoltage = 0, lastVelocity = 0, lastTime = getRuntime();
+        boolean lastX = false, lastY = false;
+
+        while (opModeIsActive() && !isStopRequested()) {
+            double now = getRuntime();
+            double dt = now - lastTime;
+            lastTime = now;
+            if (touch.isPressed()) encoder.reset();
+            double position = encoder.getPosition();
+            double velocity = encoder.getCorrectedVelocity();
+            double acceleration = dt > 0 ? accelFilter.estimate((velocity - lastVelocity) / dt) : 0;
+            lastVelocity = velocity;
+
+            if (phase == Phase.IDLE) {
+                if (gamepad1.a || gamepad1.b) {
+                    phase = gamepad1.a ? Phase.RAMP_UP : Phase.STEP_UP;
+                    phaseStart = now;
+                }
+                if (gamepad1.x && !lastX) fit();
+                if (gamepad1.y && !lastY && fit != null) apply();
+            }
+            lastX = gamepad1.x;
+            lastY = gamepad1.y;
+
+            double volts = 0;
+            double t = now - phaseStart;
+            switch (phase) {
+                case RAMP_UP:
+                case STEP_UP:
+                    volts = phase == Phase.RAMP_UP ? Math.min(MAX_VOLTAGE, RAMP_RATE * t) : STEP_VOLTAGE;
+                    if (position >= TOP) {
+                        phase = Phase.RAMP_DOWN;
+                        phaseStart = now;
+                        downStartVoltage = LiftFeedforward.gravity(position) + 1;
+                    }
+                    break;
+                case RAMP_DOWN:
+                    volts = downStartVoltage - RAMP_RATE * t;
+                    if (position <= BOTTOM || volts < -MAX_VOLTAGE) phase = Phase.IDLE;
+                    break;
+                default:
+                    break;
+            }
+            if (phase == Phase.IDLE) volts = 0;
+
+            double voltage = battery.getAsDouble();
+            top.set(volts / voltage);
+            bottom.set(volts / voltage);
+            if (phase != Phase.IDLE && Math.abs(velocity) >= MIN_VELOCITY) {
+                samples.add(new double[]{position, velocity, acceleration, volts});
+            }
+
+            telemetry.addData("Phase", phase);
+            telemetry.addData("Position", position);
+            telemetry.addData("Velocity", velocity);
+            telemetry.addData("Volts", volts);
+            telemetry.addData("Samples", samples.size());
+            if (fit != null) {
+                telemetry.addData("kS", fit[0]);
+                telemetry.addData("kV", fit[1]);
+                telemetry.addData("kA", fit[2]);
+                telemetry.addData("kG1 / kG2 / kG3", "%.3f / %.3f / %.3f", fit[3], fit[4], fit[5]);
+                telemetry.addData("R^2", rSquared);
+            }
+            telemetry.update();
+        }
+        top.set(0);
+        bottom.set(0);
+    }
+
+    /**
+     * Least squares on V = kS sign(v) + kV v + kA a + kG[stage].
+     */
+    private void fit() {
+        int n = samples.size();
+        int[] perStage = new int[3];
+        for (double[] sample : samples) perStage[LiftFeedforward.stage(sample[0])]++;
+        if (n < 20 || perStage[0] == 0 || perStage[1] == 0 || perStage[2] == 0) {
+            telemetry.log().add("Need samples in every stage, have " + perStage[0] + "/" + perStage[1] + "/" + perStage[2]);
+            return;
+        }
+        double[] y = new double[n];
+        double[][] x = new double[n][6];
+        for (int i = 0; i < n; i++) {
+            double[] sample = samples.get(i);
+            y[i] = sample[3];
+            x[i][0] = Math.signum(sample[1]);
+            x[i][1] = sample[1];
+            x[i][2] = sample[2];
+            x[i][3 + LiftFeedforward.stage(sample[0])] = 1;
+        }
+        OLSMultipleLinearRegression regression = new OLSMultipleLinearRegression();
+        regression.setNoIntercept(true);
+        try {
+            regression.newSampleData(y, x);
+            fit = regression.estimateRegressionParameters();
+            rSquared = regression.calculateRSquared();
+        } catch (RuntimeException e) {
+            Log.e("LiftFeedforwardTuner", "Fit failed", e);
+            telemetry.log().add("Fit failed: " + e.getMessage());
+        }
+        writeSamples();
+    }
+
+    private void apply() {
+        LiftFeedforward.kS = fit[0];
+        LiftFeedforward.kV = fit[1];
+        LiftFeedforward.kA = fit[2];
+        LiftFeedforward.kG1 = fit[3];
+        LiftFeedforward.kG2 = fit[4];
+        LiftFeedforward.kG3 = fit[5];
+        telemetry.log().add("Applied fit to LiftFeedforward");
+    }
+
+    private void writeSamples() {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(AppUtil.FIRST_FOLDER, "lift_ramps.csv")))) {
+            writer.println("position,velocity,acceleration,volts");
+            for (double[] sample : samples) {
+                writer.println(sample[0] + "," + sample[1] + "," + sample[2] + "," + sample[3]);
+            }
+        } catch (IOException e) {
+            Log.e("LiftFeedforwardTuner", "Could not write samples", e);
+        }
+    }
+}
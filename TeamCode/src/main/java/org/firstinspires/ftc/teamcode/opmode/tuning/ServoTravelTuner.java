@@ -0,0 +1,68 @@
+package org.firstinspires.ftc.teamcode.opmode.tuning;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.arcrobotics.ftclib.hardware.SimpleServo;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.hardware.AnalogInput;
+import org.firstinspires.ftc.teamcode.util.ServoTravelCalibrator;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Measures a servo's speed for {@link org.firstinspires.ftc.teamcode.util.TimedServo}. Needs a servo with
+ * position feedback wired to an analog port, e.g. an Axon. Leave FEEDBACK empty to run against a simulated servo
+ * moving at SIMULATED_SPEED instead. Press A to calibrate, then copy the speed into the subsystem's config.
+ */
+@Config
+@TeleOp(name = "Servo Travel Tuner", group = "Tuning")
+public class ServoTravelTuner extends LinearOpMode {
+    public static String SERVO = "oPos";
+    public static String FEEDBACK = "";
+    public static double RANGE = 180;
+    public static double FROM = 0.3;
+    public static double TO = 0.7;
+    public static int SWEEPS = 10;
+    public static double TOLERANCE = 0.01;
+    public static double SIMULATED_SPEED = 400;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
+        waitForStart();
+
+        boolean lastA = false;
+        while (opModeIsActive() && !isStopRequested()) {
+            if (gamepad1.a && !lastA) calibrate();
+            lastA = gamepad1.a;
+            telemetry.addData("Servo", FEEDBACK.isEmpty() ? "simulated" : SERVO);
+            telemetry.update();
+        }
+    }
+
+    private void calibrate() {
+        DoubleConsumer servo;
+        DoubleSupplier feedback;
+        if (FEEDBACK.isEmpty()) {
+            ServoTravelCalibrator.SimulatedServo simulated = new ServoTravelCalibrator.SimulatedServo(RANGE, SIMULATED_SPEED);
+            servo = simulated;
+            feedback = simulated;
+        } else {
+            SimpleServo real = new SimpleServo(hardwareMap, SERVO, 0, RANGE);
+            AnalogInput input = hardwareMap.get(AnalogInput.class, FEEDBACK);
+            servo = real::setPosition;
+            feedback = () -> input.getVoltage() / input.getMaxVoltage();
+        }
+
+        ServoTravelCalibrator calibrator = new ServoTravelCalibrator(servo, feedback, RANGE);
+        calibrator.setTolerance(TOLERANCE, 3);
+        ServoTravelCalibrator.Result result = calibrator.run(FROM, TO, SWEEPS, this::opModeIsActive);
+        String message = result == null ? "Servo never reached its target, check FEEDBACK and TOLERANCE" : result.toString();
+        Log.i("ServoTravelTuner", SERVO + ": " + message);
+        telemetry.log().add(message);
+    }
+}
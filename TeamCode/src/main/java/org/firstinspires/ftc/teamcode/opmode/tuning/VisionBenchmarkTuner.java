@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode.opmode.tuning;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.opencv.bench.FrameCorpus;
+import org.firstinspires.ftc.teamcode.opencv.bench.VisionBenchmark;
+import org.firstinspires.ftc.teamcode.opmode.BaseOpMode;
+import org.firstinspires.ftc.teamcode.subsystem.IntakeClawSys;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Replays a recorded frame corpus through a vision pipeline without the camera and reports latency and
+ * detection accuracy. Press A to run the selected pipeline, B to run every pipeline back to back.
+ */
+@Config
+@TeleOp(name = "Vision Benchmark", group = "Tuning")
+public class VisionBenchmarkTuner extends LinearOpMode {
+    public enum Pipeline {
+        SAMPLE_TRACK,
+        AUTO_ALIGN,
+        AUTO_ALIGN_LEGACY,
+        SAMPLE
+    }
+
+    public static String CORPUS = "vision_corpus";
+    public static Pipeline PIPELINE = Pipeline.SAMPLE_TRACK;
+    public static int WARMUP_FRAMES = 10;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
+        waitForStart();
+
+        boolean lastA = false, lastB = false;
+        while (opModeIsActive() && !isStopRequested()) {
+            if (gamepad1.a && !lastA) {
+                run(PIPELINE);
+            }
+            if (gamepad1.b && !lastB) {
+                for (Pipeline pipeline : Pipeline.values()) run(pipeline);
+            }
+            lastA = gamepad1.a;
+            lastB = gamepad1.b;
+            telemetry.addData("Corpus", new File(AppUtil.FIRST_FOLDER, CORPUS));
+            telemetry.update();
+        }
+        IntakeClawSys.TRACK = false;
+    }
+
+    private void run(Pipeline pipeline) {
+        FrameCorpus corpus;
+        try {
+            corpus = new FrameCorpus(new File(AppUtil.FIRST_FOLDER, CORPUS));
+        } catch (IOException e) {
+            Log.e("VisionBenchmark", "Could not load corpus", e);
+            telemetry.log().add("Could not load corpus: " + e.getMessage());
+            return;
+        }
+        VisionBenchmark.Adapter adapter;
+        switch (pipeline) {
+            case AUTO_ALIGN:
+                adapter = VisionBenchmark.autoAlign();
+                break;
+            case AUTO_ALIGN_LEGACY:
+                adapter = VisionBenchmark.autoAlignLegacy();
+                break;
+            case SAMPLE:
+                adapter = VisionBenchmark.samplePipeline(telemetry);
+                break;
+            default:
+                adapter = VisionBenchmark.sampleTrack(BaseOpMode.TEAM.BLUE);
+                break;
+        }
+        VisionBenchmark.Result result = VisionBenchmark.run(corpus, adapter, WARMUP_FRAMES);
+        Log.i("VisionBenchmark", result.toString());
+        telemetry.log().add(result.toString());
+    }
+}
@@ -1,5 +1,6 @@
 package org.firstinspires.ftc.teamcode.roadrunner;
 
+import android.util.Log;
 import androidx.annotation.NonNull;
 
 import com.acmerobotics.dashboard.canvas.Canvas;
@@ -43,11 +44,15 @@ import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
 import org.firstinspires.ftc.teamcode.roadrunner.messages.DriveCommandMessage;
 import org.firstinspires.ftc.teamcode.roadrunner.messages.MecanumCommandMessage;
 import org.firstinspires.ftc.teamcode.roadrunner.messages.MecanumLocalizerInputsMessage;
+import org.firstinspires.ftc.teamcode.util.EstimatedCompletion;
+import org.firstinspires.ftc.teamcode.util.MecanumMixer;
+import org.firstinspires.ftc.teamcode.util.SettleDetector;
 
 import java.lang.Math;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 
 @Config
 public class MecanumDrive {
@@ -67,6 +72,7 @@ public class MecanumDrive {
         // feedforward parameters (in tick units)
         public double kS = 1.7586345497107194;
         public double kV = 0.1424830984486189;
+        // kA isn't tuned yet, this placeholder is small enough that only slip limits ModelConstraints' accel
         public double kA = 0.0001;
 
         // path profile parameters (in inches)
@@ -86,6 +92,13 @@ public class MecanumDrive {
         public double axialVelGain = 0.0;
         public double lateralVelGain = 0.0;
         public double headingVelGain = 0.0; // shared with turn
+
+        // path completion (in inches and degrees)
+        public double headingTolerance = 2;
+        public double settleVel = 2;
+        public double settleAngVel = 10;
+        public double settleDwellMs = 50;
+        public double earlyExit = 0.25; // seconds before the planned end the path may finish if settled
     }
 
     public static Params PARAMS = new Params();
@@ -103,15 +116,6 @@ public class MecanumDrive {
     public final AccelConstraint defaultAccelConstraint =
             new ProfileAccelConstraint(PARAMS.minProfileAccel, PARAMS.maxProfileAccel);
 
-    public final VelConstraint maxVelConstraint =
-            new MinVelConstraint(Arrays.asList(
-                    kinematics.new WheelVelConstraint(80),
-                    new AngularVelConstraint(PARAMS.maxAngVel)
-            ));
-
-    public final AccelConstraint maxAccelConstraint =
-            new ProfileAccelConstraint(-60, 80);
-
 
     public final DcMotorEx leftFront, leftBack, rightBack, rightFront;
 
@@ -129,6 +133,8 @@ public class MecanumDrive {
     private final DownsampledWriter driveCommandWriter = new DownsampledWriter("DRIVE_COMMAND", 50_000_000);
     private final DownsampledWriter mecanumCommandWriter = new DownsampledWriter("MECANUM_COMMAND", 50_000_000);
 
+    private final MecanumMixer mixer = new MecanumMixer();
+
     private int errorTolerance = 1;
     private int timeTolerance = 4;
 
@@ -264,28 +270,33 @@ public class MecanumDrive {
     }
 
     public void setDrivePowers(PoseVelocity2d powers) {
-        MecanumKinematics.WheelVelocities<Time> wheelVels = new MecanumKinematics(1).inverse(
-                PoseVelocity2dDual.constant(powers, 1));
-
-        double maxPowerMag = 1;
-        for (DualNum<Time> power : wheelVels.all()) {
-            maxPowerMag = Math.max(maxPowerMag, power.value());
-        }
+        setDrivePowers(powers.linearVel.x, powers.linearVel.y, powers.angVel);
+    }
 
-        leftFront.setPower(wheelVels.leftFront.get(0) / maxPowerMag);
-        leftBack.setPower(wheelVels.leftBack.get(0) / maxPowerMag);
-        rightBack.setPower(wheelVels.rightBack.get(0) / maxPowerMag);
-        rightFront.setPower(wheelVels.rightFront.get(0) / maxPowerMag);
+    /**
+     * Robot relative powers without building any roadrunner objects, for teleop.
+     */
+    public void setDrivePowers(double forward, double left, double turn) {
+        mixer.mix(forward, left, turn).limit(1);
+        leftFront.setPower(mixer.leftFront);
+        leftBack.setPower(mixer.leftBack);
+        rightBack.setPower(mixer.rightBack);
+        rightFront.setPower(mixer.rightFront);
     }
 
-    public final class FollowTrajectoryAction implements Action {
+    public final class FollowTrajectoryAction implements Action, EstimatedCompletion {
         public final TimeTrajectory timeTrajectory;
         private double beginTs = -1;
 
         private final double[] xPoints, yPoints;
 
+        private final Pose2d endPose;
+        private final SettleDetector settle = new SettleDetector(1, 1, 0, Double.POSITIVE_INFINITY);
+        private double stuckSince = -1;
+
         public FollowTrajectoryAction(TimeTrajectory t) {
             timeTrajectory = t;
+            endPose = t.path.end(1).value();
 
             List<Double> disps = com.acmerobotics.roadrunner.Math.range(
                     0, t.path.length(),
@@ -299,12 +310,19 @@ public class MecanumDrive {
             }
         }
 
+        @Override
+        public double getTimeRemaining() {
+            return beginTs < 0 ? timeTrajectory.duration : Math.max(0, timeTrajectory.duration - (Actions.now() - beginTs));
+        }
+
         @Override
         public boolean run(@NonNull TelemetryPacket p) {
             double t;
             if (beginTs < 0) {
                 beginTs = Actions.now();
                 t = 0;
+                settle.setTolerances(1, 1, PARAMS.settleDwellMs, Double.POSITIVE_INFINITY);
+                settle.start();
             } else {
                 t = Actions.now() - beginTs;
             }
@@ -315,12 +333,17 @@ public class MecanumDrive {
             PoseVelocity2d robotVelRobot = updatePoseEstimate();
             Pose2d error = txWorldTarget.value().minusExp(pose);
 
-            if ((t >= timeTrajectory.duration && error.position.norm() < errorTolerance) || t >= timeTrajectory.duration + timeTolerance) {
+            String done = t >= timeTrajectory.duration - PARAMS.earlyExit ? completion(t, robotVelRobot) : null;
+            if (done != null) {
                 leftFront.setPower(0);
                 leftBack.setPower(0);
                 rightBack.setPower(0);
                 rightFront.setPower(0);
 
+                Pose2d endError = endPose.minusExp(pose);
+                Log.i("FollowTrajectory", String.format(Locale.US, "%s, %+.0f ms vs plan (%.2f s), end error %.2f in %.1f deg",
+                        done, (t - timeTrajectory.duration) * 1000, timeTrajectory.duration,
+                        endError.position.norm(), Math.toDegrees(endError.heading.toDouble())));
                 return false;
             }
 
@@ -377,6 +400,55 @@ public class MecanumDrive {
             return true;
         }
 
+        /**
+         * Checks the robot against the end of the path. Returns why the path is done, or null to keep going.
+         *
+         * <p>Settled means the end pose error and the robot's velocity have stayed inside the tolerances for the
+         * dwell time, which may happen up to earlyExit before the planned end. Past the end, the path also gives
+         * up once the robot is closing in too slowly to reach the tolerance before timeTolerance runs out.
+         */
+        private String completion(double t, PoseVelocity2d robotVelRobot) {
+            Pose2d endError = endPose.minusExp(pose);
+            double distance = endError.position.norm();
+            double heading = Math.abs(Math.toDegrees(endError.heading.toDouble()));
+            double speed = robotVelRobot.linearVel.norm();
+            double turning = Math.abs(Math.toDegrees(robotVelRobot.angVel));
+            if (settle.update(Math.max(distance / errorTolerance, heading / PARAMS.headingTolerance),
+                    Math.max(speed / PARAMS.settleVel, turning / PARAMS.settleAngVel))) {
+                return "settled";
+            }
+            if (t < timeTrajectory.duration) return null;
+            if (t >= timeTrajectory.duration + timeTolerance) return "timed out";
+
+            double left = timeTrajectory.duration + timeTolerance - t;
+            if (predictedConvergence(endError, robotVelRobot) > left) {
+                if (stuckSince < 0) stuckSince = t;
+                if (t - stuckSince >= PARAMS.settleDwellMs / 1000) return "not converging";
+            } else {
+                stuckSince = -1;
+            }
+            return null;
+        }
+
+        /**
+         * Seconds until the end error is inside the tolerances at the rate the robot is closing it right now.
+         */
+        private double predictedConvergence(Pose2d endError, PoseVelocity2d robotVelRobot) {
+            double distance = endError.position.norm();
+            double time = 0;
+            if (distance > errorTolerance) {
+                double closing = robotVelRobot.linearVel.dot(endError.position) / distance;
+                time = closing > 0 ? (distance - errorTolerance) / closing : Double.POSITIVE_INFINITY;
+            }
+            double heading = endError.heading.toDouble();
+            double headingTolerance = Math.toRadians(PARAMS.headingTolerance);
+            if (Math.abs(heading) > headingTolerance) {
+                double closing = robotVelRobot.angVel * Math.signum(heading);
+                time = Math.max(time, closing > 0 ? (Math.abs(heading) - headingTolerance) / closing : Double.POSITIVE_INFINITY);
+            }
+            return time;
+        }
+
         @Override
         public void preview(Canvas c) {
             c.setStroke("#4CAF507A");
@@ -385,8 +457,8 @@ public class MecanumDrive {
         }
     }
 
-    public final class TurnAction implements Action {
-        private final TimeTurn turn;
+    public final class TurnAction implements Action, EstimatedCompletion {
+        public final TimeTurn turn;
 
         private double beginTs = -1;
 
@@ -394,6 +466,11 @@ public class MecanumDrive {
             this.turn = turn;
         }
 
+        @Override
+        public double getTimeRemaining() {
+            return beginTs < 0 ? turn.duration : Math.max(0, turn.duration - (Actions.now() - beginTs));
+        }
+
         @Override
         public boolean run(@NonNull TelemetryPacket p) {
             double t;
@@ -511,6 +588,14 @@ public class MecanumDrive {
         );
     }
 
+    /**
+     * Limits from the drive model at the current battery voltage, for segments that should run as fast as the
+     * hardware allows. The voltage is read once here, so make them right before building the paths that use them.
+     */
+    public ModelConstraints modelConstraints() {
+        return new ModelConstraints(kinematics, voltageSensor.getVoltage());
+    }
+
     public void setTolerance(int errorTolerance, int timeTolerance) {
         this.errorTolerance = errorTolerance;
         this.timeTolerance = timeTolerance;
@@ -0,0 +1,102 @@
+package org.firstinspires.ftc.teamcode.roadrunner;
+
+import androidx.annotation.NonNull;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.AccelConstraint;
+import com.acmerobotics.roadrunner.AngularVelConstraint;
+import com.acmerobotics.roadrunner.Arclength;
+import com.acmerobotics.roadrunner.MecanumKinematics;
+import com.acmerobotics.roadrunner.MinMax;
+import com.acmerobotics.roadrunner.Pose2dDual;
+import com.acmerobotics.roadrunner.PosePath;
+import com.acmerobotics.roadrunner.VelConstraint;
+
+/**
+ * Velocity and acceleration limits worked out from the drive feedforward model instead of fixed caps.
+ *
+ * <p>Wheel speed is limited to what the battery can drive through kS and kV, leaving some voltage for the
+ * feedback terms, and turning while driving shares that wheel budget through the mecanum kinematics. On curves the
+ * speed is held to what the wheels can take sideways before slipping, and the acceleration along the path gives up
+ * the part of the grip that cornering uses. Acceleration is otherwise limited by the voltage left over at mid speed
+ * through kA, and by wheel slip, with a separate, lower slip limit for braking.
+ * kA is still an untuned placeholder, so for now only the slip limits matter.
+ *
+ * <p>Pass {@link #vel} and {@link #accel} to any actionBuilder segment. Limits depend on the battery voltage at the
+ * time the constraints were made, see {@link MecanumDrive#modelConstraints()}. They don't follow the battery as it
+ * sags over a match; voltageHeadroom leaves room for that and feedback covers the rest.
+ */
+@Config
+public class ModelConstraints {
+    public static class Params {
+        /** Share of the battery voltage the profile may plan for, the rest is left to feedback. */
+        public double voltageHeadroom = 0.85;
+        /** Largest acceleration the wheels take before slipping, in/s^2. */
+        public double slipAccel = 80;
+        /** Largest deceleration the wheels take before slipping, in/s^2. */
+        public double slipDecel = 60;
+        /** Share of slipAccel a curve may use sideways. */
+        public double centripetalShare = 0.6;
+        /** Curvature below which a path counts as straight, 1/in. */
+        public double minCurvature = 1e-3;
+    }
+
+    public static Params PARAMS = new Params();
+
+    public final VelConstraint vel;
+    public final AccelConstraint accel;
+    public final double maxWheelVel;
+    public final double maxWheelAccel;
+
+    public ModelConstraints(MecanumKinematics kinematics, double voltage) {
+        MecanumDrive.Params drive = MecanumDrive.PARAMS;
+        double usable = voltage * PARAMS.voltageHeadroom;
+        // inPerTick converts the tick based gains to inches, as in the followers' feedforward.
+        double kV = drive.kV / drive.inPerTick, kA = drive.kA / drive.inPerTick;
+        maxWheelVel = Math.max(0, (usable - drive.kS) / kV);
+        maxWheelAccel = kA > 0 ? (usable - drive.kS - kV * maxWheelVel / 2) / kA : Double.POSITIVE_INFINITY;
+
+        VelConstraint wheels = kinematics.new WheelVelConstraint(maxWheelVel);
+        VelConstraint turning = new AngularVelConstraint(drive.maxAngVel);
+        double lateralMultiplier = kinematics.lateralMultiplier;
+        vel = new VelConstraint() {
+            @Override
+            public double maxRobotVel(@NonNull Pose2dDual<Arclength> robotPose, @NonNull PosePath path, double s) {
+                double limit = Math.min(wheels.maxRobotVel(robotPose, path, s), turning.maxRobotVel(robotPose, path, s));
+                double curvature = curvature(path, s);
+                if (curvature > PARAMS.minCurvature) {
+                    limit = Math.min(limit, Math.sqrt(PARAMS.centripetalShare * PARAMS.slipAccel / curvature));
+                }
+                return limit;
+            }
+        };
+        accel = new AccelConstraint() {
+            @NonNull
+            @Override
+            public MinMax minMaxProfileAccel(@NonNull Pose2dDual<Arclength> robotPose, @NonNull PosePath path, double s) {
+                // Wheel acceleration per unit of path acceleration depends on which way the robot is going.
+                double heading = robotPose.heading.value().log();
+                double dx = robotPose.position.x.get(1), dy = robotPose.position.y.get(1);
+                double forward = Math.cos(heading) * dx + Math.sin(heading) * dy;
+                double strafe = -Math.sin(heading) * dx + Math.cos(heading) * dy;
+                double wheelsPerPath = Math.max(1e-6, Math.abs(forward) + lateralMultiplier * Math.abs(strafe));
+
+                double grip = 1;
+                if (curvature(path, s) > PARAMS.minCurvature) {
+                    grip = Math.sqrt(1 - PARAMS.centripetalShare * PARAMS.centripetalShare);
+                }
+                double voltageLimit = maxWheelAccel / wheelsPerPath;
+                return new MinMax(-Math.min(grip * PARAMS.slipDecel, voltageLimit), Math.min(grip * PARAMS.slipAccel, voltageLimit));
+            }
+        };
+    }
+
+    /**
+     * Curvature of the path's translation at s, 1/in.
+     */
+    private static double curvature(PosePath path, double s) {
+        Pose2dDual<Arclength> pose = path.get(s, 3);
+        double dx = pose.position.x.get(1), dy = pose.position.y.get(1);
+        double ddx = pose.position.x.get(2), ddy = pose.position.y.get(2);
+        return Math.abs(dx * ddy - dy * ddx);
+    }
+}
@@ -1,12 +1,12 @@
 package org.firstinspires.ftc.teamcode.roadrunner;
 
-import android.util.Log;
 import com.acmerobotics.roadrunner.Pose2d;
 import com.acmerobotics.roadrunner.PoseVelocity2d;
 import com.acmerobotics.roadrunner.ftc.FlightRecorder;
 import com.acmerobotics.roadrunner.ftc.GoBildaPinpointDriverRR;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import org.firstinspires.ftc.teamcode.roadrunner.messages.PoseMessage;
+import org.firstinspires.ftc.teamcode.util.localization.PoseEstimator;
 
 public class PinpointDrive extends MecanumDrive{
     public static class Params {
@@ -19,41 +19,26 @@ public class PinpointDrive extends MecanumDrive{
         public GoBildaPinpointDriverRR.EncoderDirection yDirection = GoBildaPinpointDriverRR.EncoderDirection.REVERSED;
     }
     public static PinpointDrive.Params PARAMS = new Params();
-    public GoBildaPinpointDriverRR odometry;
+    public final PoseEstimator estimator;
+    /** The estimator's pinpoint, for reading only. */
+    public final GoBildaPinpointDriverRR odometry;
     private Pose2d lastPinpointPose  = pose;
 
     public PinpointDrive(HardwareMap hardwareMap, Pose2d initialPose) {
         super(hardwareMap, initialPose);
-        odometry = hardwareMap.get(GoBildaPinpointDriverRR.class, "odo");
-        odometry.setOffsets(PARAMS.xOffset, PARAMS.yOffset);
-        odometry.setEncoderDirections(PARAMS.xDirection, PARAMS.yDirection);
-        odometry.setEncoderResolution(PARAMS.resolution);
-        Log.d("PinpointDrive", "Initializing Odometry");
-        odometry.resetPosAndIMU();
-        // wait for pinpoint to finish calibrating
-        try {
-            Thread.sleep(300);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        odometry.setPosition(pose);
-        Log.d("PinpointDrive", "Odometry Initialized");
+        estimator = new PoseEstimator(hardwareMap, initialPose);
+        odometry = estimator.odometry;
     }
 
     @Override
     public PoseVelocity2d updatePoseEstimate() {
         if (lastPinpointPose != pose) {
-            // RR localizer note:
-            // Something else is modifying our pose (likely for relocalization),
-            // so we override otos pose with the new pose.
-            // This could potentially cause up to 1 loop worth of drift.
-            // I don't like this solution at all, but it preserves compatibility.
-            // The only alternative is to add getter and setters, but that breaks compat.
-            // Potential alternate solution: timestamp the pose set and backtrack it based on speed?
-            odometry.setPosition(pose);
+            // Something else set the pose, likely to relocalize. Rather than writing it to the pinpoint a loop late
+            // and losing the motion since, the estimator takes it as the pose at the last reading.
+            estimator.setPose(pose);
         }
-        odometry.update();
-        pose = odometry.getPositionRR();
+        PoseEstimator.Snapshot snapshot = estimator.update();
+        pose = snapshot.pose();
         lastPinpointPose = pose;
 
         // RR standard
@@ -64,6 +49,6 @@ public class PinpointDrive extends MecanumDrive{
 
         FlightRecorder.write("ESTIMATED_POSE", new PoseMessage(pose));
 
-        return odometry.getVelocityRR();
+        return snapshot.velocity();
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package org.firstinspires.ftc.teamcode.roadrunner.messages;
+
+public final class FixMessage {
+    public long timestamp;
+    public long captureTimestamp;
+    public double x;
+    public double y;
+    public double heading;
+    public boolean accepted;
+
+    public FixMessage(long captureTimestamp, double x, double y, double heading, boolean accepted) {
+        this.timestamp = System.nanoTime();
+        this.captureTimestamp = captureTimestamp;
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        this.accepted = accepted;
+    }
+}
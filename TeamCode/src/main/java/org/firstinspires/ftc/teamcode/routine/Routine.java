@@ -0,0 +1,139 @@
+package org.firstinspires.ftc.teamcode.routine;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An autonomous routine as data: a start pose, named paths, and a flat list of steps. Angles are in degrees.
+ * Numbers may also be written as a constant like {@code "LiftSys.HIGH_BUCKET"} or {@code "IntakeV4bSys.POS_DOWN - 0.03"},
+ * see {@link RoutineCompiler#resolve}.
+ *
+ * <pre>
+ * {
+ *   "start": {"x": 38.6, "y": 64.5, "heading": 180},
+ *   "paths": [
+ *     {"name": "preload", "segments": [{"type": "strafeToSplineHeading", "x": 54, "y": 53.5, "heading": 225}]}
+ *   ],
+ *   "steps": [
+ *     {"id": "drive", "do": "drive", "args": ["preload"]},
+ *     {"do": "lift.goTo", "args": ["LiftSys.HIGH_BUCKET"], "with": true},
+ *     {"do": "outtakeClaw.release", "delay": 200}
+ *   ]
+ * }
+ * </pre>
+ *
+ * A path starts where the previous one ends unless it has a "from" pose. Steps run one stage at a time: a step
+ * with "with" joins the stage before it, and every stage starts once the whole previous stage is done. "after"
+ * replaces that with a list of step ids to wait for, which is how a sequence inside a stage is written, and
+ * "delay" waits that many ms more.
+ */
+public class Routine {
+    public static class Pose {
+        public final double x, y, heading;
+
+        Pose(JSONObject json) throws JSONException {
+            x = json.getDouble("x");
+            y = json.getDouble("y");
+            heading = json.getDouble("heading");
+        }
+    }
+
+    public static class Segment {
+        public final String type;
+        /** Raw values, resolved by the compiler. */
+        public final JSONObject values;
+
+        Segment(JSONObject json) throws JSONException {
+            type = json.getString("type");
+            values = json;
+        }
+    }
+
+    public static class Path {
+        public final String name;
+        public final Pose from;
+        public final List<Segment> segments = new ArrayList<>();
+
+        Path(JSONObject json) throws JSONException {
+            name = json.getString("name");
+            from = json.has("from") ? new Pose(json.getJSONObject("from")) : null;
+            JSONArray array = json.getJSONArray("segments");
+            for (int i = 0; i < array.length(); i++) segments.add(new Segment(array.getJSONObject(i)));
+        }
+    }
+
+    public static class Step {
+        public final String id;
+        public final String command;
+        public final List<String> args = new ArrayList<>();
+        public final boolean with;
+        /** Null to wait for the previous stage. */
+        public final List<String> after;
+        public final long delayMs;
+
+        Step(JSONObject json, int index) throws JSONException {
+            id = json.optString("id", "#" + index);
+            command = json.getString("do");
+            JSONArray array = json.optJSONArray("args");
+            if (array != null) {
+                for (int i = 0; i < array.length(); i++) args.add(array.getString(i));
+            }
+            with = json.optBoolean("with", false);
+            if (json.has("after")) {
+                List<String> ids = new ArrayList<>();
+                JSONArray deps = json.getJSONArray("after");
+                for (int i = 0; i < deps.length(); i++) ids.add(deps.getString(i));
+                after = Collections.unmodifiableList(ids);
+            } else {
+                after = null;
+            }
+            delayMs = json.optLong("delay", 0);
+        }
+    }
+
+    public final String source;
+    public final Pose start;
+    public final List<Path> paths = new ArrayList<>();
+    public final List<Step> steps = new ArrayList<>();
+
+    public Routine(String source) throws JSONException {
+        this.source = source;
+        JSONObject json = new JSONObject(source);
+        start = new Pose(json.getJSONObject("start"));
+        JSONArray pathArray = json.optJSONArray("paths");
+        if (pathArray != null) {
+            for (int i = 0; i < pathArray.length(); i++) paths.add(new Path(pathArray.getJSONObject(i)));
+        }
+        JSONArray stepArray = json.getJSONArray("steps");
+        for (int i = 0; i < stepArray.length(); i++) steps.add(new Step(stepArray.getJSONObject(i), i));
+    }
+
+    /**
+     * Loads FIRST/routines/name.json from the robot if it's there, so routines can be changed without a rebuild,
+     * and the copy bundled in assets/routines otherwise.
+     */
+    public static Routine load(String name) throws IOException, JSONException {
+        File file = new File(AppUtil.FIRST_FOLDER, "routines/" + name + ".json");
+        try (InputStream in = file.exists()
+                ? new FileInputStream(file)
+                : AppUtil.getDefContext().getAssets().open("routines/" + name + ".json")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) out.write(buffer, 0, read);
+            return new Routine(out.toString(StandardCharsets.UTF_8.name()));
+        }
+    }
+}
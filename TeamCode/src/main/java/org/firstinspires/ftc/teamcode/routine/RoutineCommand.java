@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode.routine;
+
+import com.arcrobotics.ftclib.command.Command;
+import com.arcrobotics.ftclib.command.CommandBase;
+
+/**
+ * Runs a flat schedule of commands, each starting once the commands it depends on have finished and its delay
+ * has passed. Commands are run directly like a command group runs its members, so steps that overlap may share
+ * subsystems.
+ */
+public class RoutineCommand extends CommandBase {
+    private final Command[] commands;
+    private final int[][] dependencies;
+    private final long[] delayMs;
+
+    private final boolean[] started, finished;
+    private final long[] readyNanos;
+    private int remaining;
+
+    /**
+     * @param dependencies for each command, the indices of the commands it waits for
+     */
+    public RoutineCommand(Command[] commands, int[][] dependencies, long[] delayMs) {
+        this.commands = commands;
+        this.dependencies = dependencies;
+        this.delayMs = delayMs;
+        started = new boolean[commands.length];
+        finished = new boolean[commands.length];
+        readyNanos = new long[commands.length];
+        for (Command command : commands) m_requirements.addAll(command.getRequirements());
+    }
+
+    @Override
+    public void initialize() {
+        for (int i = 0; i < commands.length; i++) {
+            started[i] = false;
+            finished[i] = false;
+            readyNanos[i] = -1;
+        }
+        remaining = commands.length;
+    }
+
+    @Override
+    public void execute() {
+        long now = System.nanoTime();
+        for (int i = 0; i < commands.length; i++) {
+            if (finished[i]) continue;
+            if (!started[i]) {
+                if (readyNanos[i] < 0) {
+                    if (!dependenciesDone(i)) continue;
+                    readyNanos[i] = now;
+                }
+                if ((now - readyNanos[i]) / 1e6 < delayMs[i]) continue;
+                started[i] = true;
+                commands[i].initialize();
+            }
+            commands[i].execute();
+            if (commands[i].isFinished()) {
+                commands[i].end(false);
+                finished[i] = true;
+                remaining--;
+            }
+        }
+    }
+
+    private boolean dependenciesDone(int index) {
+        for (int dependency : dependencies[index]) {
+            if (!finished[dependency]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return remaining == 0;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        if (!interrupted) return;
+        for (int i = 0; i < commands.length; i++) {
+            if (started[i] && !finished[i]) commands[i].end(true);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package org.firstinspires.ftc.teamcode.routine;
+
+import com.acmerobotics.roadrunner.AccelConstraint;
+import com.acmerobotics.roadrunner.Pose2d;
+import com.acmerobotics.roadrunner.ProfileAccelConstraint;
+import com.acmerobotics.roadrunner.TrajectoryActionBuilder;
+import com.acmerobotics.roadrunner.TranslationalVelConstraint;
+import com.acmerobotics.roadrunner.VelConstraint;
+import com.acmerobotics.roadrunner.Vector2d;
+import com.arcrobotics.ftclib.command.Command;
+import org.firstinspires.ftc.teamcode.roadrunner.MecanumDrive;
+import org.firstinspires.ftc.teamcode.util.ActionCommand;
+import org.firstinspires.ftc.teamcode.util.TrajectoryCache;
+import org.firstinspires.ftc.teamcode.util.TrajectoryCache.Plan;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a {@link Routine} into a {@link RoutineCommand}. Paths are built into TimeTrajectory and TimeTurn objects
+ * once and kept for as long as the app runs, keyed on the routine text, the values its constants resolve to and the
+ * drive constraints, so running the same routine again skips trajectory generation entirely, while changing a
+ * constant from the dashboard rebuilds it.
+ *
+ * <p>The plans only live in memory. Roadrunner's paths and profiles can't be written out and read back, so the
+ * first init after the app starts still builds every path; warming from saved keys the way {@link TrajectoryCache}
+ * does would only move that work, not skip it.
+ */
+public class RoutineCompiler {
+    public interface CommandFactory {
+        Command create(double[] args);
+    }
+
+    /** Where "Class.FIELD" constants are looked up. */
+    private static final String[] CONSTANT_PACKAGES = {
+            "org.firstinspires.ftc.teamcode.subsystem.",
+            "org.firstinspires.ftc.teamcode.opmode.auto.",
+            "org.firstinspires.ftc.teamcode."
+    };
+
+    private static final Map<String, Map<String, Plan>> cache = new HashMap<>();
+
+    private final MecanumDrive drive;
+    private final Map<String, CommandFactory> commands;
+
+    public RoutineCompiler(MecanumDrive drive, Map<String, CommandFactory> commands) {
+        this.drive = drive;
+        this.commands = commands;
+    }
+
+    public static Pose2d toPose(Routine.Pose pose) {
+        return new Pose2d(pose.x, pose.y, Math.toRadians(pose.heading));
+    }
+
+    public RoutineCommand compile(Routine routine) {
+        Map<String, Plan> plans = plan(routine);
+        List<Routine.Step> steps = routine.steps;
+        int n = steps.size();
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (ids.put(steps.get(i).id, i) != null) throw new IllegalArgumentException("Duplicate step id " + steps.get(i).id);
+        }
+
+        Command[] built = new Command[n];
+        int[][] dependencies = new int[n][];
+        long[] delays = new long[n];
+        int stageStart = 0, previousStageStart = 0;
+        for (int i = 0; i < n; i++) {
+            Routine.Step step = steps.get(i);
+            if (!step.with) {
+                previousStageStart = stageStart;
+                stageStart = i;
+            }
+            if (step.after != null) {
+                dependencies[i] = new int[step.after.size()];
+                for (int k = 0; k < step.after.size(); k++) {
+                    Integer index = ids.get(step.after.get(k));
+                    if (index == null) throw new IllegalArgumentException("Step " + step.id + " waits for unknown step " + step.after.get(k));
+                    dependencies[i][k] = index;
+                }
+            } else if (stageStart == 0) {
+                dependencies[i] = new int[0];
+            } else {
+                dependencies[i] = range(previousStageStart, stageStart);
+            }
+            delays[i] = step.delayMs;
+            built[i] = build(step, plans);
+        }
+        return new RoutineCommand(built, dependencies, delays);
+    }
+
+    private static int[] range(int from, int to) {
+        int[] indices = new int[to - from];
+        for (int i = 0; i < indices.length; i++) indices[i] = from + i;
+        return indices;
+    }
+
+    private Command build(Routine.Step step, Map<String, Plan> plans) {
+        if (step.command.equals("drive")) {
+            Plan plan = step.args.isEmpty() ? null : plans.get(step.args.get(0));
+            if (plan == null) throw new IllegalArgumentException("Step " + step.id + " drives an unknown path");
+            return new ActionCommand(plan.toAction(drive));
+        }
+        CommandFactory factory = commands.get(step.command);
+        if (factory == null) throw new IllegalArgumentException("Unknown command " + step.command + " in step " + step.id);
+        double[] args = new double[step.args.size()];
+        for (int i = 0; i < args.length; i++) args[i] = resolve(step.args.get(i));
+        return factory.create(args);
+    }
+
+    private Map<String, Plan> plan(Routine routine) {
+        String key = routine.source + "|" + constants(routine) + "|" + TrajectoryCache.signature();
+        Map<String, Plan> plans = cache.get(key);
+        if (plans != null) return plans;
+
+        plans = new HashMap<>();
+        Pose2d pose = toPose(routine.start);
+        for (Routine.Path path : routine.paths) {
+            if (path.from != null) pose = toPose(path.from);
+            TrajectoryActionBuilder builder = drive.actionBuilder(pose);
+            for (Routine.Segment segment : path.segments) builder = append(builder, segment);
+            Plan plan = Plan.of(builder.build());
+            pose = plan.endPose(pose);
+            plans.put(path.name, plan);
+        }
+        cache.put(key, plans);
+        return plans;
+    }
+
+    /**
+     * The current values of every constant the paths use, since they can be changed from the dashboard.
+     */
+    private static String constants(Routine routine) {
+        StringBuilder values = new StringBuilder();
+        for (Routine.Path path : routine.paths) {
+            for (Routine.Segment segment : path.segments) {
+                Iterator<String> keys = segment.values.keys();
+                while (keys.hasNext()) {
+                    String name = keys.next();
+                    Object value = segment.values.opt(name);
+                    if (!name.equals("type") && value instanceof String) values.append(resolve(value)).append(',');
+                }
+            }
+        }
+        return values.toString();
+    }
+
+    private static TrajectoryActionBuilder append(TrajectoryActionBuilder builder, Routine.Segment segment) {
+        JSONObject v = segment.values;
+        VelConstraint vel = v.has("maxVel") ? new TranslationalVelConstraint(resolve(v.opt("maxVel"))) : null;
+        AccelConstraint accel = v.has("maxAccel")
+                ? new ProfileAccelConstraint(v.has("minAccel") ? resolve(v.opt("minAccel")) : -resolve(v.opt("maxAccel")), resolve(v.opt("maxAccel")))
+                : null;
+        switch (segment.type) {
+            case "strafeTo":
+                return builder.strafeTo(vector(v), vel, accel);
+            case "strafeToConstantHeading":
+                return builder.strafeToConstantHeading(vector(v), vel, accel);
+            case "strafeToLinearHeading":
+                return builder.strafeToLinearHeading(vector(v), angle(v, "heading"), vel, accel);
+            case "strafeToSplineHeading":
+                return builder.strafeToSplineHeading(vector(v), angle(v, "heading"), vel, accel);
+            case "splineTo":
+                return builder.splineTo(vector(v), angle(v, "tangent"), vel, accel);
+            case "splineToConstantHeading":
+                return builder.splineToConstantHeading(vector(v), angle(v, "tangent"), vel, accel);
+            case "splineToLinearHeading":
+                return builder.splineToLinearHeading(new Pose2d(vector(v), angle(v, "heading")), angle(v, "tangent"), vel, accel);
+            case "splineToSplineHeading":
+                return builder.splineToSplineHeading(new Pose2d(vector(v), angle(v, "heading")), angle(v, "tangent"), vel, accel);
+            case "setTangent":
+                return builder.setTangent(angle(v, "tangent"));
+            case "setReversed":
+                return builder.setReversed(v.optBoolean("reversed", true));
+            case "turnTo":
+                return builder.turnTo(angle(v, "heading"));
+            case "wait":
+                return builder.waitSeconds(resolve(v.opt("seconds")));
+            default:
+                throw new IllegalArgumentException("Unknown segment type " + segment.type);
+        }
+    }
+
+    private static Vector2d vector(JSONObject v) {
+        return new Vector2d(resolve(v.opt("x")), resolve(v.opt("y")));
+    }
+
+    private static double angle(JSONObject v, String name) {
+        return Math.toRadians(resolve(v.opt(name)));
+    }
+
+    /**
+     * Reads a number, a constant like "LiftSys.HIGH_BUCKET", or a sum of those like "IntakeV4bSys.POS_DOWN - 0.03".
+     */
+    public static double resolve(Object value) {
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        if (value == null) throw new IllegalArgumentException("Missing value");
+        String[] tokens = value.toString().trim().split("\\s+");
+        double total = term(tokens[0]);
+        for (int i = 1; i + 1 < tokens.length; i += 2) {
+            double term = term(tokens[i + 1]);
+            if (tokens[i].equals("+")) total += term;
+            else if (tokens[i].equals("-")) total -= term;
+            else throw new IllegalArgumentException("Can't read " + value);
+        }
+        return total;
+    }
+
+    private static double term(String token) {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException ignored) {
+            // A constant instead.
+        }
+        int dot = token.lastIndexOf('.');
+        if (dot > 0) {
+            String className = token.substring(0, dot), field = token.substring(dot + 1);
+            for (String pkg : CONSTANT_PACKAGES) {
+                try {
+                    return ((Number) Class.forName(pkg + className).getField(field).get(null)).doubleValue();
+                } catch (ReflectiveOperationException | ClassCastException ignored) {
+                    // Try the next package.
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown value " + token);
+    }
+}
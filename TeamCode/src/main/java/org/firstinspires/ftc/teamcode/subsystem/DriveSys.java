@@ -1,8 +1,6 @@
 package org.firstinspires.ftc.teamcode.subsystem;
 
 import com.acmerobotics.dashboard.config.Config;
-import com.acmerobotics.roadrunner.PoseVelocity2d;
-import com.acmerobotics.roadrunner.Vector2d;
 import com.arcrobotics.ftclib.command.Command;
 import com.arcrobotics.ftclib.command.InstantCommand;
 import com.arcrobotics.ftclib.command.RunCommand;
@@ -10,8 +8,14 @@ import com.arcrobotics.ftclib.command.SubsystemBase;
 import com.arcrobotics.ftclib.drivebase.MecanumDrive;
 import com.arcrobotics.ftclib.hardware.motors.MotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.teamcode.Robot;
 import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
+import org.firstinspires.ftc.teamcode.util.shaping.Deadband;
+import org.firstinspires.ftc.teamcode.util.shaping.Expo;
+import org.firstinspires.ftc.teamcode.util.shaping.InputPipeline;
+import org.firstinspires.ftc.teamcode.util.shaping.Scale;
+import org.firstinspires.ftc.teamcode.util.shaping.SlewLimiter;
 import xyz.devmello.voyager.geometry.PointXYZ;
 
 import java.util.function.DoubleSupplier;
@@ -24,8 +28,53 @@ public class DriveSys extends SubsystemBase {
     public static double slow = 1;
     public static double slowT = 0.7;
 
+    public static boolean FIELD_CENTRIC = false;
+    /** Heading the robot faces when the driver pushes the stick forward, in field centric mode. Degrees. */
+    public static double FIELD_FORWARD = 90;
+    public static boolean HEADING_HOLD = false;
+    public static double HOLD_P = 1.5;
+    public static double HOLD_D = 0.1;
+    public static double TURN_DEADBAND = 0.05;
+    /** The held heading is only taken once the robot has stopped turning, rad/s. */
+    public static double HOLD_CAPTURE_RATE = 0.3;
+
+    public static double DEADBAND = 0.05;
+    /** 0 is linear, 1 is cubic. */
+    public static double EXPO = 0.3;
+    public static double TURN_EXPO = 0.3;
+    /** Speed scales while the extendo is out, in place of slow and slowT. */
+    public static double EXTENDED_SLOW = 0.5;
+    public static double EXTENDED_SLOW_T = 0.5;
+    /** Slew limits in full stick per second. */
+    public static double ACCEL = 4;
+    public static double DECEL = 6;
+    public static double TURN_ACCEL = 6;
+    public static double TURN_DECEL = 8;
+    public static double EXTENDED_ACCEL_SCALE = 0.6;
+    /** Slew limit scale with the lift at HIGH_BUCKET, going linearly from 1 with the lift down. */
+    public static double LIFT_ACCEL_SCALE = 0.4;
+
+    private final InputPipeline forwardShaping = new InputPipeline(
+            new Deadband(() -> DEADBAND), new Expo(() -> EXPO), new Scale(this::speedScale),
+            new SlewLimiter(() -> ACCEL * accelScale(), () -> DECEL * accelScale()));
+    private final InputPipeline leftShaping = new InputPipeline(
+            new Deadband(() -> DEADBAND), new Expo(() -> EXPO), new Scale(this::speedScale),
+            new SlewLimiter(() -> ACCEL * accelScale(), () -> DECEL * accelScale()));
+    private final InputPipeline turnShaping = new InputPipeline(
+            new Deadband(() -> DEADBAND), new Expo(() -> TURN_EXPO), new Scale(this::turnScale),
+            new SlewLimiter(() -> TURN_ACCEL * accelScale(), () -> TURN_DECEL * accelScale()));
+    private DoubleSupplier liftHeight = () -> 0;
+    private long lastNanos = 0;
+
+    private boolean holding = false;
+    private double heldHeading;
+
     public DriveSys(HardwareMap hardwareMap) {
-        drive = new PinpointDrive(hardwareMap, Robot.startPose);
+        this(new PinpointDrive(hardwareMap, Robot.startPose));
+    }
+
+    public DriveSys(PinpointDrive drive) {
+        this.drive = drive;
         drive.setCoast();
     }
 
@@ -33,18 +82,74 @@ public class DriveSys extends SubsystemBase {
         return new RunCommand(
                 ()-> {
                     if (!AUTOMATION) {
-                        drive.setDrivePowers(new PoseVelocity2d(
-                                new Vector2d(
-                                        f.getAsDouble() * slow,
-                                        -s.getAsDouble()* slow
-                                ),
-                                -t.getAsDouble() * slow * slowT
-                        ));
+                        long now = System.nanoTime();
+                        double dt = lastNanos == 0 ? 0 : (now - lastNanos) / 1e9;
+                        lastNanos = now;
+                        drive(forwardShaping.apply(f.getAsDouble(), dt), leftShaping.apply(-s.getAsDouble(), dt),
+                                turnShaping.apply(-t.getAsDouble(), dt));
+                    } else {
+                        holding = false;
+                        lastNanos = 0;
+                        forwardShaping.reset(0);
+                        leftShaping.reset(0);
+                        turnShaping.reset(0);
                     }
                 },this
        //         () -> drive.driveRobotCentric(-1 * s.getAsDouble() * slow, -1 * f.getAsDouble() * slow, -1 * t.getAsDouble() * slowT * slow),this
         );
     }
+
+    /**
+     * Lets the slew limits follow the lift, which raises the center of mass.
+     */
+    public void setLiftHeight(DoubleSupplier liftHeight) {
+        this.liftHeight = liftHeight;
+    }
+
+    private double speedScale() {
+        return ExtendoSys.state == ExtendoSys.State.EXTENDED ? EXTENDED_SLOW : slow;
+    }
+
+    private double turnScale() {
+        return ExtendoSys.state == ExtendoSys.State.EXTENDED ? EXTENDED_SLOW * EXTENDED_SLOW_T : slow * slowT;
+    }
+
+    private double accelScale() {
+        double lift = Math.max(0, Math.min(1, liftHeight.getAsDouble() / LiftSys.HIGH_BUCKET));
+        double scale = 1 + (LIFT_ACCEL_SCALE - 1) * lift;
+        return ExtendoSys.state == ExtendoSys.State.EXTENDED ? scale * EXTENDED_ACCEL_SCALE : scale;
+    }
+
+    private void drive(double forward, double left, double turn) {
+        double heading = drive.estimator.getSnapshot().heading;
+        if (FIELD_CENTRIC) {
+            // Stick input is relative to the driver, rotate it into the robot frame.
+            double angle = Math.toRadians(FIELD_FORWARD) - heading;
+            double cos = Math.cos(angle), sin = Math.sin(angle);
+            double x = forward * cos - left * sin;
+            left = forward * sin + left * cos;
+            forward = x;
+        }
+        if (HEADING_HOLD) turn = holdHeading(turn, heading);
+        drive.setDrivePowers(forward, left, turn);
+    }
+
+    /**
+     * Keeps the heading the robot settled at while the driver isn't turning, so strafing doesn't slowly rotate it.
+     */
+    private double holdHeading(double turn, double heading) {
+        double rate = drive.estimator.getSnapshot().omega;
+        if (Math.abs(turn) > TURN_DEADBAND) {
+            holding = false;
+            return turn;
+        }
+        if (!holding) {
+            if (Math.abs(rate) > HOLD_CAPTURE_RATE) return 0;
+            holding = true;
+            heldHeading = heading;
+        }
+        return HOLD_P * AngleUnit.normalizeRadians(heldHeading - heading) - HOLD_D * rate;
+    }
 //
 //    public Command drive(DoubleSupplier s, DoubleSupplier f, DoubleSupplier t) {
 //        return drive(s,f,t,1);
@@ -3,17 +3,19 @@ package org.firstinspires.ftc.teamcode.subsystem;
 import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.roadrunner.ftc.GoBildaPinpointDriverRR;
 import com.arcrobotics.ftclib.command.Command;
-import com.arcrobotics.ftclib.command.InstantCommand;
 import com.arcrobotics.ftclib.command.SubsystemBase;
-import com.arcrobotics.ftclib.hardware.SimpleServo;
+import org.firstinspires.ftc.teamcode.util.ServoMoveCommand;
+import org.firstinspires.ftc.teamcode.util.TimedServo;
 
 @Config
 public class ExtendoSys extends SubsystemBase {
-    private final SimpleServo extendoL, extendoR;
+    private final TimedServo extendoL, extendoR;
     public static double EXTENDO_HOME = 0.15;
     public static double EXTENDO_MAX = 0.43;
     public static double EXTENDO_MIDDLE = 0.23;
     public static double EXTENDO_POP = 0.2;
+    /** Servo speed in deg/s, from the Servo Travel Tuner. */
+    public static double SPEED = 300;
 
     private double targetPos = 0.0;
 
@@ -23,7 +25,7 @@ public class ExtendoSys extends SubsystemBase {
     }
     public static State state = State.RETRACTED;
 
-    public ExtendoSys(SimpleServo extendoL, SimpleServo extendoR) {
+    public ExtendoSys(TimedServo extendoL, TimedServo extendoR) {
         this.extendoL = extendoL;
         this.extendoR = extendoR;
         this.extendoL.setPosition(EXTENDO_HOME);
@@ -31,12 +33,11 @@ public class ExtendoSys extends SubsystemBase {
     }
 
     public Command goTo(double targetPos) {
-        return new InstantCommand(() -> {
+        return new ServoMoveCommand(() -> {
             this.targetPos = targetPos;
-            if (targetPos == EXTENDO_HOME) {state = State.RETRACTED; DriveSys.slow = 1; DriveSys.slowT = 0.7;}
-            else {state = State.EXTENDED;DriveSys.slow = 0.5; DriveSys.slowT = 0.5;}
+            state = targetPos == EXTENDO_HOME ? State.RETRACTED : State.EXTENDED;
             extendoL.setPosition(targetPos);
             extendoR.setPosition(targetPos);
-        });
+        }, extendoL, extendoR);
     }
 }
\ No newline at end of file
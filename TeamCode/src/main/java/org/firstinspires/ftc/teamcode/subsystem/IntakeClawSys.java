@@ -5,9 +5,9 @@ import com.acmerobotics.dashboard.config.Config;
 import com.arcrobotics.ftclib.command.Command;
 import com.arcrobotics.ftclib.command.InstantCommand;
 import com.arcrobotics.ftclib.command.SubsystemBase;
-import com.arcrobotics.ftclib.command.WaitCommand;
-import com.arcrobotics.ftclib.hardware.SimpleServo;
 import org.firstinspires.ftc.teamcode.opencv.SampleTrackPipeline;
+import org.firstinspires.ftc.teamcode.util.ServoMoveCommand;
+import org.firstinspires.ftc.teamcode.util.TimedServo;
 import org.firstinspires.ftc.teamcode.util.math.Precision;
 
 import java.util.function.DoubleSupplier;
@@ -23,10 +23,14 @@ public class IntakeClawSys extends SubsystemBase {
     public static double YAW_LEFT = 0;
     public static double YAW_RIGHT = 1;
 
+    /** Servo speeds in deg/s, from the Servo Travel Tuner. */
+    public static double CLAW_SPEED = 600;
+    public static double YAW_SPEED = 600;
+
     public static boolean TRACK = false;
 
-    private final SimpleServo claw;
-    private final SimpleServo yaw;
+    private final TimedServo claw;
+    private final TimedServo yaw;
 
     private SampleTrackPipeline pipeline;
 
@@ -36,7 +40,7 @@ public class IntakeClawSys extends SubsystemBase {
 
     private double lastPos = 0;
 
-    public IntakeClawSys(SimpleServo claw, SimpleServo yaw, DoubleSupplier LTrigger, DoubleSupplier RTrigger) {
+    public IntakeClawSys(TimedServo claw, TimedServo yaw, DoubleSupplier LTrigger, DoubleSupplier RTrigger) {
         this.claw = claw;
         this.yaw = yaw;
         claw.setPosition(PINCH);
@@ -45,24 +49,23 @@ public class IntakeClawSys extends SubsystemBase {
         this.RTrigger = RTrigger;
     }
 
-    public Command pinch() {return new InstantCommand(() -> claw.setPosition(PINCH));}
-    public Command superPinch() {return new InstantCommand(() -> claw.setPosition(SUPER_PINCH));}
-    public Command release() {return new InstantCommand(() -> claw.setPosition(MID));}
-    public Command rotateYaw(double yawVal) {return new InstantCommand(() -> yaw.setPosition(yawVal));}
+    public Command pinch() {return new ServoMoveCommand(() -> claw.setPosition(PINCH), claw);}
+    public Command superPinch() {return new ServoMoveCommand(() -> claw.setPosition(SUPER_PINCH), claw);}
+    public Command release() {return new ServoMoveCommand(() -> claw.setPosition(MID), claw);}
+    public Command rotateYaw(double yawVal) {return new ServoMoveCommand(() -> yaw.setPosition(yawVal), yaw);}
 
     public Command dropoff() {
-        return new InstantCommand(()-> {
-            claw.setPosition(PINCH);
-
-        }).andThen(new WaitCommand(75)).andThen(new InstantCommand(()-> {
-            yaw.setPosition(YAW_MID);
-        }));
+        return pinch().andThen(rotateYaw(YAW_MID));
     }
     public Command intake() {
-        return new InstantCommand(() -> {
+        return new ServoMoveCommand(() -> {
             claw.setPosition(PINCH);
             yaw.setPosition(YAW_MID);
-        });
+        }, claw, yaw);
+    }
+
+    public double getYawPosition() {
+        return yaw.getPosition();
     }
 
     public Command enableTracking() {
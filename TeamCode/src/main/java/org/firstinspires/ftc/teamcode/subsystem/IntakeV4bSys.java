@@ -2,13 +2,14 @@ package org.firstinspires.ftc.teamcode.subsystem;
 
 import com.acmerobotics.dashboard.config.Config;
 import com.arcrobotics.ftclib.command.Command;
-import com.arcrobotics.ftclib.command.InstantCommand;
 import com.arcrobotics.ftclib.command.ParallelCommandGroup;
 import com.arcrobotics.ftclib.command.SubsystemBase;
-import com.arcrobotics.ftclib.hardware.SimpleServo;
+import org.firstinspires.ftc.teamcode.util.ServoMoveCommand;
+import org.firstinspires.ftc.teamcode.util.TimedServo;
+
 @Config
 public class IntakeV4bSys extends SubsystemBase {
-    private final SimpleServo pr, pitch;
+    private final TimedServo pr, pitch;
 
     public static double POS_MID = 0.51;
     public static double POS_DOWN = 0.44;
@@ -25,6 +26,10 @@ public class IntakeV4bSys extends SubsystemBase {
 
     public static double ROLL_IN_SPECIMEN = 0.3;
 
+    /** Servo speeds in deg/s, from the Servo Travel Tuner. */
+    public static double POS_SPEED = 300;
+    public static double ROLL_SPEED = 400;
+
     public enum State{
         MID,
         DOWN,
@@ -33,15 +38,15 @@ public class IntakeV4bSys extends SubsystemBase {
     }
     public static State state = State.IN;
 
-    public IntakeV4bSys(SimpleServo pr, SimpleServo pitch) {
+    public IntakeV4bSys(TimedServo pr, TimedServo pitch) {
         this.pr = pr;
         this.pitch = pitch;
         pr.setPosition(POS_IN);
         pitch.setPosition(ROLL_IN);
     }
 
-    public Command goToPos(double pos) {return new InstantCommand(() -> pr.setPosition(pos));}
-    public Command goToRoll(double pos) {return new InstantCommand(() -> pitch.setPosition(pos));}
+    public Command goToPos(double pos) {return new ServoMoveCommand(() -> pr.setPosition(pos), pr);}
+    public Command goToRoll(double pos) {return new ServoMoveCommand(() -> pitch.setPosition(pos), pitch);}
 
     public Command dropOff() {return new ParallelCommandGroup(goToPos(POS_IN), goToRoll(ROLL_IN));}
     public Command intake() {return new ParallelCommandGroup(goToRoll(ROLL_MID),goToPos(POS_MID));}
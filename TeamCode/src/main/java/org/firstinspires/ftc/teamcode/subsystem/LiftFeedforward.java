@@ -0,0 +1,60 @@
+package org.firstinspires.ftc.teamcode.subsystem;
+
+import com.acmerobotics.dashboard.config.Config;
+import org.firstinspires.ftc.teamcode.util.BatteryVoltage;
+import org.firstinspires.ftc.teamcode.util.ProfiledPIDFController;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Lift dynamics in volts: gravity for whichever stage is carrying the load, Coulomb friction, back-EMF
+ * (kV) and inertia (kA). The result is divided by the battery voltage to give a motor power, so the lift
+ * behaves the same on a fresh and a tired battery. Fit the constants with LiftFeedforwardTuner.
+ */
+@Config
+public class LiftFeedforward implements ProfiledPIDFController.Feedforward {
+    /** Volts to hold each stage against gravity. */
+    public static double kG1 = 0.384;
+    public static double kG2 = 0.384;
+    public static double kG3 = 0.384;
+    /** Encoder ticks at which the second and third stages start to lift. */
+    public static double STAGE_2_START = 700;
+    public static double STAGE_3_START = 1400;
+    /** Volts. */
+    public static double kS = 0;
+    /** Volts per tick/s. */
+    public static double kV = 0;
+    /** Volts per tick/s^2. */
+    public static double kA = 0;
+
+    private final DoubleSupplier voltage;
+
+    public LiftFeedforward(DoubleSupplier voltage) {
+        this.voltage = voltage;
+    }
+
+    public static double gravity(double position) {
+        if (position >= STAGE_3_START) return kG3;
+        if (position >= STAGE_2_START) return kG2;
+        return kG1;
+    }
+
+    public static int stage(double position) {
+        if (position >= STAGE_3_START) return 2;
+        if (position >= STAGE_2_START) return 1;
+        return 0;
+    }
+
+    /**
+     * @return the voltage the model needs to follow the given state
+     */
+    public static double volts(double position, double velocity, double acceleration) {
+        return gravity(position) + kS * Math.signum(velocity) + kV * velocity + kA * acceleration;
+    }
+
+    @Override
+    public double calculate(double position, double velocity, double acceleration) {
+        double battery = voltage.getAsDouble();
+        return volts(position, velocity, acceleration) / (battery > 0 ? battery : BatteryVoltage.NOMINAL);
+    }
+}
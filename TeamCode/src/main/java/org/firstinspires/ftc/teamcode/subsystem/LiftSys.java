@@ -5,14 +5,16 @@ import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
 import com.arcrobotics.ftclib.command.*;
 import com.arcrobotics.ftclib.controller.PIDController;
-import com.arcrobotics.ftclib.controller.wpilibcontroller.ProfiledPIDController;
 import com.arcrobotics.ftclib.hardware.motors.Motor;
 import com.arcrobotics.ftclib.hardware.motors.MotorEx;
-import com.arcrobotics.ftclib.trajectory.TrapezoidProfile;
 import com.qualcomm.robotcore.hardware.TouchSensor;
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+import org.firstinspires.ftc.teamcode.util.AsymmetricMotionProfile;
+import org.firstinspires.ftc.teamcode.util.BatteryVoltage;
+import org.firstinspires.ftc.teamcode.util.EstimatedCommand;
 import org.firstinspires.ftc.teamcode.util.ProfiledPIDFController;
+import org.firstinspires.ftc.teamcode.util.SettleDetector;
 
 import java.util.function.DoubleSupplier;
 @Config
@@ -32,35 +34,84 @@ public class LiftSys extends SubsystemBase {
     public static double kP = 0.009;
     public static double kI = 0.0000;
     public static double kD = 0.00000;
-    public static double kG = 0.032;
+    /**
+     * Ticks/s. High enough that the profile doesn't hold the lift back while LiftFeedforward has no kV or kA;
+     * once those are fitted, bring it down to a little under the ~2800 free speed of the lift motors.
+     */
     public static double MAX_VEL = 10000;
     public static double MAX_ACCEL = 10000;
 
+    /** Use separate up and down profiles, so the lift can drop faster than it can climb. */
+    public static boolean ASYMMETRIC = false;
+    public static double UP_MAX_VEL = 2500;
+    public static double UP_ACCEL = 6000;
+    public static double UP_DECEL = 9000;
+    public static double DOWN_MAX_VEL = 3500;
+    public static double DOWN_ACCEL = 9000;
+    public static double DOWN_DECEL = 5000;
+
     //private final PIDController controller = new PIDController(kP,kI,kD);
-    private final ProfiledPIDController controller = new ProfiledPIDController(kP, kI, kD, new TrapezoidProfile.Constraints(MAX_VEL, MAX_ACCEL));
+    private final ProfiledPIDFController controller = new ProfiledPIDFController(kP, kI, kD, MAX_VEL, MAX_ACCEL);
+    private final AsymmetricMotionProfile profile = new AsymmetricMotionProfile(UP_MAX_VEL, UP_ACCEL, UP_DECEL);
 
     public static int threshold = 30;
+    /** Ticks/s the lift has to be below, for SETTLE_DWELL_MS, before a move counts as done. */
+    public static double SETTLE_VELOCITY = 120;
+    public static double SETTLE_DWELL_MS = 50;
+    public static double SETTLE_TIMEOUT_MS = 2500;
+    /** How far off the lift may still be when a goTo with lead time hands over early. */
+    public static int LEAD_TOLERANCE = 150;
+    public static double LEAD_MS = 150;
+    private final SettleDetector settle = new SettleDetector(threshold, SETTLE_VELOCITY, SETTLE_DWELL_MS, SETTLE_TIMEOUT_MS);
     public static double slowFactor = 1.5;
     private final DoubleSupplier doubleSupplier;
     private int currentTarget = 0;
+    private int position = 0;
+    /** Added to the encoder until the touch sensor zeroes it, for a position restored from a saved state. */
+    private int offset = 0;
     private boolean hang = false;
 
     public LiftSys(MotorEx top, MotorEx bottem, DoubleSupplier doubleSupplier, TouchSensor touch) {
+        this(top, bottem, doubleSupplier, touch, () -> BatteryVoltage.NOMINAL);
+    }
+
+    public LiftSys(MotorEx top, MotorEx bottem, DoubleSupplier doubleSupplier, TouchSensor touch, DoubleSupplier voltage) {
         this.top = top;
         this.bottem = bottem;
         this.touch = touch;
         encoder = bottem.encoder;
         encoder.reset();
         this.doubleSupplier = doubleSupplier;
+        controller.setFeedforward(new LiftFeedforward(voltage));
         top.motorEx.setCurrentAlert(7, CurrentUnit.AMPS);
         bottem.motorEx.setCurrentAlert(7, CurrentUnit.AMPS);
     }
 
-    public Command goTo(int target) {
-        return setTarget(target).andThen(new WaitUntilCommand(this::atTarget));
+    public EstimatedCommand goTo(int target) {
+        return new EstimatedCommand(setTarget(target).andThen(new WaitUntilCommand(this::atTarget)), this::getTimeRemaining);
+    }
+
+    /**
+     * Like {@link #goTo(int)}, but finishes once the profile has less than leadMs to go, so the next command
+     * can start while the lift is still arriving.
+     */
+    public Command goTo(int target, double leadMs) {
+        return setTarget(target).andThen(new WaitUntilCommand(() -> isWithin(leadMs)));
     }
 
-    public Command setTarget(int target) {return new InstantCommand(() -> {currentTarget = target;controller.setGoal(target);});}
+    public Command setTarget(int target) {return new InstantCommand(() -> {currentTarget = target;controller.setGoal(target);replan(target);startSettle();});}
+
+    private void startSettle() {
+        settle.setTolerances(threshold, SETTLE_VELOCITY, SETTLE_DWELL_MS, SETTLE_TIMEOUT_MS);
+        settle.start();
+    }
+
+    private void replan(int target) {
+        profile.update();
+        if (target >= profile.getPosition()) profile.setConstraints(UP_MAX_VEL, UP_ACCEL, UP_DECEL);
+        else profile.setConstraints(DOWN_MAX_VEL, DOWN_ACCEL, DOWN_DECEL);
+        profile.replan(target);
+    }
 
     public Command vibrate(int durationMillis, double power) {
         return new CommandBase() {
@@ -107,9 +158,47 @@ public class LiftSys extends SubsystemBase {
         };
     }
 
-    public boolean atTarget() {return Math.abs(encoder.getPosition() - currentTarget) < threshold;}
+    /**
+     * @return whether the lift has settled at the target, or timed out trying
+     */
+    public boolean atTarget() {return settle.isDone();}
+
+    /**
+     * @return seconds the motion profile still needs to reach the target
+     */
+    public double getTimeToTarget() {
+        return ASYMMETRIC ? profile.getTimeToMotionEnd() : controller.getTimeToGoal();
+    }
+
+    /**
+     * @return seconds until the lift arrives, or infinity while it is still too far off to trust the profile
+     */
+    public double getTimeRemaining() {
+        if (settle.isDone()) return 0;
+        return Math.abs(position - currentTarget) < LEAD_TOLERANCE ? getTimeToTarget() : Double.POSITIVE_INFINITY;
+    }
+
+    public boolean isWithin(double ms) {
+        return settle.isDone() || (getTimeToTarget() * 1000 <= ms && Math.abs(position - currentTarget) < LEAD_TOLERANCE);
+    }
 
-    public int getPosition() {return encoder.getPosition();}
+    public int getPosition() {return encoder.getPosition() + offset;}
+
+    /**
+     * Takes the lift as being at ticks and holds it there, instead of homing it. If the touch sensor is pressed the
+     * lift is already home and ticks is ignored. Otherwise ticks is clamped to NONE..HIGH_BUCKET, so a bad record
+     * can't have the lift drive past its ends; the touch sensor still zeroes it the next time the lift comes down.
+     */
+    public void restorePosition(int ticks) {
+        if (touch.isPressed()) return;
+        ticks = Math.max(NONE, Math.min(HIGH_BUCKET, ticks));
+        offset = ticks - encoder.getPosition();
+        position = ticks;
+        currentTarget = ticks;
+        controller.reset(ticks);
+        controller.setGoal(ticks);
+        profile.setMotion(ticks, ticks, 0);
+    }
 
     public int getCurrentTarget() {
         return currentTarget;
@@ -117,16 +206,28 @@ public class LiftSys extends SubsystemBase {
 
     @Override
     public void periodic() {
-        if (!(top.motorEx.isOverCurrent() && bottem.motorEx.isOverCurrent()) && !hang) {
-            if (touch.isPressed()) {
-                encoder.reset();
-            }
+        boolean enabled = !(top.motorEx.isOverCurrent() && bottem.motorEx.isOverCurrent()) && !hang;
+        if (enabled && touch.isPressed()) {
+            encoder.reset();
+            offset = 0;
+        }
+        position = getPosition();
+        settle.update(currentTarget - position, encoder.getCorrectedVelocity());
+        if (enabled) {
             if (doubleSupplier.getAsDouble() != 0) {
                 top.set(doubleSupplier.getAsDouble()/slowFactor);
                 bottem.set(doubleSupplier.getAsDouble()/slowFactor);
-                controller.setGoal(encoder.getPosition());
+                controller.reset(position);
+                profile.setMotion(position, position, 0);
             } else {
-                double output = controller.calculate(encoder.getPosition()) + kG;
+                double output;
+                if (ASYMMETRIC) {
+                    profile.update();
+                    output = controller.calculate(position, profile.getPosition(),
+                            profile.getSignedVelocity(), profile.getSignedAcceleration());
+                } else {
+                    output = controller.calculate(position);
+                }
                 top.set(output);
                 bottem.set(output);
             }
@@ -2,9 +2,10 @@ package org.firstinspires.ftc.teamcode.subsystem;
 
 import com.acmerobotics.dashboard.config.Config;
 import com.arcrobotics.ftclib.command.Command;
-import com.arcrobotics.ftclib.command.InstantCommand;
 import com.arcrobotics.ftclib.command.SubsystemBase;
-import com.arcrobotics.ftclib.hardware.SimpleServo;
+import org.firstinspires.ftc.teamcode.util.ServoMoveCommand;
+import org.firstinspires.ftc.teamcode.util.TimedServo;
+
 @Config
 public class OuttakeClawSys extends SubsystemBase {
 
@@ -13,29 +14,31 @@ public class OuttakeClawSys extends SubsystemBase {
     public static double SUPER_GRAB=0.8;
     public static double RELEASE = 0.45;
     public static double SUPER_RELEASE = 0.45;
-    private final SimpleServo claw;
+    /** Servo speed in deg/s, from the Servo Travel Tuner. */
+    public static double CLAW_SPEED = 400;
+    private final TimedServo claw;
 
 
-    public OuttakeClawSys(SimpleServo claw) {
+    public OuttakeClawSys(TimedServo claw) {
         this.claw = claw;
     }
 
     public Command grab() {
-        return new InstantCommand(() -> claw.setPosition(GRAB), this);
+        return new ServoMoveCommand(() -> claw.setPosition(GRAB), this, claw);
     }
 
-    public Command superGrab() {return new InstantCommand(()-> claw.setPosition(SUPER_GRAB), this);}
+    public Command superGrab() {return new ServoMoveCommand(() -> claw.setPosition(SUPER_GRAB), this, claw);}
 
     public Command release() {
-        return new InstantCommand(() -> claw.setPosition(RELEASE), this);
+        return new ServoMoveCommand(() -> claw.setPosition(RELEASE), this, claw);
     }
 
     public Command superRelease() {
-        return new InstantCommand(() -> claw.setPosition(SUPER_RELEASE), this);
+        return new ServoMoveCommand(() -> claw.setPosition(SUPER_RELEASE), this, claw);
     }
 
     public Command grabSpecimen() {
-        return new InstantCommand(() -> claw.setPosition(SPECIMAN_GRAB), this);
+        return new ServoMoveCommand(() -> claw.setPosition(SPECIMAN_GRAB), this, claw);
     }
 }
 
@@ -2,9 +2,10 @@ package org.firstinspires.ftc.teamcode.subsystem;
 
 import com.acmerobotics.dashboard.config.Config;
 import com.arcrobotics.ftclib.command.Command;
-import com.arcrobotics.ftclib.command.InstantCommand;
 import com.arcrobotics.ftclib.command.SubsystemBase;
-import com.arcrobotics.ftclib.hardware.SimpleServo;
+import org.firstinspires.ftc.teamcode.util.ServoMoveCommand;
+import org.firstinspires.ftc.teamcode.util.TimedServo;
+
 @Config
 public class OuttakeV4BSys extends SubsystemBase {
 
@@ -21,8 +22,12 @@ public class OuttakeV4BSys extends SubsystemBase {
     public static double ARM_TOUCH = 0.35;
     public static double PITCH_TOUCH = 0.6;
 
-    SimpleServo pitch, arm;
-    public OuttakeV4BSys(SimpleServo pitch, SimpleServo arm) {
+    /** Servo speeds in deg/s, from the Servo Travel Tuner. */
+    public static double ARM_SPEED = 400;
+    public static double PITCH_SPEED = 700;
+
+    TimedServo pitch, arm;
+    public OuttakeV4BSys(TimedServo pitch, TimedServo arm) {
         this.pitch = pitch;
         this.arm = arm;
         this.pitch.setPosition(0.4);
@@ -30,11 +35,11 @@ public class OuttakeV4BSys extends SubsystemBase {
     }
 
     public Command setArm(double position) {
-        return new InstantCommand(() -> arm.setPosition(position), this);
+        return new ServoMoveCommand(() -> arm.setPosition(position), this, arm);
     }
 
     public Command setPitch(double position) {
-        return new InstantCommand(() -> pitch.setPosition(position), this);
+        return new ServoMoveCommand(() -> pitch.setPosition(position), this, pitch);
     }
 
     public void move(double pos,double rot) {
@@ -42,31 +47,31 @@ public class OuttakeV4BSys extends SubsystemBase {
         pitch.setPosition(rot);
     }
 
+    public Command moveTo(double pos, double rot) {
+        return new ServoMoveCommand(() -> move(pos, rot), this, arm, pitch);
+    }
+
     public Command mid() {
-        return new InstantCommand(()->{
-            move(ARM_MID, PITCH_MID);
-        }, this);
+        return moveTo(ARM_MID, PITCH_MID);
     }
 
     public Command specimen() {
-        return new InstantCommand(()->{
-            move(ARM_HOME_SPECIMEN, PITCH_HOME_SPECIMEN);
-        }, this);
+        return moveTo(ARM_HOME_SPECIMEN, PITCH_HOME_SPECIMEN);
     }
 
     public Command home() {
-        return new InstantCommand(() -> move(ARM_HOME, PITCH_HOME), this);
+        return moveTo(ARM_HOME, PITCH_HOME);
     }
     
     public Command away() {
-        return new InstantCommand(() -> move(ARM_AWAY, PITCH_AWAY), this);
+        return moveTo(ARM_AWAY, PITCH_AWAY);
     }
 
     public Command specimenScore() {
-        return new InstantCommand(() -> move(0.2, PITCH_AWAY), this);
+        return moveTo(0.2, PITCH_AWAY);
     }
 
     public Command touch() {
-        return new InstantCommand(() -> move(ARM_TOUCH, PITCH_TOUCH), this);
+        return moveTo(ARM_TOUCH, PITCH_TOUCH);
     }
 }
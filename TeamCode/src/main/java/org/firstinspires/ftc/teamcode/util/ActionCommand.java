@@ -3,16 +3,22 @@ package org.firstinspires.ftc.teamcode.util;
 import com.acmerobotics.dashboard.FtcDashboard;
 import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
 import com.acmerobotics.roadrunner.Action;
+import com.acmerobotics.roadrunner.ParallelAction;
+import com.acmerobotics.roadrunner.SequentialAction;
+import com.acmerobotics.roadrunner.SleepAction;
 import com.arcrobotics.ftclib.command.Command;
 import com.arcrobotics.ftclib.command.Subsystem;
+import org.firstinspires.ftc.teamcode.roadrunner.MecanumDrive;
 
 import java.util.Collections;
 import java.util.Set;
 
-public class ActionCommand implements Command {
+public class ActionCommand implements Command, EstimatedCompletion {
     private final Action action;
     private final Set<Subsystem> requirements;
     private boolean finished = false;
+    private double duration = Double.NaN;
+    private long startNanos = -1;
 
     public ActionCommand(Action action, Set<Subsystem> requirements) {
         this.action = action;
@@ -28,6 +34,11 @@ public class ActionCommand implements Command {
         return requirements;
     }
 
+    @Override
+    public void initialize() {
+        startNanos = System.nanoTime();
+    }
+
     @Override
     public void execute() {
         TelemetryPacket packet = new TelemetryPacket();
@@ -40,4 +51,39 @@ public class ActionCommand implements Command {
     public boolean isFinished() {
         return finished;
     }
+
+    @Override
+    public double getTimeRemaining() {
+        if (finished) return 0;
+        if (action instanceof EstimatedCompletion) return ((EstimatedCompletion) action).getTimeRemaining();
+        if (Double.isNaN(duration)) duration = durationOf(action);
+        double elapsed = startNanos < 0 ? 0 : (System.nanoTime() - startNanos) / 1e9;
+        return Math.max(0, duration - elapsed);
+    }
+
+    /**
+     * @return the planned duration of an action in seconds, or infinity if it can't be known up front
+     */
+    public static double durationOf(Action action) {
+        if (action instanceof MecanumDrive.FollowTrajectoryAction) {
+            return ((MecanumDrive.FollowTrajectoryAction) action).timeTrajectory.duration;
+        }
+        if (action instanceof MecanumDrive.TurnAction) {
+            return ((MecanumDrive.TurnAction) action).turn.duration;
+        }
+        if (action instanceof SleepAction) {
+            return ((SleepAction) action).getDt();
+        }
+        if (action instanceof SequentialAction) {
+            double total = 0;
+            for (Action a : ((SequentialAction) action).getInitialActions()) total += durationOf(a);
+            return total;
+        }
+        if (action instanceof ParallelAction) {
+            double longest = 0;
+            for (Action a : ((ParallelAction) action).getInitialActions()) longest = Math.max(longest, durationOf(a));
+            return longest;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
 }
@@ -3,134 +3,185 @@ package org.firstinspires.ftc.teamcode.util;
 import com.qualcomm.robotcore.util.ElapsedTime;
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 
+/**
+ * A trapezoid profile with separate acceleration and deceleration. Phase boundaries are worked out once in
+ * {@link #setMotion}, and {@link #update()} reads the timer once and evaluates the current phase in closed
+ * form.
+ */
 public class AsymmetricMotionProfile {
-    private final double acceleration, deceleration;
-    private final double maxVelocity;
+    private double acceleration, deceleration;
+    private double maxVelocity;
     private double initialVelocity;
     public double initialPosition, finalPosition;
     private double deltaPose, sign;
     private double maxReachedVelocity;
-    private double t0,t1,t2,t3,t;
+    private double t1, t2, t3, t;
     private double v0;
+    /** Deceleration actually used, higher than the limit only when a replan leaves too little room to stop. */
+    private double decel;
+    /** Unsigned distance covered at the end of phases 1, 2 and 3. */
+    private double s1, s2, s3;
 
-    private double position, velocity, signedVelocity;
+    private int phase;
+    private double position, velocity, signedVelocity, signedAcceleration;
 
     public final ElapsedTime timer = new ElapsedTime();
 
-    public AsymmetricMotionProfile(double maxVelocity, double acceleration, double deceleration){
+    public AsymmetricMotionProfile(double maxVelocity, double acceleration, double deceleration) {
+        setConstraints(maxVelocity, acceleration, deceleration);
+        setMotion(0, 0, 0);
+    }
+
+    /**
+     * Takes effect on the next {@link #setMotion} or {@link #replan}.
+     */
+    public void setConstraints(double maxVelocity, double acceleration, double deceleration) {
         this.maxVelocity = maxVelocity;
         this.acceleration = acceleration;
         this.deceleration = deceleration;
-
-        setMotion(0,0,0);
     }
 
-    public void setMotion(double initialPosition, double finalPosition, double initialVelocity){
+    public void setMotion(double initialPosition, double finalPosition, double initialVelocity) {
         this.initialPosition = initialPosition;
         this.finalPosition = finalPosition;
         this.initialVelocity = Math.signum(initialVelocity) * Math.min(Math.abs(initialVelocity), maxVelocity);
-        sign = Math.signum(finalPosition - initialPosition);
-        v0 = sign * initialVelocity;
-        t0 = v0/acceleration;
-        deltaPose = t0*v0/2.0 + Math.abs(finalPosition - initialPosition);
-        maxReachedVelocity = Math.max((calculateDeltaIfMaxReachedVelocityIs(maxVelocity) - deltaPose) <= 0 ? maxVelocity :
-                Math.sqrt(deltaPose*2.0*acceleration*deceleration/(acceleration+deceleration)), v0);
-        t1 = maxReachedVelocity/acceleration - t0;
-        t3 = maxReachedVelocity/deceleration;
-        t2 = Math.abs(Math.min(0, calculateDeltaIfMaxReachedVelocityIs(maxVelocity)-deltaPose))/maxVelocity;
-        t=t1+t2+t3;
-        timer.reset();
-    }
-
-    private double calculateDeltaIfMaxReachedVelocityIs(double v){
-        return (v*v/2.0)*(acceleration+deceleration)/(acceleration*deceleration);
-    }
+        double distance = Math.abs(finalPosition - initialPosition);
+        sign = distance > 0 ? Math.signum(finalPosition - initialPosition) : Math.signum(initialVelocity);
+        v0 = sign * this.initialVelocity;
+        decel = deceleration;
+
+        if (v0 > 0 && v0 * v0 / (2 * deceleration) > distance) {
+            // Too fast to stop in time at the normal limit: brake harder rather than overshoot.
+            maxReachedVelocity = v0;
+            decel = v0 * v0 / (2 * Math.max(distance, 1e-9));
+            t1 = 0;
+            t2 = 0;
+            t3 = v0 / decel;
+        } else {
+            // Distance of the same profile started from rest, which makes v0 < 0 (moving away) work as well.
+            deltaPose = v0 * v0 / (2 * acceleration) + distance;
+            double plateauDistance = calculateDeltaIfMaxReachedVelocityIs(maxVelocity);
+            maxReachedVelocity = plateauDistance <= deltaPose ? maxVelocity :
+                    Math.sqrt(deltaPose * 2.0 * acceleration * deceleration / (acceleration + deceleration));
+            maxReachedVelocity = Math.max(maxReachedVelocity, v0);
+            t1 = (maxReachedVelocity - v0) / acceleration;
+            t2 = Math.max(0, deltaPose - plateauDistance) / maxVelocity;
+            t3 = maxReachedVelocity / deceleration;
+        }
+        t = t1 + t2 + t3;
+        s1 = (v0 + maxReachedVelocity) / 2.0 * t1;
+        s2 = s1 + maxReachedVelocity * t2;
+        s3 = distance;
 
-    public int getPhase(){
-        if(timer.seconds() <= t1) return 1;
-        if(timer.seconds() <= t1+t2) return 2;
-        if(timer.seconds() <= t1+t2+t3) return 3;
-        return 0;
+        timer.reset();
+        sample(0);
     }
 
-    private double getVelocity(int phase, double time){
-        switch (phase){
-            case 1: return v0+time*acceleration;
-            case 2: return getVelocity(1, t1);
-            case 3: return maxReachedVelocity - deceleration * (time - t1 - t2);
-        }
-        return 0;
+    /**
+     * Starts a new motion to finalPosition from wherever this profile is right now, keeping position and
+     * velocity continuous.
+     */
+    public void replan(double finalPosition) {
+        update();
+        setMotion(position, finalPosition, signedVelocity);
     }
 
-    public double getPosition(double time){
-        if(time <= t1) return initialPosition + sign*v0*time/2.0 + sign*getVelocity(1,time)*time/2.0;
-        if(time <= t1+t2) return initialPosition + sign*v0*t1/2.0 + sign*getVelocity(1,t1)*t1/2.0 + sign*getVelocity(2, time)*(time-t1);
-        if(time <= t1+t2+t3) return getPosition(t1+t2) + sign*maxReachedVelocity*t3/2.0 - sign*getVelocity(3, time) * (t1+t2+t3-time)/2.0;
-        return finalPosition;
+    private double calculateDeltaIfMaxReachedVelocityIs(double v) {
+        return (v * v / 2.0) * (acceleration + deceleration) / (acceleration * deceleration);
     }
 
-    private void updateVelocity(){
-        this.velocity = getVelocity(getPhase(), timer.seconds());
+    /**
+     * @return the phase as of the last {@link #update()}: 1 accelerating, 2 cruising, 3 decelerating, 0 done
+     */
+    public int getPhase() {
+        return phase;
     }
 
-    private void updateSignedVelocity(){
-        this.signedVelocity = sign * getVelocity(getPhase(), timer.seconds());
+    public double getPosition(double time) {
+        return initialPosition + sign * distanceAt(time);
     }
 
-    private void updatePosition(){
-        this.position = getPosition(timer.seconds());
+    private double distanceAt(double time) {
+        if (time <= 0) return 0;
+        if (time <= t1) return v0 * time + acceleration * time * time / 2.0;
+        if (time <= t1 + t2) return s1 + maxReachedVelocity * (time - t1);
+        if (time <= t) {
+            double tau = time - t1 - t2;
+            return s2 + maxReachedVelocity * tau - decel * tau * tau / 2.0;
+        }
+        return s3;
+    }
+
+    private void sample(double time) {
+        if (time <= t1) {
+            phase = 1;
+            velocity = v0 + acceleration * time;
+            signedAcceleration = sign * acceleration;
+        } else if (time <= t1 + t2) {
+            phase = 2;
+            velocity = maxReachedVelocity;
+            signedAcceleration = 0;
+        } else if (time <= t) {
+            phase = 3;
+            velocity = maxReachedVelocity - decel * (time - t1 - t2);
+            signedAcceleration = -sign * decel;
+        } else {
+            phase = 0;
+            velocity = 0;
+            signedAcceleration = 0;
+        }
+        signedVelocity = sign * velocity;
+        position = phase == 0 ? finalPosition : getPosition(time);
     }
 
-    public double getVelocity(){
+    public double getVelocity() {
         return velocity;
     }
 
-    public double getSignedVelocity(){
+    public double getSignedVelocity() {
         return signedVelocity;
     }
 
-    public double getPosition(){
-        return position;
+    public double getSignedAcceleration() {
+        return signedAcceleration;
     }
 
-    public double getTimeToMotionEnd(){
-        return Math.max(0,t - timer.seconds());
+    public double getPosition() {
+        return position;
     }
 
-    private double getTime1(double position) {
-        return (-sign * v0 - Math.signum(v0) * Math.sqrt(v0 * v0 - 2 * sign * acceleration*(initialPosition-position))) / (sign * acceleration);
+    public double getDuration() {
+        return t;
     }
 
-    private double getTime2(double position) {
-        return (position - getPosition(t1)) / (sign * (v0 + t1 * acceleration)) + t1;
+    public boolean isFinished() {
+        return phase == 0;
     }
 
-    private double getTime3(double position) {
-        double qa = -deceleration;
-        double qb = deceleration * (t + t1 + t2) + maxReachedVelocity;
-        double qc = (2.0 / sign) * (getPosition(t1 + t2) - position) + maxReachedVelocity * t3 - t * (maxReachedVelocity + deceleration * (t1 + t2));
-        return (-qb + Math.sqrt(qb * qb - 4.0 * qa * qc)) / (2.0 * qa);
+    public double getTimeToMotionEnd() {
+        return Math.max(0, t - timer.seconds());
     }
 
+    /**
+     * @return the time from the start of the motion at which the profile passes position
+     */
     public double getTime(double position) {
-        if (position >= Math.min(getPosition(t1), getPosition(t1 + t2)) && position <= Math.max(getPosition(t1), getPosition(t1 + t2)))
-            return getTime2(position);
-
-        double s = getTime1(position);
-        if (s < 0) s = 0;
-        if (s > t1) {
-            s = getTime3(position);
-            if (s > t1 + t2 + t3)
-                s = t1 + t2 + t3;
+        double s = Math.max(0, Math.min(s3, sign * (position - initialPosition)));
+        if (s <= s1 && t1 > 0) {
+            return (-v0 + Math.sqrt(Math.max(0, v0 * v0 + 2 * acceleration * s))) / acceleration;
+        }
+        if (s <= s2 && t2 > 0) {
+            return t1 + (s - s1) / maxReachedVelocity;
         }
-        return s;
+        double disc = maxReachedVelocity * maxReachedVelocity - 2 * decel * (s - s2);
+        return Math.min(t, t1 + t2 + (maxReachedVelocity - Math.sqrt(Math.max(0, disc))) / decel);
     }
 
-    public double getTimeTo(double position){
-        return Math.max(0,getTime(position) - timer.seconds());
+    public double getTimeTo(double position) {
+        return Math.max(0, getTime(position) - timer.seconds());
     }
 
-    public void telemetry(Telemetry telemetry){
+    public void telemetry(Telemetry telemetry) {
         telemetry.addData("Profile initial position", initialPosition);
         telemetry.addData("Profile final position", finalPosition);
         telemetry.addData("Profile initial velocity", initialVelocity);
@@ -139,18 +190,16 @@ public class AsymmetricMotionProfile {
         telemetry.addData("Max Velocity", maxVelocity);
         telemetry.addData("Max reached Velocity", maxReachedVelocity);
         telemetry.addData("Acceleration", acceleration);
-        telemetry.addData("Deceleration", deceleration);
+        telemetry.addData("Deceleration", decel);
         telemetry.addData("Delta pose", deltaPose);
         telemetry.addData("t1", t1);
         telemetry.addData("t2", t2);
         telemetry.addData("t3", t3);
-        telemetry.addData("Phase", getPhase());
+        telemetry.addData("Phase", phase);
         telemetry.addData("Time to motion end", getTimeToMotionEnd());
     }
 
-    public void update(){
-        updateVelocity();
-        updateSignedVelocity();
-        updatePosition();
+    public void update() {
+        sample(timer.seconds());
     }
-}
\ No newline at end of file
+}
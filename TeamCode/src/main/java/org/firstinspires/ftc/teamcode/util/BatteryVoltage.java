@@ -0,0 +1,39 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Battery voltage, read at most every {@link #PERIOD_MS} so that voltage compensated loops don't pay for a
+ * hub read every cycle. Reports the lowest voltage over all hubs.
+ */
+public class BatteryVoltage implements DoubleSupplier {
+    public static long PERIOD_MS = 250;
+    public static double NOMINAL = 12;
+
+    private final List<VoltageSensor> sensors;
+    private double voltage = NOMINAL;
+    private long lastReadMs = 0;
+
+    public BatteryVoltage(HardwareMap hardwareMap) {
+        sensors = hardwareMap.getAll(VoltageSensor.class);
+    }
+
+    @Override
+    public double getAsDouble() {
+        long now = System.currentTimeMillis();
+        if (now - lastReadMs >= PERIOD_MS) {
+            lastReadMs = now;
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < sensors.size(); i++) {
+                double v = sensors.get(i).getVoltage();
+                if (v > 0) min = Math.min(min, v);
+            }
+            if (min != Double.POSITIVE_INFINITY) voltage = min;
+        }
+        return voltage;
+    }
+}
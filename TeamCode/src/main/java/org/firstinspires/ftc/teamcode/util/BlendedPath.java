@@ -0,0 +1,90 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.roadrunner.AccelConstraint;
+import com.acmerobotics.roadrunner.Action;
+import com.acmerobotics.roadrunner.Pose2d;
+import com.acmerobotics.roadrunner.TrajectoryActionBuilder;
+import com.acmerobotics.roadrunner.VelConstraint;
+import com.acmerobotics.roadrunner.Vector2d;
+import org.firstinspires.ftc.teamcode.roadrunner.MecanumDrive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives through a list of waypoints as one continuous profile, only coming to a stop at the last one. Use it in
+ * place of back to back trajectories when nothing has to happen at the points in between.
+ *
+ * <p>Each waypoint is reached with a spline whose tangent points from the waypoint before it to the one after it,
+ * so the robot carries its speed through. A waypoint at the same spot as the one before it is a turn in place.
+ * {@link #build} plans the path in the background from where the robot is expected to start, and plans it again
+ * from the actual pose if the robot ends up somewhere else.
+ */
+public class BlendedPath {
+    private static class Waypoint {
+        final Vector2d position;
+        final double heading;
+        final boolean constantHeading;
+
+        Waypoint(Vector2d position, double heading, boolean constantHeading) {
+            this.position = position;
+            this.heading = heading;
+            this.constantHeading = constantHeading;
+        }
+    }
+
+    private final List<Waypoint> waypoints = new ArrayList<>();
+    private VelConstraint vel;
+    private AccelConstraint accel;
+
+    /**
+     * Goes to position, turning linearly to heading on the way.
+     */
+    public BlendedPath to(Vector2d position, double heading) {
+        waypoints.add(new Waypoint(position, heading, false));
+        return this;
+    }
+
+    /**
+     * Goes to position, keeping the heading it has.
+     */
+    public BlendedPath to(Vector2d position) {
+        waypoints.add(new Waypoint(position, 0, true));
+        return this;
+    }
+
+    public BlendedPath constraints(VelConstraint vel, AccelConstraint accel) {
+        this.vel = vel;
+        this.accel = accel;
+        return this;
+    }
+
+    public TrajectoryPlanner.PlannedAction build(MecanumDrive drive, Pose2d expectedStart) {
+        return TrajectoryPlanner.plan(drive, expectedStart, start -> build(drive.actionBuilder(start), start));
+    }
+
+    private Action build(TrajectoryActionBuilder builder, Pose2d start) {
+        Vector2d previous = start.position;
+        boolean moving = false;
+        for (int i = 0; i < waypoints.size(); i++) {
+            Waypoint waypoint = waypoints.get(i);
+            Vector2d chord = waypoint.position.minus(previous);
+            if (chord.norm() < 1e-3) {
+                if (!waypoint.constantHeading) builder = builder.turnTo(waypoint.heading);
+                moving = false;
+                continue;
+            }
+            if (!moving) builder = builder.setTangent(chord.angleCast().log());
+            moving = true;
+
+            Vector2d next = i + 1 < waypoints.size() ? waypoints.get(i + 1).position : null;
+            Vector2d through = next != null && next.minus(waypoint.position).norm() >= 1e-3 ? next.minus(previous) : chord;
+            double tangent = through.angleCast().log();
+            builder = waypoint.constantHeading
+                    ? builder.splineToConstantHeading(waypoint.position, tangent, vel, accel)
+                    : builder.splineToLinearHeading(new Pose2d(waypoint.position, waypoint.heading), tangent, vel, accel);
+            previous = waypoint.position;
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,45 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.arcrobotics.ftclib.command.Command;
+import com.arcrobotics.ftclib.command.CommandBase;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Attaches a completion estimate to a command that can't provide one itself.
+ */
+public class EstimatedCommand extends CommandBase implements EstimatedCompletion {
+    private final Command command;
+    private final DoubleSupplier estimate;
+
+    public EstimatedCommand(Command command, DoubleSupplier estimate) {
+        this.command = command;
+        this.estimate = estimate;
+        m_requirements.addAll(command.getRequirements());
+    }
+
+    @Override
+    public void initialize() {
+        command.initialize();
+    }
+
+    @Override
+    public void execute() {
+        command.execute();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return command.isFinished();
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        command.end(interrupted);
+    }
+
+    @Override
+    public double getTimeRemaining() {
+        return estimate.getAsDouble();
+    }
+}
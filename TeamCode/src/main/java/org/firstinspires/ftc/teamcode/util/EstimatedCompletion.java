@@ -0,0 +1,12 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * Something that can predict when it will be done: a trajectory from its duration, the lift from its
+ * motion profile, a servo from its travel model.
+ */
+public interface EstimatedCompletion {
+    /**
+     * @return seconds until completion, or {@link Double#POSITIVE_INFINITY} if unknown
+     */
+    double getTimeRemaining();
+}
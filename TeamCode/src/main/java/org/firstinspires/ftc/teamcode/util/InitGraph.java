@@ -0,0 +1,121 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.config.Config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs init steps on a few threads, each as soon as the steps it depends on are done, and logs how long each took.
+ *
+ * <p>Steps must be added after the steps they depend on. They start in that order, so a step only ever waits on
+ * one that is already running and the pool can't deadlock. Anything that registers with the CommandScheduler has
+ * to stay in a single step, the scheduler isn't thread safe.
+ */
+@Config
+public class InitGraph {
+    public static int THREADS = 3;
+
+    private static class Step {
+        final String name;
+        final Runnable body;
+        final Step[] dependencies;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable failure;
+        volatile boolean skipped;
+        volatile double waitMs, runMs;
+
+        Step(String name, Runnable body, Step[] dependencies) {
+            this.name = name;
+            this.body = body;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final String name;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+
+    public InitGraph(String name) {
+        this.name = name;
+    }
+
+    public InitGraph step(String name, Runnable body, String... dependsOn) {
+        if (steps.containsKey(name)) throw new IllegalArgumentException("Init step " + name + " added twice");
+        Step[] dependencies = new Step[dependsOn.length];
+        for (int i = 0; i < dependsOn.length; i++) {
+            dependencies[i] = steps.get(dependsOn[i]);
+            if (dependencies[i] == null) {
+                throw new IllegalArgumentException("Init step " + name + " depends on " + dependsOn[i] + ", add that first");
+            }
+        }
+        steps.put(name, new Step(name, body, dependencies));
+        return this;
+    }
+
+    /**
+     * Runs every step and waits for all of them. Steps whose dependencies failed are skipped, and the first failure is
+     * thrown once everything else has finished.
+     */
+    public void run() {
+        long begin = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, THREADS), r -> {
+            Thread thread = new Thread(r, "Init " + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Step step : steps.values()) pool.execute(() -> run(step));
+        pool.shutdown();
+
+        List<Step> failed = new ArrayList<>();
+        try {
+            for (Step step : steps.values()) {
+                step.done.await();
+                if (step.failure != null) failed.add(step);
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(name + " init interrupted", e);
+        }
+
+        double sum = 0;
+        for (Step step : steps.values()) {
+            sum += step.runMs;
+            Log.i("InitGraph", name + " " + step.name + ": " + (step.skipped ? "skipped"
+                    : step.runMs + " ms after waiting " + step.waitMs + " ms"));
+        }
+        Log.i("InitGraph", name + " init took " + (System.nanoTime() - begin) / 1e6 + " ms, " + sum + " ms of steps");
+
+        if (!failed.isEmpty()) {
+            Step first = failed.get(0);
+            throw new RuntimeException(name + " init step " + first.name + " failed", first.failure);
+        }
+    }
+
+    private static void run(Step step) {
+        long queued = System.nanoTime();
+        try {
+            for (Step dependency : step.dependencies) {
+                dependency.done.await();
+                if (dependency.failure != null || dependency.skipped) step.skipped = true;
+            }
+            long start = System.nanoTime();
+            step.waitMs = (start - queued) / 1e6;
+            if (!step.skipped) {
+                step.body.run();
+                step.runMs = (System.nanoTime() - start) / 1e6;
+            }
+        } catch (Throwable t) {
+            step.failure = t;
+            Log.e("InitGraph", "Init step " + step.name + " failed", t);
+        } finally {
+            step.done.countDown();
+        }
+    }
+}
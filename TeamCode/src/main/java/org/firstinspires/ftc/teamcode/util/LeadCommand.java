@@ -0,0 +1,126 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.config.Config;
+import com.arcrobotics.ftclib.command.Command;
+import com.arcrobotics.ftclib.command.CommandBase;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Runs two commands in sequence, but starts the second one as soon as the first predicts it is less than
+ * the lead time from finishing. Without an estimate this behaves like a two command sequential group.
+ * The overlap actually achieved is logged when the first command finishes.
+ */
+@Config
+public class LeadCommand extends CommandBase implements EstimatedCompletion {
+    public static double DEFAULT_LEAD_MS = 150;
+
+    private final Command current, next;
+    private final DoubleSupplier estimate;
+    private final double leadMs;
+
+    private boolean currentDone, nextStarted, nextDone;
+    private long nextStartNanos;
+    private double overlapMs;
+
+    /**
+     * @param estimate seconds until current is done
+     */
+    public LeadCommand(Command current, Command next, double leadMs, DoubleSupplier estimate) {
+        this.current = current;
+        this.next = next;
+        this.leadMs = leadMs;
+        this.estimate = estimate;
+        m_requirements.addAll(current.getRequirements());
+        m_requirements.addAll(next.getRequirements());
+    }
+
+    /**
+     * Uses current's own estimate if it has one.
+     */
+    public LeadCommand(Command current, Command next, double leadMs) {
+        this(current, next, leadMs, current instanceof EstimatedCompletion
+                ? ((EstimatedCompletion) current)::getTimeRemaining
+                : () -> Double.POSITIVE_INFINITY);
+    }
+
+    public LeadCommand(Command current, Command next) {
+        this(current, next, DEFAULT_LEAD_MS);
+    }
+
+    /**
+     * Chains any number of commands, each one starting leadMs before the one before it is predicted to end.
+     */
+    public static Command chain(double leadMs, Command... commands) {
+        Command chained = commands[commands.length - 1];
+        for (int i = commands.length - 2; i >= 0; i--) {
+            chained = new LeadCommand(commands[i], chained, leadMs);
+        }
+        return chained;
+    }
+
+    @Override
+    public void initialize() {
+        currentDone = false;
+        nextStarted = false;
+        nextDone = false;
+        overlapMs = 0;
+        current.initialize();
+    }
+
+    @Override
+    public void execute() {
+        if (!currentDone) {
+            current.execute();
+            if (current.isFinished()) {
+                current.end(false);
+                currentDone = true;
+                if (nextStarted) {
+                    overlapMs = (System.nanoTime() - nextStartNanos) / 1e6;
+                    Log.i("LeadCommand", String.format("%s overlapped %s by %.0f ms", next.getName(), current.getName(), overlapMs));
+                }
+            }
+        }
+        if (!nextStarted && (currentDone || estimate.getAsDouble() * 1000 <= leadMs)) {
+            nextStarted = true;
+            nextStartNanos = System.nanoTime();
+            next.initialize();
+        }
+        if (nextStarted && !nextDone) {
+            next.execute();
+            if (next.isFinished()) {
+                next.end(false);
+                nextDone = true;
+            }
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return currentDone && nextDone;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        if (interrupted) {
+            if (!currentDone) current.end(true);
+            if (nextStarted && !nextDone) next.end(true);
+        }
+    }
+
+    /**
+     * @return how long the second command started before the first one finished, in ms
+     */
+    public double getOverlapMs() {
+        return overlapMs;
+    }
+
+    @Override
+    public double getTimeRemaining() {
+        if (nextStarted) {
+            return next instanceof EstimatedCompletion ? ((EstimatedCompletion) next).getTimeRemaining() : Double.POSITIVE_INFINITY;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,43 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * Mecanum inverse kinematics on plain doubles, for loops that run every cycle. Reuse one instance; results are
+ * left in the wheel fields.
+ */
+public class MecanumMixer {
+    public double leftFront, leftBack, rightBack, rightFront;
+
+    /**
+     * Mixes a robot relative command, with the same conventions as roadrunner's MecanumKinematics: forward is +x,
+     * left is +y and turn is counterclockwise.
+     */
+    public MecanumMixer mix(double forward, double left, double turn, double lateralMultiplier, double trackWidth) {
+        leftFront = forward - left * lateralMultiplier - turn * trackWidth;
+        leftBack = forward + left * lateralMultiplier - turn * trackWidth;
+        rightBack = forward - left * lateralMultiplier + turn * trackWidth;
+        rightFront = forward + left * lateralMultiplier + turn * trackWidth;
+        return this;
+    }
+
+    /**
+     * Mixes powers, where a full stick in any one direction maps to full power.
+     */
+    public MecanumMixer mix(double forward, double left, double turn) {
+        return mix(forward, left, turn, 1, 1);
+    }
+
+    /**
+     * Scales all four wheels down together so none is above max, keeping the direction of travel.
+     */
+    public MecanumMixer limit(double max) {
+        double largest = Math.max(Math.max(Math.abs(leftFront), Math.abs(leftBack)), Math.max(Math.abs(rightBack), Math.abs(rightFront)));
+        if (largest > max) {
+            double scale = max / largest;
+            leftFront *= scale;
+            leftBack *= scale;
+            rightBack *= scale;
+            rightFront *= scale;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,162 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.arcrobotics.ftclib.command.CommandBase;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.teamcode.roadrunner.MecanumDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive;
+import org.firstinspires.ftc.teamcode.subsystem.DriveSys;
+import org.firstinspires.ftc.teamcode.util.localization.PoseEstimator;
+
+/**
+ * Drives straight to a pose with a profiled PID per axis on the estimated pose, for short teleop hops where building
+ * a roadrunner trajectory isn't worth it. Starts on the first loop, and requires the drive so the driver's default
+ * command is paused while it runs.
+ *
+ * <p>The x and y profiles are scaled so they finish together, which keeps the robot on the straight line. Each
+ * controller outputs a field velocity (profile velocity plus kP times the error) that goes through the mecanum
+ * kinematics and the drive feedforward, the same way roadrunner's follower does.
+ */
+@Config
+public class PoseToPoseCommand extends CommandBase implements EstimatedCompletion {
+    public static double MAX_VEL = 50;
+    public static double MAX_ACCEL = 50;
+    public static double MAX_ANG_VEL = Math.PI;
+    public static double MAX_ANG_ACCEL = Math.PI;
+    public static double TRANSLATION_P = 7;
+    public static double HEADING_P = 7;
+    public static double POSITION_TOLERANCE = 0.75;
+    public static double HEADING_TOLERANCE = 2;
+    public static double SETTLE_VEL = 2;
+    public static double DWELL_MS = 50;
+    /** How long past the profiled arrival the command keeps trying before it gives up. */
+    public static double TIMEOUT_MS = 1000;
+
+    private final PinpointDrive drive;
+    private final double targetX, targetY, targetHeading;
+    private final ProfiledPIDFController xController = new ProfiledPIDFController(0, 0, 0, 1, 1);
+    private final ProfiledPIDFController yController = new ProfiledPIDFController(0, 0, 0, 1, 1);
+    private final ProfiledPIDFController headingController = new ProfiledPIDFController(0, 0, 0, 1, 1);
+    private final SettleDetector settle = new SettleDetector(1, 1, 0, 0);
+    private final MecanumMixer velocities = new MecanumMixer(), accelerations = new MecanumMixer(), powers = new MecanumMixer();
+
+    private double heading, lastRawHeading;
+
+    public PoseToPoseCommand(DriveSys driveSys, double x, double y, double heading) {
+        this.drive = driveSys.drive;
+        this.targetX = x;
+        this.targetY = y;
+        this.targetHeading = heading;
+        ProfiledPIDFController.Feedforward velocity = (position, v, a) -> v;
+        xController.setFeedforward(velocity);
+        yController.setFeedforward(velocity);
+        headingController.setFeedforward(velocity);
+        addRequirements(driveSys);
+    }
+
+    @Override
+    public void initialize() {
+        PoseEstimator.Snapshot pose = drive.estimator.update();
+        double x = pose.x;
+        double y = pose.y;
+        lastRawHeading = pose.heading;
+        heading = lastRawHeading;
+
+        double dx = targetX - x, dy = targetY - y;
+        double distance = Math.hypot(dx, dy);
+        double xShare = distance > 1e-6 ? Math.abs(dx) / distance : 1;
+        double yShare = distance > 1e-6 ? Math.abs(dy) / distance : 1;
+        setUp(xController, TRANSLATION_P, MAX_VEL * xShare, MAX_ACCEL * xShare, x, targetX);
+        setUp(yController, TRANSLATION_P, MAX_VEL * yShare, MAX_ACCEL * yShare, y, targetY);
+        // Goal on the same turn as the current heading, so the robot takes the short way around.
+        setUp(headingController, HEADING_P, MAX_ANG_VEL, MAX_ANG_ACCEL, heading,
+                heading + AngleUnit.normalizeRadians(targetHeading - heading));
+
+        double profileMs = 1000 * Math.max(Math.max(xController.getTimeToGoal(), yController.getTimeToGoal()),
+                headingController.getTimeToGoal());
+        settle.setTolerances(1, 1, DWELL_MS, profileMs + TIMEOUT_MS);
+        settle.start();
+    }
+
+    private static void setUp(ProfiledPIDFController controller, double p, double maxVel, double maxAccel, double from, double to) {
+        controller.setPID(p, 0, 0);
+        controller.setConstraints(Math.max(maxVel, 1e-3), Math.max(maxAccel, 1e-3));
+        controller.reset(from);
+        controller.setGoal(to);
+        // A zero step works out the profile duration without moving the setpoint.
+        controller.calculate(from, 1e-9);
+    }
+
+    @Override
+    public void execute() {
+        PoseEstimator.Snapshot pose = drive.estimator.update();
+        double x = pose.x;
+        double y = pose.y;
+        double rawHeading = pose.heading;
+        heading += AngleUnit.normalizeRadians(rawHeading - lastRawHeading);
+        lastRawHeading = rawHeading;
+
+        double vx = xController.calculate(x), vy = yController.calculate(y), omega = headingController.calculate(heading);
+        double ax = xController.getSetpointAcceleration(), ay = yController.getSetpointAcceleration();
+        double alpha = headingController.getSetpointAcceleration();
+
+        // Field to robot frame.
+        double cos = Math.cos(rawHeading), sin = Math.sin(rawHeading);
+        double forward = cos * vx + sin * vy, left = -sin * vx + cos * vy;
+        double forwardAccel = cos * ax + sin * ay, leftAccel = -sin * ax + cos * ay;
+        setWheels(forward, left, omega, forwardAccel, leftAccel, alpha);
+
+        double distance = Math.hypot(targetX - x, targetY - y);
+        double headingError = Math.toDegrees(Math.abs(AngleUnit.normalizeRadians(targetHeading - rawHeading)));
+        double speed = Math.hypot(pose.vx, pose.vy);
+        settle.update(Math.max(distance / POSITION_TOLERANCE, headingError / HEADING_TOLERANCE), speed / SETTLE_VEL);
+    }
+
+    /**
+     * Mecanum inverse kinematics and feedforward, as in {@link MecanumDrive.FollowTrajectoryAction}, without the
+     * dual number objects.
+     */
+    private void setWheels(double forward, double left, double omega, double forwardAccel, double leftAccel, double alpha) {
+        MecanumDrive.Params p = MecanumDrive.PARAMS;
+        double lateral = drive.kinematics.lateralMultiplier, track = drive.kinematics.trackWidth;
+        double kV = p.kV / p.inPerTick, kA = p.kA / p.inPerTick;
+        double voltage = drive.voltageSensor.getVoltage();
+
+        velocities.mix(forward, left, omega, lateral, track);
+        accelerations.mix(forwardAccel, leftAccel, alpha, lateral, track);
+        powers.leftFront = power(velocities.leftFront, accelerations.leftFront, p.kS, kV, kA, voltage);
+        powers.leftBack = power(velocities.leftBack, accelerations.leftBack, p.kS, kV, kA, voltage);
+        powers.rightBack = power(velocities.rightBack, accelerations.rightBack, p.kS, kV, kA, voltage);
+        powers.rightFront = power(velocities.rightFront, accelerations.rightFront, p.kS, kV, kA, voltage);
+        powers.limit(1);
+        drive.leftFront.setPower(powers.leftFront);
+        drive.leftBack.setPower(powers.leftBack);
+        drive.rightBack.setPower(powers.rightBack);
+        drive.rightFront.setPower(powers.rightFront);
+    }
+
+    private static double power(double velocity, double acceleration, double kS, double kV, double kA, double voltage) {
+        return (kS * Math.signum(velocity) + kV * velocity + kA * acceleration) / voltage;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return settle.isDone();
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        drive.leftFront.setPower(0);
+        drive.leftBack.setPower(0);
+        drive.rightBack.setPower(0);
+        drive.rightFront.setPower(0);
+        // Brings drive.pose up to date for whatever runs next.
+        drive.updatePoseEstimate();
+    }
+
+    @Override
+    public double getTimeRemaining() {
+        if (settle.isDone()) return 0;
+        return Math.max(Math.max(xController.getTimeToGoal(), yController.getTimeToGoal()), headingController.getTimeToGoal());
+    }
+}
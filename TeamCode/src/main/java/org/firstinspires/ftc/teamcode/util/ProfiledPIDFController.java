@@ -1,177 +1,155 @@
 package org.firstinspires.ftc.teamcode.util;
 
-import com.arcrobotics.ftclib.controller.PIDController;
-import com.arcrobotics.ftclib.controller.PIDFController;
-import com.arcrobotics.ftclib.trajectory.TrapezoidProfile;
-
 /**
  * Implements a PIDF control loop whose setpoint is constrained by a trapezoid
  * profile.
+ *
+ * <p>The profile state lives in primitive fields and is advanced in place each
+ * call by the time that actually passed since the previous call, so nothing is
+ * allocated in the control loop.
  */
 @SuppressWarnings("PMD.TooManyMethods")
 public class ProfiledPIDFController {
-    private PIDFController m_controller;
-    private TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
-    private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
-    private TrapezoidProfile.Constraints m_constraints;
-
     /**
-     * Allocates a ProfiledPIDController with the given constants for Kp, Ki, and
-     * Kd.
-     *
-     * @param Kp          The proportional coefficient.
-     * @param Ki          The integral coefficient.
-     * @param Kd          The derivative coefficient.
-     * @param Kf          The feedforward coefficient
-     * @param constraints Velocity and acceleration constraints for goal.
+     * Computes a feedforward output from the profiled setpoint.
      */
-    @SuppressWarnings("ParameterName")
-    public ProfiledPIDFController(double Kp, double Ki, double Kd, double Kf,
-                                 TrapezoidProfile.Constraints constraints) {
-        m_controller = new PIDFController(Kp, Ki, Kd, Kf);
-        m_constraints = constraints;
+    public interface Feedforward {
+        double calculate(double position, double velocity, double acceleration);
     }
 
-    /**
-     * Sets the PIDFController gain parameters.
-     *
-     * <p>Sets the proportional, integral, and differential coefficients.
-     *
-     * @param Kp Proportional coefficient
-     * @param Ki Integral coefficient
-     * @param Kd Differential coefficient
-     */
-    @SuppressWarnings("ParameterName")
-    public void setPIDF(double Kp, double Ki, double Kd, double Kf) {
-        m_controller.setPIDF(Kp, Ki, Kd, Kf);
-    }
+    private double m_kP, m_kI, m_kD;
+    private double m_kS, m_kV, m_kA, m_kG;
+    private Feedforward m_feedforward;
+
+    private double m_maxVelocity, m_maxAcceleration;
+    private double m_goalPosition, m_goalVelocity;
+    private double m_setpointPosition, m_setpointVelocity, m_setpointAcceleration;
+
+    private double m_positionError, m_velocityError, m_prevError, m_totalError;
+    private double m_minIntegral = -1, m_maxIntegral = 1;
+    private double m_positionTolerance = 0.05;
+    private double m_velocityTolerance = Double.POSITIVE_INFINITY;
+    private double m_lastOutput;
+
+    private double m_timeToGoal;
+    private long m_lastTimeNanos;
+    private boolean m_hasMeasurement;
 
     /**
-     * Sets the proportional coefficient of the PIDF controller gain.
+     * Allocates a ProfiledPIDFController with the given constants for Kp, Ki, and
+     * Kd.
      *
-     * @param Kp proportional coefficient
+     * @param Kp              The proportional coefficient.
+     * @param Ki              The integral coefficient.
+     * @param Kd              The derivative coefficient.
+     * @param maxVelocity     Maximum velocity of the profile, in units per second.
+     * @param maxAcceleration Maximum acceleration of the profile, in units per second squared.
      */
     @SuppressWarnings("ParameterName")
-    public void setP(double Kp) {
-        m_controller.setP(Kp);
+    public ProfiledPIDFController(double Kp, double Ki, double Kd, double maxVelocity, double maxAcceleration) {
+        setPID(Kp, Ki, Kd);
+        setConstraints(maxVelocity, maxAcceleration);
     }
 
     /**
-     * Sets the integral coefficient of the PIDF controller gain.
-     *
-     * @param Ki integral coefficient
+     * Sets the PID controller gain parameters.
      */
     @SuppressWarnings("ParameterName")
-    public void setI(double Ki) {
-        m_controller.setI(Ki);
+    public void setPID(double Kp, double Ki, double Kd) {
+        m_kP = Kp;
+        m_kI = Ki;
+        m_kD = Kd;
     }
 
     /**
-     * Sets the differential coefficient of the PIDF controller gain.
-     *
-     * @param Kd differential coefficient
+     * Sets the feedforward gains. The output gets
+     * {@code kS * sign(v) + kV * v + kA * a + kG} added to it, where v and a are
+     * the velocity and acceleration of the profiled setpoint.
      */
     @SuppressWarnings("ParameterName")
-    public void setD(double Kd) {
-        m_controller.setD(Kd);
+    public void setFeedforward(double kS, double kV, double kA, double kG) {
+        m_kS = kS;
+        m_kV = kV;
+        m_kA = kA;
+        m_kG = kG;
     }
 
     /**
-     * Sets the feedforward coefficient of the PIDF controller gain.
-     *
-     * @param Kf feedforward coefficient
+     * Replaces the gain based feedforward with a custom model, or restores it if
+     * null.
      */
-    @SuppressWarnings("ParameterName")
-    public void setF(double Kf) {
-        m_controller.setF(Kf);
+    public void setFeedforward(Feedforward feedforward) {
+        m_feedforward = feedforward;
     }
 
-    /**
-     * Gets the proportional coefficient.
-     *
-     * @return proportional coefficient
-     */
     public double getP() {
-        return m_controller.getP();
+        return m_kP;
     }
 
-    /**
-     * Gets the integral coefficient.
-     *
-     * @return integral coefficient
-     */
     public double getI() {
-        return m_controller.getI();
+        return m_kI;
     }
 
-    /**
-     * Gets the differential coefficient.
-     *
-     * @return differential coefficient
-     */
     public double getD() {
-        return m_controller.getD();
+        return m_kD;
     }
 
     /**
-     * Gets the period of this controller.
-     *
-     * @return The period of the controller.
+     * Sets the minimum and maximum values of the integral term.
      */
-    public double getPeriod() {
-        return m_controller.getPeriod();
+    public void setIntegrationBounds(double minIntegral, double maxIntegral) {
+        m_minIntegral = minIntegral;
+        m_maxIntegral = maxIntegral;
     }
 
     /**
-     * Sets the goal for the ProfiledPIDController.
-     *
-     * @param goal The desired goal state.
+     * Set velocity and acceleration constraints for goal.
      */
-    public void setGoal(TrapezoidProfile.State goal) {
-        m_goal = goal;
+    public void setConstraints(double maxVelocity, double maxAcceleration) {
+        m_maxVelocity = maxVelocity;
+        m_maxAcceleration = maxAcceleration;
     }
 
     /**
-     * Sets the goal for the ProfiledPIDController.
+     * Sets the goal for the controller.
      *
-     * @param goal The desired goal position.
+     * @param position The desired goal position.
+     * @param velocity The desired velocity at the goal.
      */
-    public void setGoal(double goal) {
-        m_goal = new TrapezoidProfile.State(goal, 0);
+    public void setGoal(double position, double velocity) {
+        m_goalPosition = position;
+        m_goalVelocity = velocity;
     }
 
     /**
-     * Gets the goal for the ProfiledPIDController.
+     * Sets the goal for the controller, at rest.
      */
-    public TrapezoidProfile.State getGoal() {
-        return m_goal;
+    public void setGoal(double position) {
+        setGoal(position, 0);
     }
 
-    /**
-     * Returns true if the error is within the tolerance of the error.
-     *
-     * <p>This will return false until at least one input value has been computed.
-     */
-    public boolean atGoal() {
-        return atSetpoint() && m_goal.equals(m_setpoint);
+    public double getGoal() {
+        return m_goalPosition;
     }
 
-    /**
-     * Set velocity and acceleration constraints for goal.
-     *
-     * @param constraints Velocity and acceleration constraints for goal.
-     */
-    public void setConstraints(TrapezoidProfile.Constraints constraints) {
-        m_constraints = constraints;
+    public double getSetpointPosition() {
+        return m_setpointPosition;
+    }
+
+    public double getSetpointVelocity() {
+        return m_setpointVelocity;
+    }
+
+    public double getSetpointAcceleration() {
+        return m_setpointAcceleration;
     }
 
     /**
-     * Returns the current setpoint of the ProfiledPIDController.
-     *
-     * @return The current setpoint.
+     * Returns true if the error is within the tolerance and the profile has
+     * reached the goal.
      */
-    public TrapezoidProfile.State getSetpoint() {
-        return m_setpoint;
+    public boolean atGoal() {
+        return atSetpoint() && m_setpointPosition == m_goalPosition && m_setpointVelocity == m_goalVelocity;
     }
 
     /**
@@ -180,125 +158,198 @@ public class ProfiledPIDFController {
      * <p>This will return false until at least one input value has been computed.
      */
     public boolean atSetpoint() {
-        return m_controller.atSetPoint();
+        return m_hasMeasurement
+                && Math.abs(m_positionError) < m_positionTolerance
+                && Math.abs(m_velocityError) < m_velocityTolerance;
     }
 
-    /**
-     * Sets the error which is considered tolerable for use with atSetpoint().
-     *
-     * @param positionTolerance Position error which is tolerable.
-     */
     public void setTolerance(double positionTolerance) {
         setTolerance(positionTolerance, Double.POSITIVE_INFINITY);
     }
 
-    /**
-     * Sets the error which is considered tolerable for use with atSetpoint().
-     *
-     * @param positionTolerance Position error which is tolerable.
-     * @param velocityTolerance Velocity error which is tolerable.
-     */
     public void setTolerance(double positionTolerance, double velocityTolerance) {
-        m_controller.setTolerance(positionTolerance, velocityTolerance);
+        m_positionTolerance = positionTolerance;
+        m_velocityTolerance = velocityTolerance;
     }
 
-    /**
-     * Returns the difference between the setpoint and the measurement.
-     *
-     * @return The error.
-     */
     public double getPositionError() {
-        return m_controller.getPositionError();
+        return m_positionError;
     }
 
     /**
      * Returns the change in error per second.
      */
     public double getVelocityError() {
-        return m_controller.getVelocityError();
+        return m_velocityError;
     }
 
     /**
-     * Returns the next output of the PIDFcontroller.
+     * Returns how long the internal profile still needs to reach the goal, as of
+     * the last call to calculate.
+     */
+    public double getTimeToGoal() {
+        return m_timeToGoal;
+    }
+
+    public double getLastOutput() {
+        return m_lastOutput;
+    }
+
+    /**
+     * Returns the next output, timing the step since the previous call.
      *
      * @param measurement The current measurement of the process variable.
      */
     public double calculate(double measurement) {
-        TrapezoidProfile profile = new TrapezoidProfile(m_constraints, m_goal, m_setpoint);
-        m_setpoint = profile.calculate(getPeriod());
-        return m_controller.calculate(measurement, m_setpoint.position);
+        return calculate(measurement, measureDt());
     }
 
     /**
-     * Returns the next output of the PIDFcontroller.
+     * Advances the profile by dt and returns the next output.
      *
      * @param measurement The current measurement of the process variable.
-     * @param goal        The new goal of the controller.
+     * @param dt          Seconds since the previous call.
      */
-    public double calculate(double measurement, TrapezoidProfile.State goal) {
-        setGoal(goal);
-        return calculate(measurement);
+    public double calculate(double measurement, double dt) {
+        double previousVelocity = m_setpointVelocity;
+        advanceProfile(dt);
+        m_setpointAcceleration = dt > 0 ? (m_setpointVelocity - previousVelocity) / dt : 0;
+        return calculateToSetpoint(measurement, m_setpointPosition, m_setpointVelocity, m_setpointAcceleration, dt);
     }
 
     /**
-     * Returns the next output of the PIDController.
-     *
-     * @param measurement The current measurement of the process variable.
-     * @param goal        The new goal of the controller.
+     * Tracks an externally generated setpoint instead of the internal trapezoid,
+     * for use with other motion profiles. The internal profile is moved to the
+     * given setpoint so switching back is seamless.
      */
-    public double calculate(double measurement, double goal) {
-        setGoal(goal);
-        return calculate(measurement);
+    public double calculate(double measurement, double position, double velocity, double acceleration, double dt) {
+        m_setpointPosition = position;
+        m_setpointVelocity = velocity;
+        m_setpointAcceleration = acceleration;
+        return calculateToSetpoint(measurement, position, velocity, acceleration, dt);
     }
 
     /**
-     * Returns the next output of the PIDFcontroller.
-     *
-     * @param measurement The current measurement of the process variable.
-     * @param goal        The new goal of the controller.
-     * @param constraints Velocity and acceleration constraints for goal.
+     * Tracks an externally generated setpoint, timing the step since the previous
+     * call.
      */
-    public double calculate(double measurement, TrapezoidProfile.State goal,
-                            TrapezoidProfile.Constraints constraints) {
-        setConstraints(constraints);
-        return calculate(measurement, goal);
+    public double calculate(double measurement, double position, double velocity, double acceleration) {
+        return calculate(measurement, position, velocity, acceleration, measureDt());
+    }
+
+    private double measureDt() {
+        long now = System.nanoTime();
+        double dt = m_lastTimeNanos == 0 ? 0 : (now - m_lastTimeNanos) / 1e9;
+        m_lastTimeNanos = now;
+        return dt;
+    }
+
+    private double calculateToSetpoint(double measurement, double position, double velocity, double acceleration, double dt) {
+        m_positionError = position - measurement;
+        if (dt > 0 && m_hasMeasurement) {
+            m_velocityError = (m_positionError - m_prevError) / dt;
+            m_totalError += dt * m_positionError;
+            m_totalError = Math.max(m_minIntegral, Math.min(m_maxIntegral, m_totalError));
+        } else {
+            m_velocityError = 0;
+        }
+        m_prevError = m_positionError;
+        m_hasMeasurement = true;
+
+        double feedforward = m_feedforward != null
+                ? m_feedforward.calculate(position, velocity, acceleration)
+                : m_kS * Math.signum(velocity) + m_kV * velocity + m_kA * acceleration + m_kG;
+        m_lastOutput = m_kP * m_positionError + m_kI * m_totalError + m_kD * m_velocityError + feedforward;
+        return m_lastOutput;
     }
 
     /**
-     * Reset the previous error, the integral term, and disable the controller.
+     * One step of the wpilib trapezoid profile, planned from the current setpoint
+     * to the goal and sampled at dt. With no time passed the setpoint stays put,
+     * but the time to goal is still brought up to date.
      */
-    public void reset() {
-        m_controller.reset();
+    private void advanceProfile(double dt) {
+        double maxVelocity = m_maxVelocity;
+        double maxAcceleration = m_maxAcceleration;
+
+        double direction = m_setpointPosition > m_goalPosition ? -1 : 1;
+        double initialPosition = m_setpointPosition * direction;
+        double initialVelocity = Math.min(m_setpointVelocity * direction, maxVelocity);
+        double goalPosition = m_goalPosition * direction;
+        double goalVelocity = m_goalVelocity * direction;
+
+        double cutoffBegin = initialVelocity / maxAcceleration;
+        double cutoffDistBegin = cutoffBegin * cutoffBegin * maxAcceleration / 2.0;
+        double cutoffEnd = goalVelocity / maxAcceleration;
+        double cutoffDistEnd = cutoffEnd * cutoffEnd * maxAcceleration / 2.0;
+
+        double fullTrapezoidDist = cutoffDistBegin + (goalPosition - initialPosition) + cutoffDistEnd;
+        double accelerationTime = maxVelocity / maxAcceleration;
+        double fullSpeedDist = fullTrapezoidDist - accelerationTime * accelerationTime * maxAcceleration;
+        if (fullSpeedDist < 0) {
+            accelerationTime = Math.sqrt(fullTrapezoidDist / maxAcceleration);
+            fullSpeedDist = 0;
+        }
+
+        double endAccel = accelerationTime - cutoffBegin;
+        double endFullSpeed = endAccel + fullSpeedDist / maxVelocity;
+        double endDeccel = endFullSpeed + accelerationTime - cutoffEnd;
+        m_timeToGoal = Math.max(0, endDeccel - Math.max(0, dt));
+        if (dt <= 0) return;
+
+        double position, velocity;
+        if (dt < endAccel) {
+            velocity = initialVelocity + dt * maxAcceleration;
+            position = initialPosition + (initialVelocity + dt * maxAcceleration / 2.0) * dt;
+        } else if (dt < endFullSpeed) {
+            velocity = maxVelocity;
+            position = initialPosition + (initialVelocity + endAccel * maxAcceleration / 2.0) * endAccel
+                    + maxVelocity * (dt - endAccel);
+        } else if (dt <= endDeccel) {
+            double timeLeft = endDeccel - dt;
+            velocity = goalVelocity + timeLeft * maxAcceleration;
+            position = goalPosition - (goalVelocity + timeLeft * maxAcceleration / 2.0) * timeLeft;
+        } else {
+            velocity = goalVelocity;
+            position = goalPosition;
+        }
+        m_setpointPosition = position * direction;
+        m_setpointVelocity = velocity * direction;
     }
 
     /**
-     * Reset the previous error and the integral term.
-     *
-     * @param measurement The current measured State of the system.
+     * Reset the previous error and the integral term, and restart timing.
      */
-    public void reset(TrapezoidProfile.State measurement) {
-        m_controller.reset();
-        m_setpoint = measurement;
+    public void reset() {
+        m_prevError = 0;
+        m_totalError = 0;
+        m_positionError = 0;
+        m_velocityError = 0;
+        m_hasMeasurement = false;
+        m_lastTimeNanos = 0;
+        m_timeToGoal = 0;
     }
 
     /**
-     * Reset the previous error and the integral term.
+     * Reset the controller and move the setpoint and goal to the measured state.
      *
      * @param measuredPosition The current measured position of the system.
      * @param measuredVelocity The current measured velocity of the system.
      */
     public void reset(double measuredPosition, double measuredVelocity) {
-        reset(new TrapezoidProfile.State(measuredPosition, measuredVelocity));
+        reset();
+        m_setpointPosition = measuredPosition;
+        m_setpointVelocity = measuredVelocity;
+        m_setpointAcceleration = 0;
+        m_goalPosition = measuredPosition;
+        m_goalVelocity = 0;
     }
 
     /**
-     * Reset the previous error and the integral term.
-     *
-     * @param measuredPosition The current measured position of the system. The velocity is
-     *                         assumed to be zero.
+     * Reset the controller and move the setpoint and goal to the measured
+     * position, at rest.
      */
     public void reset(double measuredPosition) {
         reset(measuredPosition, 0.0);
     }
-
-}
\ No newline at end of file
+}
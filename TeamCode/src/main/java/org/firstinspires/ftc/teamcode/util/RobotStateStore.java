@@ -0,0 +1,152 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.Pose2d;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Hands the robot's pose and lift position from auto to teleop through a memory mapped file, FIRST/robot_state.bin,
+ * so teleop picks up where auto left off, even after the app restarts.
+ *
+ * <p>Auto maps the file with {@link #open} during init and calls {@link #save} in its loop. That is a handful of stores
+ * into mapped memory, at most once every PERIOD_MS. The OS writes the pages out on its own, {@link #flush} only asks it
+ * to hurry and does so on another thread. Records go to two slots in turn, so a write cut off halfway still leaves the
+ * one before it. Every record is marked as a handoff, and {@link #restore} clears the mark once teleop has used it, so
+ * each auto run is picked up once and a later teleop starts from scratch. So does one that starts more than MAX_AGE_S
+ * after auto.
+ */
+@Config
+public class RobotStateStore {
+    public static String FILE = "robot_state.bin";
+    public static double PERIOD_MS = 50;
+    /** A handoff older than this is from another match and is dropped, seconds. */
+    public static double MAX_AGE_S = 180;
+
+    private static final int MAGIC = 0x52535402;
+    private static final int SLOT_SIZE = 64;
+    private static final int SLOT_BASE = 64;
+    private static final int SIZE = SLOT_BASE + 2 * SLOT_SIZE;
+
+    // Offsets within a slot. SEQUENCE is written last, and cleared first, so a slot is only valid once complete.
+    private static final int SEQUENCE = 0, TIME = 8, X = 16, Y = 24, HEADING = 32, LIFT = 40, HANDOFF = 44;
+
+    public static class State {
+        public final long timeMillis;
+        public final Pose2d pose;
+        public final int liftTicks;
+
+        State(long timeMillis, Pose2d pose, int liftTicks) {
+            this.timeMillis = timeMillis;
+            this.pose = pose;
+            this.liftTicks = liftTicks;
+        }
+    }
+
+    private static MappedByteBuffer buffer;
+    private static boolean failed;
+    private static long sequence;
+    private static long lastSave;
+
+    /**
+     * Maps the file, if it isn't already. Auto calls it during init, {@link #save} doesn't map it from the loop.
+     */
+    public static synchronized boolean open() {
+        if (buffer != null) return true;
+        if (failed) return false;
+        File file = new File(AppUtil.FIRST_FOLDER, FILE);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // The mapping stays valid after the channel is closed.
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+        } catch (IOException e) {
+            failed = true;
+            Log.e("RobotStateStore", "Could not map " + file, e);
+            return false;
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            for (int i = 0; i < SIZE; i += 8) buffer.putLong(i, 0);
+            buffer.putInt(0, MAGIC);
+        }
+        sequence = Math.max(buffer.getLong(SLOT_BASE + SEQUENCE), buffer.getLong(SLOT_BASE + SLOT_SIZE + SEQUENCE));
+        return true;
+    }
+
+    /**
+     * Records the state for teleop to pick up, if PERIOD_MS has passed since the last record. Auto only.
+     */
+    public static void save(Pose2d pose, int liftTicks) {
+        long now = System.nanoTime();
+        if (now - lastSave < PERIOD_MS * 1e6 || buffer == null) return;
+        lastSave = now;
+
+        long record = ++sequence;
+        int slot = SLOT_BASE + (int) (record % 2) * SLOT_SIZE;
+        buffer.putLong(slot + SEQUENCE, 0);
+        buffer.putLong(slot + TIME, System.currentTimeMillis());
+        buffer.putDouble(slot + X, pose.position.x);
+        buffer.putDouble(slot + Y, pose.position.y);
+        buffer.putDouble(slot + HEADING, pose.heading.toDouble());
+        buffer.putInt(slot + LIFT, liftTicks);
+        buffer.putInt(slot + HANDOFF, 1);
+        buffer.putLong(slot + SEQUENCE, record);
+    }
+
+    /**
+     * Saves right away, ignoring PERIOD_MS, and has the file written out in the background. For stop().
+     */
+    public static void flush(Pose2d pose, int liftTicks) {
+        lastSave = 0;
+        save(pose, liftTicks);
+        if (buffer != null) writeOut();
+    }
+
+    private static void writeOut() {
+        Thread thread = new Thread(() -> buffer.force(), "RobotStateStore");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Takes the state auto handed off and clears the handoff, so it is only restored once.
+     *
+     * @return the newest complete record, or null if auto hasn't handed one off since the last restore or it is older
+     * than MAX_AGE_S
+     */
+    public static synchronized State restore() {
+        if (!open()) return null;
+        int newest = -1;
+        long newestSequence = 0;
+        for (int i = 0; i < 2; i++) {
+            long record = buffer.getLong(SLOT_BASE + i * SLOT_SIZE + SEQUENCE);
+            if (record > newestSequence) {
+                newestSequence = record;
+                newest = SLOT_BASE + i * SLOT_SIZE;
+            }
+        }
+        if (newest < 0 || buffer.getInt(newest + HANDOFF) == 0) {
+            Log.i("RobotStateStore", "No state handed off from auto, not restoring");
+            return null;
+        }
+        // Both slots, so the older record isn't picked up next time instead.
+        for (int i = 0; i < 2; i++) buffer.putInt(SLOT_BASE + i * SLOT_SIZE + HANDOFF, 0);
+        writeOut();
+
+        long time = buffer.getLong(newest + TIME);
+        double age = (System.currentTimeMillis() - time) / 1000.0;
+        if (age < 0 || age > MAX_AGE_S) {
+            Log.i("RobotStateStore", "Handed off state is " + age + " s old, not restoring");
+            return null;
+        }
+        State state = new State(time,
+                new Pose2d(buffer.getDouble(newest + X), buffer.getDouble(newest + Y), buffer.getDouble(newest + HEADING)),
+                buffer.getInt(newest + LIFT));
+        Log.i("RobotStateStore", "Restoring state from " + age + " s ago");
+        return state;
+    }
+}
@@ -0,0 +1,48 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.arcrobotics.ftclib.command.CommandBase;
+import com.arcrobotics.ftclib.command.Subsystem;
+
+/**
+ * Sets one or more servos and, with WAIT_FOR_ARRIVAL, finishes once all of them are predicted to be in place.
+ */
+@Config
+public class ServoMoveCommand extends CommandBase implements EstimatedCompletion {
+    /**
+     * Off until the servo speeds are measured with the Servo Travel Tuner; until then the command finishes right away
+     * and the sequences keep their fixed waits. Take those out when turning this on.
+     */
+    public static boolean WAIT_FOR_ARRIVAL = false;
+
+    private final Runnable move;
+    private final TimedServo[] servos;
+
+    public ServoMoveCommand(Runnable move, TimedServo... servos) {
+        this.move = move;
+        this.servos = servos;
+    }
+
+    public ServoMoveCommand(Runnable move, Subsystem requirement, TimedServo... servos) {
+        this(move, servos);
+        addRequirements(requirement);
+    }
+
+    @Override
+    public void initialize() {
+        move.run();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return getTimeRemaining() == 0;
+    }
+
+    @Override
+    public double getTimeRemaining() {
+        if (!WAIT_FOR_ARRIVAL) return 0;
+        double remaining = 0;
+        for (TimedServo servo : servos) remaining = Math.max(remaining, servo.getTimeRemaining());
+        return remaining;
+    }
+}
@@ -0,0 +1,126 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Measures how fast a servo turns by sweeping it back and forth and timing each sweep against a position
+ * feedback signal, for example the analog output of an Axon. Positions are in the 0 to 1 servo range.
+ */
+public class ServoTravelCalibrator {
+    public static class Result {
+        public final int sweeps;
+        public final double meanSeconds, maxSeconds;
+        /** Speed over the slowest sweep, which is what the travel model should use. */
+        public final double degreesPerSecond;
+
+        Result(int sweeps, double meanSeconds, double maxSeconds, double degreesPerSecond) {
+            this.sweeps = sweeps;
+            this.meanSeconds = meanSeconds;
+            this.maxSeconds = maxSeconds;
+            this.degreesPerSecond = degreesPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d sweeps, mean %.0f ms, max %.0f ms, %.0f deg/s",
+                    sweeps, meanSeconds * 1000, maxSeconds * 1000, degreesPerSecond);
+        }
+    }
+
+    /**
+     * Stands in for a real servo and its feedback so the calibrator can be tried without hardware. It moves at
+     * a known speed, so a calibration run should report that speed back.
+     */
+    public static class SimulatedServo implements DoubleConsumer, DoubleSupplier {
+        private final ServoTravelModel model;
+
+        public SimulatedServo(double range, double degreesPerSecond) {
+            model = new ServoTravelModel(range, () -> degreesPerSecond);
+        }
+
+        @Override
+        public void accept(double position) {
+            model.command(position);
+        }
+
+        @Override
+        public double getAsDouble() {
+            double position = model.getPosition();
+            return Double.isNaN(position) ? 0 : position;
+        }
+    }
+
+    private final DoubleConsumer servo;
+    private final DoubleSupplier feedback;
+    private final double range;
+    private double tolerance = 0.01;
+    private double timeout = 3;
+
+    /**
+     * @param servo    sets the servo position
+     * @param feedback measured servo position
+     * @param range    degrees the servo turns over its full range
+     */
+    public ServoTravelCalibrator(DoubleConsumer servo, DoubleSupplier feedback, double range) {
+        this.servo = servo;
+        this.feedback = feedback;
+        this.range = range;
+    }
+
+    /**
+     * @param tolerance how close the feedback has to get to count as arrived
+     * @param timeout   seconds before a sweep is given up on
+     */
+    public void setTolerance(double tolerance, double timeout) {
+        this.tolerance = tolerance;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sweeps between from and to the given number of times, alternating direction. Blocks until done or until
+     * active turns false.
+     *
+     * @return the result, or null if no sweep finished
+     */
+    public Result run(double from, double to, int sweeps, BooleanSupplier active) {
+        servo.accept(from);
+        if (!waitForArrival(from, active)) return null;
+        pause(0.25, active);
+
+        double total = 0, slowest = 0;
+        int done = 0;
+        for (int i = 0; i < sweeps && active.getAsBoolean(); i++) {
+            double target = i % 2 == 0 ? to : from;
+            long start = System.nanoTime();
+            servo.accept(target);
+            if (!waitForArrival(target, active)) continue;
+            double seconds = (System.nanoTime() - start) / 1e9;
+            // Let it finish the last bit of travel so the next sweep starts from rest at the end point.
+            pause(0.25, active);
+            total += seconds;
+            slowest = Math.max(slowest, seconds);
+            done++;
+        }
+        if (done == 0) return null;
+        // Arrival is detected tolerance short of the target, so only that much distance was timed.
+        return new Result(done, total / done, slowest, (Math.abs(to - from) - tolerance) * range / slowest);
+    }
+
+    private static void pause(double seconds, BooleanSupplier active) {
+        long start = System.nanoTime();
+        while (active.getAsBoolean() && (System.nanoTime() - start) / 1e9 < seconds) {
+            Thread.yield();
+        }
+    }
+
+    private boolean waitForArrival(double target, BooleanSupplier active) {
+        long start = System.nanoTime();
+        while (active.getAsBoolean() && (System.nanoTime() - start) / 1e9 < timeout) {
+            if (Math.abs(feedback.getAsDouble() - target) <= tolerance) return true;
+            Thread.yield();
+        }
+        return false;
+    }
+}
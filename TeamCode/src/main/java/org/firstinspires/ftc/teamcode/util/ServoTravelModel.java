@@ -0,0 +1,77 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Estimates where a servo without feedback is, assuming it slews to the last commanded position at a constant
+ * speed. Positions are in the usual 0 to 1 servo range.
+ */
+public class ServoTravelModel {
+    private final double range;
+    private final DoubleSupplier degreesPerSecond;
+
+    private double start = Double.NaN;
+    private double target = Double.NaN;
+    private long startNanos;
+
+    /**
+     * @param range            degrees the servo turns over its full 0 to 1 range
+     * @param degreesPerSecond how fast it turns
+     */
+    public ServoTravelModel(double range, DoubleSupplier degreesPerSecond) {
+        this.range = range;
+        this.degreesPerSecond = degreesPerSecond;
+    }
+
+    public void command(double position) {
+        command(position, System.nanoTime());
+    }
+
+    /**
+     * Starts a move from wherever the servo is estimated to be. The first command assumes the worst case, the
+     * far end of the range.
+     */
+    public void command(double position, long nowNanos) {
+        position = Math.max(0, Math.min(1, position));
+        start = Double.isNaN(target) ? (position >= 0.5 ? 0 : 1) : getPosition(nowNanos);
+        target = position;
+        startNanos = nowNanos;
+    }
+
+    public double getTarget() {
+        return target;
+    }
+
+    public double getPosition() {
+        return getPosition(System.nanoTime());
+    }
+
+    public double getPosition(long nowNanos) {
+        if (Double.isNaN(target)) return Double.NaN;
+        double travelled = getRate() * (nowNanos - startNanos) / 1e9;
+        double distance = Math.abs(target - start);
+        return travelled >= distance ? target : start + Math.signum(target - start) * travelled;
+    }
+
+    /**
+     * @return seconds the current move takes in total
+     */
+    public double getTravelTime() {
+        return Double.isNaN(target) ? 0 : Math.abs(target - start) / getRate();
+    }
+
+    public double getElapsed(long nowNanos) {
+        return (nowNanos - startNanos) / 1e9;
+    }
+
+    /**
+     * @return seconds until the servo is estimated to reach its target
+     */
+    public double getTimeRemaining(long nowNanos) {
+        return Math.max(0, getTravelTime() - getElapsed(nowNanos));
+    }
+
+    private double getRate() {
+        return Math.max(1e-6, degreesPerSecond.getAsDouble() / range);
+    }
+}
@@ -0,0 +1,64 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * Decides when a mechanism has actually arrived: the position error and the velocity both have to stay
+ * inside their tolerances for a dwell time, so passing through the window at speed doesn't count. Gives up
+ * after a timeout so a mechanism that stalls just outside the window can't hang a command group.
+ */
+public class SettleDetector {
+    private double positionTolerance, velocityTolerance;
+    private long dwellNanos, timeoutNanos;
+
+    private long startNanos, insideSinceNanos = -1;
+    private boolean settled, timedOut;
+
+    public SettleDetector(double positionTolerance, double velocityTolerance, double dwellMs, double timeoutMs) {
+        setTolerances(positionTolerance, velocityTolerance, dwellMs, timeoutMs);
+        start();
+    }
+
+    public void setTolerances(double positionTolerance, double velocityTolerance, double dwellMs, double timeoutMs) {
+        this.positionTolerance = positionTolerance;
+        this.velocityTolerance = velocityTolerance;
+        this.dwellNanos = (long) (dwellMs * 1e6);
+        this.timeoutNanos = (long) (timeoutMs * 1e6);
+    }
+
+    /**
+     * Call when a new target is set.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        insideSinceNanos = -1;
+        settled = false;
+        timedOut = false;
+    }
+
+    /**
+     * @return whether the mechanism is settled, or has timed out trying
+     */
+    public boolean update(double error, double velocity) {
+        long now = System.nanoTime();
+        if (Math.abs(error) < positionTolerance && Math.abs(velocity) < velocityTolerance) {
+            if (insideSinceNanos < 0) insideSinceNanos = now;
+            settled = now - insideSinceNanos >= dwellNanos;
+        } else {
+            insideSinceNanos = -1;
+            settled = false;
+        }
+        timedOut = !settled && now - startNanos >= timeoutNanos;
+        return settled || timedOut;
+    }
+
+    public boolean isSettled() {
+        return settled;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public boolean isDone() {
+        return settled || timedOut;
+    }
+}
@@ -0,0 +1,49 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.arcrobotics.ftclib.hardware.SimpleServo;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A servo that keeps a {@link ServoTravelModel} of itself, so commands can wait for it to arrive instead of a
+ * fixed time.
+ */
+@Config
+public class TimedServo extends SimpleServo implements EstimatedCompletion {
+    /** Added to every move that goes anywhere, for the linkage to settle. */
+    public static double SETTLE_MS = 20;
+
+    private ServoTravelModel model;
+
+    /**
+     * @param degreesPerSecond measured with the Servo Travel Tuner
+     */
+    public TimedServo(HardwareMap hw, String name, double minAngle, double maxAngle, DoubleSupplier degreesPerSecond) {
+        super(hw, name, minAngle, maxAngle);
+        model = new ServoTravelModel(maxAngle - minAngle, degreesPerSecond);
+    }
+
+    @Override
+    public void setPosition(double position) {
+        super.setPosition(position);
+        // The super constructor may set a position before the model exists.
+        if (model != null) model.command(position);
+    }
+
+    public ServoTravelModel getModel() {
+        return model;
+    }
+
+    @Override
+    public double getTimeRemaining() {
+        long now = System.nanoTime();
+        double travel = model.getTravelTime();
+        return travel == 0 ? 0 : Math.max(0, travel + SETTLE_MS / 1000 - model.getElapsed(now));
+    }
+
+    public boolean isArrived() {
+        return getTimeRemaining() == 0;
+    }
+}
@@ -0,0 +1,226 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.AccelConstraint;
+import com.acmerobotics.roadrunner.Action;
+import com.acmerobotics.roadrunner.Pose2d;
+import com.acmerobotics.roadrunner.ProfileAccelConstraint;
+import com.acmerobotics.roadrunner.SequentialAction;
+import com.acmerobotics.roadrunner.SleepAction;
+import com.acmerobotics.roadrunner.TimeTrajectory;
+import com.acmerobotics.roadrunner.TimeTurn;
+import com.acmerobotics.roadrunner.TrajectoryActionBuilder;
+import com.acmerobotics.roadrunner.TranslationalVelConstraint;
+import com.acmerobotics.roadrunner.VelConstraint;
+import com.acmerobotics.roadrunner.Vector2d;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.roadrunner.MecanumDrive;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps built single moves (start pose to end pose) so asking for the same move again skips trajectory
+ * generation. Poses are snapped to POSITION_STEP inches and HEADING_STEP degrees, so moves that start a little
+ * apart share an entry, and the trajectory is built from the snapped start; the follower takes up the difference.
+ *
+ * <p>Only the keys are saved, least recently used first, to FIRST/trajectory_cache.txt. {@link #warm} rebuilds
+ * them during init so the moves used last time are ready before start.
+ */
+@Config
+public class TrajectoryCache {
+    public static int CAPACITY = 64;
+    public static double POSITION_STEP = 0.5;
+    public static double HEADING_STEP = 1;
+    public static String FILE = "trajectory_cache.txt";
+
+    public enum HeadingMode {CONSTANT, LINEAR, SPLINE}
+
+    /**
+     * The prebuilt pieces of a path, turned into fresh actions each time it runs.
+     */
+    public static class Plan {
+        private final List<Object> parts;
+
+        public Plan(List<Object> parts) {
+            this.parts = parts;
+        }
+
+        public static Plan of(Action built) {
+            return new Plan(flatten(built, new ArrayList<>()));
+        }
+
+        public Action toAction(MecanumDrive drive) {
+            List<Action> actions = new ArrayList<>(parts.size());
+            for (Object part : parts) {
+                if (part instanceof TimeTrajectory) actions.add(drive.new FollowTrajectoryAction((TimeTrajectory) part));
+                else if (part instanceof TimeTurn) actions.add(drive.new TurnAction((TimeTurn) part));
+                else actions.add(new SleepAction((Double) part));
+            }
+            return actions.size() == 1 ? actions.get(0) : new SequentialAction(actions);
+        }
+
+        /**
+         * @return where the path ends, taken from its last trajectory or turn, or start if it only waits
+         */
+        public Pose2d endPose(Pose2d start) {
+            Pose2d end = start;
+            for (Object part : parts) {
+                if (part instanceof TimeTrajectory) end = ((TimeTrajectory) part).path.end(1).value();
+                else if (part instanceof TimeTurn) end = ((TimeTurn) part).get(((TimeTurn) part).duration).value();
+            }
+            return end;
+        }
+    }
+
+    private static final Map<String, Plan> plans = new LinkedHashMap<String, Plan>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Plan> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private static boolean warmed;
+    private static int hits, misses;
+
+    public static Action get(MecanumDrive drive, Pose2d start, Vector2d end, double endHeading, HeadingMode mode) {
+        return get(drive, start, end, endHeading, mode, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Returns an action for the move, building it only if it isn't cached. NaN constraints use the drive defaults.
+     *
+     * @param endHeading radians, ignored for CONSTANT
+     */
+    public static synchronized Action get(MecanumDrive drive, Pose2d start, Vector2d end, double endHeading, HeadingMode mode,
+                                          double maxVel, double minAccel, double maxAccel) {
+        String key = key(start, end, endHeading, mode, maxVel, minAccel, maxAccel);
+        Plan plan = plans.get(key);
+        if (plan == null) {
+            misses++;
+            long begin = System.nanoTime();
+            plan = build(drive, key);
+            plans.put(key, plan);
+            Log.i("TrajectoryCache", "Built " + key + " in " + (System.nanoTime() - begin) / 1e6 + " ms");
+        } else {
+            hits++;
+        }
+        return plan.toAction(drive);
+    }
+
+    private static String key(Pose2d start, Vector2d end, double endHeading, HeadingMode mode,
+                              double maxVel, double minAccel, double maxAccel) {
+        return position(start.position.x) + "," + position(start.position.y) + "," + heading(start.heading.toDouble()) + ","
+                + position(end.x) + "," + position(end.y) + "," + (mode == HeadingMode.CONSTANT ? 0 : heading(endHeading)) + ","
+                + mode + "," + maxVel + "," + minAccel + "," + maxAccel + "," + signature();
+    }
+
+    private static double position(double value) {
+        return Math.round(value / POSITION_STEP) * POSITION_STEP;
+    }
+
+    private static double heading(double radians) {
+        double degrees = Math.round(Math.toDegrees(radians) / HEADING_STEP) * HEADING_STEP;
+        return ((degrees % 360) + 360) % 360;
+    }
+
+    /**
+     * Ties entries to the drive constraints they were built with, so retuning them misses instead of running stale
+     * profiles.
+     */
+    public static String signature() {
+        MecanumDrive.Params p = MecanumDrive.PARAMS;
+        return p.maxWheelVel + ";" + p.minProfileAccel + ";" + p.maxProfileAccel + ";" + p.maxAngVel + ";" + p.maxAngAccel;
+    }
+
+    private static Plan build(MecanumDrive drive, String key) {
+        String[] f = key.split(",");
+        Pose2d start = new Pose2d(Double.parseDouble(f[0]), Double.parseDouble(f[1]), Math.toRadians(Double.parseDouble(f[2])));
+        Vector2d end = new Vector2d(Double.parseDouble(f[3]), Double.parseDouble(f[4]));
+        double heading = Math.toRadians(Double.parseDouble(f[5]));
+        double maxVel = Double.parseDouble(f[7]), minAccel = Double.parseDouble(f[8]), maxAccel = Double.parseDouble(f[9]);
+        VelConstraint vel = Double.isNaN(maxVel) ? null : new TranslationalVelConstraint(maxVel);
+        AccelConstraint accel = Double.isNaN(maxAccel) ? null
+                : new ProfileAccelConstraint(Double.isNaN(minAccel) ? -maxAccel : minAccel, maxAccel);
+
+        TrajectoryActionBuilder builder = drive.actionBuilder(start);
+        switch (HeadingMode.valueOf(f[6])) {
+            case CONSTANT:
+                builder = builder.strafeToConstantHeading(end, vel, accel);
+                break;
+            case LINEAR:
+                builder = builder.strafeToLinearHeading(end, heading, vel, accel);
+                break;
+            case SPLINE:
+                builder = builder.strafeToSplineHeading(end, heading, vel, accel);
+                break;
+        }
+        return Plan.of(builder.build());
+    }
+
+    /**
+     * Splits a built path back into the trajectories, turns and waits it is made of.
+     */
+    private static List<Object> flatten(Action action, List<Object> parts) {
+        if (action instanceof MecanumDrive.FollowTrajectoryAction) {
+            parts.add(((MecanumDrive.FollowTrajectoryAction) action).timeTrajectory);
+        } else if (action instanceof MecanumDrive.TurnAction) {
+            parts.add(((MecanumDrive.TurnAction) action).turn);
+        } else if (action instanceof SleepAction) {
+            parts.add(((SleepAction) action).getDt());
+        } else if (action instanceof SequentialAction) {
+            for (Action a : ((SequentialAction) action).getInitialActions()) flatten(a, parts);
+        } else {
+            throw new IllegalArgumentException("Can't prebuild " + action.getClass().getSimpleName());
+        }
+        return parts;
+    }
+
+    /**
+     * Rebuilds the moves saved by the last run, once per app start. Keys built under other drive constraints are
+     * dropped.
+     */
+    public static synchronized void warm(MecanumDrive drive) {
+        if (warmed) return;
+        warmed = true;
+        File file = new File(AppUtil.FIRST_FOLDER, FILE);
+        if (!file.exists()) return;
+        String signature = signature();
+        long begin = System.nanoTime();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String key;
+            while ((key = reader.readLine()) != null) {
+                if (key.isEmpty() || !key.endsWith("," + signature) || plans.containsKey(key)) continue;
+                try {
+                    plans.put(key, build(drive, key));
+                } catch (RuntimeException e) {
+                    Log.w("TrajectoryCache", "Skipping " + key, e);
+                }
+            }
+        } catch (IOException e) {
+            Log.e("TrajectoryCache", "Could not read " + file, e);
+        }
+        Log.i("TrajectoryCache", "Warmed " + plans.size() + " moves in " + (System.nanoTime() - begin) / 1e6 + " ms");
+    }
+
+    /**
+     * Writes the cached keys, least recently used first, so warming keeps the same eviction order.
+     */
+    public static synchronized void save() {
+        File file = new File(AppUtil.FIRST_FOLDER, FILE);
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            for (String key : plans.keySet()) writer.println(key);
+        } catch (IOException e) {
+            Log.e("TrajectoryCache", "Could not write " + file, e);
+        }
+        Log.i("TrajectoryCache", plans.size() + " moves, " + hits + " hits, " + misses + " misses");
+    }
+}
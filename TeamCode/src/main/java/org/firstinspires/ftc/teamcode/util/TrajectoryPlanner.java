@@ -0,0 +1,137 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.acmerobotics.dashboard.canvas.Canvas;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+import com.acmerobotics.roadrunner.Action;
+import com.acmerobotics.roadrunner.Pose2d;
+import com.acmerobotics.roadrunner.Vector2d;
+import org.firstinspires.ftc.teamcode.roadrunner.MecanumDrive;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Builds trajectories on a background thread so the scheduler loop never waits on trajectory generation.
+ * {@link #plan} returns right away with an action that holds the drive still until its trajectory is ready.
+ */
+@Config
+public class TrajectoryPlanner {
+    /** How far the robot may have moved while planning before the move is planned again from where it is now. */
+    public static double REPLAN_DISTANCE = 1.5;
+    public static double REPLAN_HEADING = 3;
+    public static int MAX_REPLANS = 2;
+
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "TrajectoryPlanner");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    public static PlannedAction plan(MecanumDrive drive, Vector2d end, double endHeading, TrajectoryCache.HeadingMode mode) {
+        return new PlannedAction(drive, null, true, from -> TrajectoryCache.get(drive, from, end, endHeading, mode));
+    }
+
+    /**
+     * Plans from a fixed start pose instead of wherever the robot is when the action starts, for moves that follow
+     * another one. Planning starts right away and the start is never re-anchored.
+     */
+    public static PlannedAction plan(MecanumDrive drive, Pose2d start, Vector2d end, double endHeading, TrajectoryCache.HeadingMode mode) {
+        return new PlannedAction(drive, start, false, from -> TrajectoryCache.get(drive, from, end, endHeading, mode));
+    }
+
+    /**
+     * Plans any path from where the robot is expected to be, starting right away, and plans it again from the actual
+     * pose if the robot isn't there when the action starts.
+     */
+    public static PlannedAction plan(MecanumDrive drive, Pose2d expectedStart, Function<Pose2d, Action> path) {
+        return new PlannedAction(drive, expectedStart, true, path);
+    }
+
+    /**
+     * Starts planning as soon as it is created if the start is known, otherwise the first time it runs, from where
+     * the robot is then. Runs the trajectory once it is ready, re-planning first if the robot drifted away from the
+     * start it was planned from.
+     */
+    public static class PlannedAction implements Action, EstimatedCompletion {
+        private final MecanumDrive drive;
+        private final boolean reanchor;
+        private final Function<Pose2d, Action> path;
+        private Pose2d start;
+        private Future<Action> future;
+        private Action action;
+        private int replans;
+        private long requestNanos;
+
+        private PlannedAction(MecanumDrive drive, Pose2d start, boolean reanchor, Function<Pose2d, Action> path) {
+            this.drive = drive;
+            this.reanchor = reanchor;
+            this.path = path;
+            if (start != null) submit(start);
+        }
+
+        private void submit(Pose2d from) {
+            start = from;
+            requestNanos = System.nanoTime();
+            future = worker.submit(() -> path.apply(from));
+        }
+
+        public boolean isReady() {
+            return action != null || future != null && future.isDone();
+        }
+
+        @Override
+        public boolean run(@NonNull TelemetryPacket p) {
+            if (action == null) {
+                drive.updatePoseEstimate();
+                if (future == null) submit(drive.pose);
+                if (!future.isDone()) {
+                    drive.setDrivePowers(0, 0, 0);
+                    return true;
+                }
+                Action planned;
+                try {
+                    planned = future.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Log.e("TrajectoryPlanner", "Planning failed", e);
+                    return false;
+                }
+                if (reanchor && drifted()) {
+                    if (replans < MAX_REPLANS) {
+                        replans++;
+                        submit(drive.pose);
+                        return true;
+                    }
+                    Log.w("TrajectoryPlanner", "Still " + drive.pose.position.minus(start.position).norm()
+                            + " in off the planned start after " + replans + " replans, running it anyway");
+                }
+                Log.i("TrajectoryPlanner", "Planned in " + (System.nanoTime() - requestNanos) / 1e6 + " ms, " + replans + " replans");
+                action = planned;
+            }
+            return action.run(p);
+        }
+
+        private boolean drifted() {
+            double heading = Math.abs(drive.pose.heading.minus(start.heading));
+            return drive.pose.position.minus(start.position).norm() > REPLAN_DISTANCE
+                    || Math.toDegrees(heading) > REPLAN_HEADING;
+        }
+
+        @Override
+        public void preview(@NonNull Canvas c) {
+            if (action != null) action.preview(c);
+        }
+
+        @Override
+        public double getTimeRemaining() {
+            if (action instanceof EstimatedCompletion) return ((EstimatedCompletion) action).getTimeRemaining();
+            return Double.POSITIVE_INFINITY;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.firstinspires.ftc.teamcode.util.filters;
+
+/**
+ * A scalar kalman filter for angles that wrap around, such as the orientation of a sample which is the
+ * same at 0 and 180 degrees. Innovations are taken the short way around the circle, so a measurement of
+ * 178 after an estimate of 2 moves the estimate down through 0 instead of across the whole range.
+ */
+public class AngleKalmanFilter implements Filter {
+    private final double period;
+    private final double Q;
+    private final double R;
+    private double P;
+    private double x;
+    private boolean initialized = false;
+
+    /**
+     * @param period the angle at which values wrap back to 0, 180 for a sample's orientation
+     * @param Q      Model covariance, how far the true angle is expected to move between updates
+     * @param R      Sensor covariance
+     */
+    public AngleKalmanFilter(double period, double Q, double R) {
+        this.period = period;
+        this.Q = Q;
+        this.R = R;
+    }
+
+    @Override
+    public double estimate(double measurement) {
+        if (!initialized) {
+            x = wrap(measurement);
+            P = R;
+            initialized = true;
+            return x;
+        }
+        P += Q;
+        double K = P / (P + R);
+        x = wrap(x + K * difference(measurement, x));
+        P = (1 - K) * P;
+        return x;
+    }
+
+    /**
+     * @return the shortest signed distance from b to a, in [-period / 2, period / 2)
+     */
+    public double difference(double a, double b) {
+        double d = (a - b) % period;
+        if (d < -period / 2) d += period;
+        else if (d >= period / 2) d -= period;
+        return d;
+    }
+
+    private double wrap(double angle) {
+        double a = angle % period;
+        return a < 0 ? a + period : a;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getCovariance() {
+        return P;
+    }
+
+    public void reset() {
+        initialized = false;
+    }
+}
@@ -0,0 +1,88 @@
+package org.firstinspires.ftc.teamcode.util.localization;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.ftc.FlightRecorder;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.Position;
+import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
+import org.firstinspires.ftc.teamcode.roadrunner.messages.FixMessage;
+import org.firstinspires.ftc.vision.VisionPortal;
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
+
+import java.util.List;
+
+/**
+ * Feeds robot poses from field AprilTags into a {@link PoseFusion}, timestamped with the frame they were seen in.
+ * Camera pose is set as in the SDK's ConceptAprilTagLocalization sample.
+ */
+@Config
+public class AprilTagRelocalizer {
+    public static String CAMERA = "Webcam 2";
+    /** Camera position on the robot, inches, +x right, +y forward, +z up. */
+    public static double CAMERA_X = 0;
+    public static double CAMERA_Y = 0;
+    public static double CAMERA_Z = 0;
+    /** Degrees, a pitch of -90 is level. */
+    public static double CAMERA_YAW = 0;
+    public static double CAMERA_PITCH = -90;
+    public static double CAMERA_ROLL = 0;
+    /** Rotation from the SDK field frame to the one the autos are written in, degrees. */
+    public static double FIELD_ROTATION = 0;
+    /** Tags further than this give poses too noisy to use, inches. */
+    public static double MAX_RANGE = 60;
+
+    private final AprilTagProcessor processor;
+    private final VisionPortal portal;
+    private long lastFrame;
+
+    /**
+     * @return null if the robot has no camera named CAMERA
+     */
+    public static AprilTagRelocalizer create(HardwareMap hardwareMap) {
+        WebcamName webcam = hardwareMap.tryGet(WebcamName.class, CAMERA);
+        return webcam == null ? null : new AprilTagRelocalizer(webcam);
+    }
+
+    public AprilTagRelocalizer(WebcamName webcam) {
+        processor = new AprilTagProcessor.Builder()
+                .setOutputUnits(DistanceUnit.INCH, AngleUnit.RADIANS)
+                .setCameraPose(new Position(DistanceUnit.INCH, CAMERA_X, CAMERA_Y, CAMERA_Z, 0),
+                        new YawPitchRollAngles(AngleUnit.DEGREES, CAMERA_YAW, CAMERA_PITCH, CAMERA_ROLL, 0))
+                .build();
+        portal = new VisionPortal.Builder()
+                .setCamera(webcam)
+                .addProcessor(processor)
+                .enableLiveView(false)
+                .build();
+    }
+
+    /**
+     * Passes on the detections from any frame not seen yet. Cheap to call every loop.
+     */
+    public void update(PoseFusion fusion) {
+        List<AprilTagDetection> detections = processor.getFreshDetections();
+        if (detections == null) return;
+        double rotation = Math.toRadians(FIELD_ROTATION);
+        double cos = Math.cos(rotation), sin = Math.sin(rotation);
+        for (AprilTagDetection detection : detections) {
+            if (detection.metadata == null || detection.robotPose == null || detection.ftcPose.range > MAX_RANGE) continue;
+            if (detection.frameAcquisitionNanoTime < lastFrame) continue;
+            lastFrame = detection.frameAcquisitionNanoTime;
+
+            double fieldX = detection.robotPose.getPosition().x, fieldY = detection.robotPose.getPosition().y;
+            // The SDK's robot faces +y at a yaw of 0, roadrunner's faces +x.
+            double heading = detection.robotPose.getOrientation().getYaw(AngleUnit.RADIANS) + Math.PI / 2 + rotation;
+            double x = cos * fieldX - sin * fieldY, y = sin * fieldX + cos * fieldY;
+            boolean accepted = fusion.addFix(detection.frameAcquisitionNanoTime, x, y, AngleUnit.normalizeRadians(heading));
+            FlightRecorder.write("RELOCALIZATION_FIX", new FixMessage(detection.frameAcquisitionNanoTime, x, y, heading, accepted));
+        }
+    }
+
+    public void close() {
+        portal.close();
+    }
+}
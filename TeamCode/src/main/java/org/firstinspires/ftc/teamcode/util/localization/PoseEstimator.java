@@ -0,0 +1,167 @@
+package org.firstinspires.ftc.teamcode.util.localization;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.Pose2d;
+import com.acmerobotics.roadrunner.PoseVelocity2d;
+import com.acmerobotics.roadrunner.Vector2d;
+import com.acmerobotics.roadrunner.ftc.FlightRecorder;
+import com.acmerobotics.roadrunner.ftc.GoBildaPinpointDriverRR;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import org.firstinspires.ftc.teamcode.roadrunner.messages.PoseMessage;
+
+import static org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive.PARAMS;
+
+/**
+ * The one owner of the Pinpoint. Sets it up once, reads it at most once a loop and keeps the result as a
+ * {@link Snapshot} of the fused pose and velocity, so everything that needs the pose reads the same numbers.
+ * Construction doesn't wait for the pinpoint to calibrate, see {@link #poll}.
+ *
+ * <p>Roadrunner reads it through {@link org.firstinspires.ftc.teamcode.roadrunner.PinpointDrive} and Voyager through
+ * {@link org.firstinspires.ftc.teamcode.util.pathfinder.PinpointOdometry}. Relocalization fixes go to {@link #fusion}.
+ */
+@Config
+public class PoseEstimator {
+    /** Corrections are only written to the pinpoint this slow, so it barely moves between the read and the write. */
+    public static double WRITE_BACK_VEL = 1;
+    public static double WRITE_BACK_ANG_VEL = Math.toRadians(5);
+    /** How long to wait for the pinpoint to finish calibrating before using it anyway. */
+    public static double CALIBRATION_TIMEOUT_MS = 1000;
+    /** Logs every raw reading as ODOMETRY_POSE, so a run can be fed back through PoseFusion. Allocates each loop. */
+    public static boolean LOG_ODOMETRY = false;
+
+    private static final double MM_PER_INCH = 25.4;
+
+    public enum State {CALIBRATING, READY, FAULT}
+
+    /**
+     * Pose and velocity at one reading. Velocity is as the pinpoint reports it. There is one per estimator and it is
+     * overwritten by every reading, so copy out what has to outlive the loop.
+     */
+    public static class Snapshot {
+        public long nanos;
+        public double x, y, heading;
+        public double vx, vy, omega;
+
+        void set(long nanos, double x, double y, double heading, double vx, double vy, double omega) {
+            this.nanos = nanos;
+            this.x = x;
+            this.y = y;
+            this.heading = heading;
+            this.vx = vx;
+            this.vy = vy;
+            this.omega = omega;
+        }
+
+        public Pose2d pose() {
+            return new Pose2d(x, y, heading);
+        }
+
+        public PoseVelocity2d velocity() {
+            return new PoseVelocity2d(new Vector2d(vx, vy), omega);
+        }
+    }
+
+    public final GoBildaPinpointDriverRR odometry;
+    public final PoseFusion fusion = new PoseFusion();
+    private final Pose2d initialPose;
+    private final long calibrationStart;
+    private State state = State.CALIBRATING;
+    private final Snapshot snapshot = new Snapshot();
+    private long loop, readLoop = -1;
+
+    public PoseEstimator(HardwareMap hardwareMap, Pose2d initialPose) {
+        odometry = hardwareMap.get(GoBildaPinpointDriverRR.class, "odo");
+        odometry.setOffsets(PARAMS.xOffset, PARAMS.yOffset);
+        odometry.setEncoderDirections(PARAMS.xDirection, PARAMS.yDirection);
+        odometry.setEncoderResolution(PARAMS.resolution);
+        Log.d("PoseEstimator", "Initializing Odometry");
+        odometry.resetPosAndIMU();
+        this.initialPose = initialPose;
+        calibrationStart = System.nanoTime();
+        fusion.addOdometry(calibrationStart, initialPose.position.x, initialPose.position.y, initialPose.heading.toDouble());
+        snapshot.set(calibrationStart, initialPose.position.x, initialPose.position.y,
+                initialPose.heading.toDouble(), 0, 0, 0);
+    }
+
+    /**
+     * Checks whether the pinpoint has finished calibrating, without waiting for it. Until then the pose stays at the
+     * initial pose. Call it from init loops, {@link #update} calls it too.
+     *
+     * @return whether readings are being used
+     */
+    public boolean poll() {
+        if (state != State.CALIBRATING) return true;
+        odometry.update();
+        GoBildaPinpointDriverRR.DeviceStatus status = odometry.getDeviceStatus();
+        double elapsedMs = (System.nanoTime() - calibrationStart) / 1e6;
+        if (status == GoBildaPinpointDriverRR.DeviceStatus.READY) {
+            state = State.READY;
+            Log.d("PoseEstimator", "Odometry Initialized in " + elapsedMs + " ms");
+        } else if (status != GoBildaPinpointDriverRR.DeviceStatus.CALIBRATING
+                && status != GoBildaPinpointDriverRR.DeviceStatus.NOT_READY || elapsedMs > CALIBRATION_TIMEOUT_MS) {
+            state = State.FAULT;
+            Log.e("PoseEstimator", "Odometry not ready after " + elapsedMs + " ms: " + status);
+        } else {
+            return false;
+        }
+        // Calibrating cleared the position.
+        odometry.setPosition(initialPose);
+        return true;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Starts a new loop, so the next {@link #update} reads the pinpoint again. OpModes call it once at the top of
+     * every loop. Until it is first called, every update reads.
+     */
+    public void nextLoop() {
+        loop++;
+    }
+
+    /**
+     * Reads the pinpoint, unless it was already read this loop, so every consumer can call update without extra reads.
+     * Doesn't allocate unless there is a correction to write back or LOG_ODOMETRY is on.
+     */
+    public Snapshot update() {
+        if (loop > 0 && readLoop == loop || !poll()) return snapshot;
+        readLoop = loop;
+        long now = System.nanoTime();
+
+        odometry.update();
+        double x = odometry.getPosX() / MM_PER_INCH, y = odometry.getPosY() / MM_PER_INCH, heading = odometry.getHeading();
+        fusion.addOdometry(now, x, y, heading);
+        if (LOG_ODOMETRY) {
+            // Logged with the fixes so a run can be fed back through PoseFusion.
+            PoseMessage message = new PoseMessage(new Pose2d(x, y, heading));
+            message.timestamp = now;
+            FlightRecorder.write("ODOMETRY_POSE", message);
+        }
+
+        double vx = odometry.getVelX() / MM_PER_INCH, vy = odometry.getVelY() / MM_PER_INCH;
+        double omega = odometry.getHeadingVelocity();
+        if (fusion.hasCorrection() && Math.hypot(vx, vy) < WRITE_BACK_VEL && Math.abs(omega) < WRITE_BACK_ANG_VEL) {
+            odometry.setPosition(new Pose2d(fusion.getX(), fusion.getY(), fusion.getHeading()));
+            fusion.applyCorrection();
+        }
+
+        snapshot.set(now, fusion.getX(), fusion.getY(), fusion.getHeading(), vx, vy, omega);
+        return snapshot;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Relocalizes to pose, taken as the pose at the last reading so the motion since isn't lost.
+     */
+    public void setPose(Pose2d pose) {
+        fusion.reset(pose.position.x, pose.position.y, pose.heading.toDouble());
+        snapshot.set(snapshot.nanos, fusion.getX(), fusion.getY(), fusion.getHeading(),
+                snapshot.vx, snapshot.vy, snapshot.omega);
+    }
+}
@@ -0,0 +1,171 @@
+package org.firstinspires.ftc.teamcode.util.localization;
+
+import android.util.Log;
+import com.acmerobotics.dashboard.config.Config;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+
+/**
+ * Blends odometry with absolute fixes such as AprilTag poses. The fused pose is the odometry pose moved by a
+ * correction transform, so between fixes it follows odometry exactly and a fix only nudges the correction.
+ *
+ * <p>Fixes arrive late, a camera frame is a few loops old by the time it is processed. Odometry poses are kept
+ * with their timestamps so a fix is compared against where odometry was when the frame was taken, and the
+ * correction worked out there carries forward through everything odometry measured since. Fixes too far from the
+ * fused pose are dropped, unless REACQUIRE_FIXES of them in a row disagree, in which case odometry is the one
+ * that is off and the next fix is taken as is.
+ *
+ * <p>Nothing here touches hardware and every call takes its own timestamp, so a recorded log of odometry poses and
+ * fixes can be fed back through it off the robot.
+ */
+@Config
+public class PoseFusion {
+    /** Share of the error a single fix removes. */
+    public static double TRANSLATION_GAIN = 0.2;
+    public static double HEADING_GAIN = 0.1;
+    /** Fixes further than this from the fused pose are treated as outliers, inches and degrees. */
+    public static double GATE_DISTANCE = 6;
+    public static double GATE_HEADING = 10;
+    public static int REACQUIRE_FIXES = 5;
+
+    private static final int HISTORY = 128;
+
+    // Raw odometry poses, in a ring.
+    private final long[] times = new long[HISTORY];
+    private final double[] xs = new double[HISTORY], ys = new double[HISTORY], headings = new double[HISTORY];
+    private int newest = -1, count = 0;
+
+    // Correction: fused = rotate(odometry, ch) + (cx, cy), heading + ch.
+    private double cx, cy, ch;
+    private double x, y, heading;
+    private int rejected;
+    private int accepted, dropped;
+
+    /**
+     * Records an odometry pose and moves the fused pose with it.
+     */
+    public void addOdometry(long nanos, double x, double y, double heading) {
+        newest = (newest + 1) % HISTORY;
+        count = Math.min(count + 1, HISTORY);
+        times[newest] = nanos;
+        xs[newest] = x;
+        ys[newest] = y;
+        headings[newest] = heading;
+        updateFused();
+    }
+
+    /**
+     * Blends in a fix of where the robot was when the frame was captured.
+     *
+     * @return whether the fix was used
+     */
+    public boolean addFix(long captureNanos, double fixX, double fixY, double fixHeading) {
+        if (count == 0) return false;
+        int oldest = (newest - count + 1 + HISTORY) % HISTORY;
+        if (captureNanos < times[oldest]) {
+            dropped++;
+            return false;
+        }
+
+        // Odometry at capture time, interpolated between the two readings around it.
+        double ox = xs[newest], oy = ys[newest], oh = headings[newest];
+        for (int i = 1; i < count && captureNanos < times[newest]; i++) {
+            int before = (newest - i + HISTORY) % HISTORY;
+            if (times[before] > captureNanos) continue;
+            int after = (before + 1) % HISTORY;
+            double t = (double) (captureNanos - times[before]) / Math.max(1, times[after] - times[before]);
+            ox = xs[before] + (xs[after] - xs[before]) * t;
+            oy = ys[before] + (ys[after] - ys[before]) * t;
+            oh = headings[before] + AngleUnit.normalizeRadians(headings[after] - headings[before]) * t;
+            break;
+        }
+
+        double cos = Math.cos(ch), sin = Math.sin(ch);
+        double fusedX = cos * ox - sin * oy + cx, fusedY = sin * ox + cos * oy + cy, fusedHeading = oh + ch;
+        double ex = fixX - fusedX, ey = fixY - fusedY, eh = AngleUnit.normalizeRadians(fixHeading - fusedHeading);
+
+        double translationGain = TRANSLATION_GAIN, headingGain = HEADING_GAIN;
+        if (Math.hypot(ex, ey) > GATE_DISTANCE || Math.toDegrees(Math.abs(eh)) > GATE_HEADING) {
+            if (++rejected <= REACQUIRE_FIXES) {
+                dropped++;
+                return false;
+            }
+            Log.w("PoseFusion", "Reacquired after " + (rejected - 1) + " outliers, error " + Math.hypot(ex, ey) + " in");
+            translationGain = 1;
+            headingGain = 1;
+        }
+        rejected = 0;
+        accepted++;
+
+        // New correction that puts the odometry pose at capture time on the blended pose.
+        ch = AngleUnit.normalizeRadians(fusedHeading + headingGain * eh - oh);
+        cos = Math.cos(ch);
+        sin = Math.sin(ch);
+        cx = fusedX + translationGain * ex - (cos * ox - sin * oy);
+        cy = fusedY + translationGain * ey - (sin * ox + cos * oy);
+        updateFused();
+        return true;
+    }
+
+    /**
+     * Sets the fused pose for the newest odometry reading, as when the pose is assigned directly.
+     */
+    public void reset(double x, double y, double heading) {
+        double ox = count > 0 ? xs[newest] : 0, oy = count > 0 ? ys[newest] : 0, oh = count > 0 ? headings[newest] : 0;
+        ch = AngleUnit.normalizeRadians(heading - oh);
+        double cos = Math.cos(ch), sin = Math.sin(ch);
+        cx = x - (cos * ox - sin * oy);
+        cy = y - (sin * ox + cos * oy);
+        rejected = 0;
+        updateFused();
+    }
+
+    public boolean hasCorrection() {
+        return cx != 0 || cy != 0 || ch != 0;
+    }
+
+    /**
+     * Call once the odometry itself has been set to the fused pose. Clears the correction and moves the history
+     * into the new odometry frame, so fixes still in flight line up.
+     */
+    public void applyCorrection() {
+        double cos = Math.cos(ch), sin = Math.sin(ch);
+        for (int i = 0; i < count; i++) {
+            int j = (newest - i + HISTORY) % HISTORY;
+            double ox = xs[j], oy = ys[j];
+            xs[j] = cos * ox - sin * oy + cx;
+            ys[j] = sin * ox + cos * oy + cy;
+            headings[j] = AngleUnit.normalizeRadians(headings[j] + ch);
+        }
+        cx = 0;
+        cy = 0;
+        ch = 0;
+    }
+
+    private void updateFused() {
+        if (count == 0) return;
+        double cos = Math.cos(ch), sin = Math.sin(ch);
+        x = cos * xs[newest] - sin * ys[newest] + cx;
+        y = sin * xs[newest] + cos * ys[newest] + cy;
+        heading = AngleUnit.normalizeRadians(headings[newest] + ch);
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getHeading() {
+        return heading;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getDropped() {
+        return dropped;
+    }
+}
@@ -4,7 +4,7 @@ import android.util.Log;
 import com.acmerobotics.dashboard.config.Config;
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.HardwareMap;
-import org.firstinspires.ftc.robotcore.external.navigation.Pose2D;
+import org.firstinspires.ftc.teamcode.util.localization.PoseEstimator;
 import xyz.devmello.voyager.Voyager;
 import xyz.devmello.voyager.control.Controller;
 import xyz.devmello.voyager.control.GenericTurnController;
@@ -43,7 +43,7 @@ public class PathfinderRobot {
 
     private Voyager voyager;
 
-    public void init(HardwareMap map) {
+    public void init(HardwareMap map, PoseEstimator estimator) {
 
         dcMotorFrontRight = map.get(DcMotor.class, "fr");
         dcMotorFrontLeft = map.get(DcMotor.class, "fl");
@@ -81,7 +81,7 @@ public class PathfinderRobot {
                 true
         );
 
-        odometry = new PinpointOdometry(map);
+        odometry = new PinpointOdometry(estimator);
 
         robot = new Robot(drive, odometry);
 
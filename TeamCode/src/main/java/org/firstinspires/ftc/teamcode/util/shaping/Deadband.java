@@ -0,0 +1,22 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Zeroes input inside the deadband and rescales the rest so the output still starts at zero and reaches 1.
+ */
+public class Deadband implements InputStage {
+    private final DoubleSupplier width;
+
+    public Deadband(DoubleSupplier width) {
+        this.width = width;
+    }
+
+    @Override
+    public double apply(double value, double dt) {
+        double w = width.getAsDouble();
+        double magnitude = Math.abs(value);
+        if (magnitude <= w) return 0;
+        return Math.signum(value) * Math.min(1, (magnitude - w) / (1 - w));
+    }
+}
@@ -0,0 +1,21 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Blends linear and cubic response: 0 is linear, 1 is fully cubic. Gives finer control near center while
+ * keeping full output at full stick.
+ */
+public class Expo implements InputStage {
+    private final DoubleSupplier expo;
+
+    public Expo(DoubleSupplier expo) {
+        this.expo = expo;
+    }
+
+    @Override
+    public double apply(double value, double dt) {
+        double e = expo.getAsDouble();
+        return (1 - e) * value + e * value * value * value;
+    }
+}
@@ -0,0 +1,36 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+/**
+ * Runs stages in order. A pipeline is itself a stage, so pipelines nest.
+ *
+ * <p>Nothing here touches hardware, so a pipeline can be checked off the robot by feeding it a recorded stick
+ * trace with {@link #replay}.
+ */
+public class InputPipeline implements InputStage {
+    private final InputStage[] stages;
+
+    public InputPipeline(InputStage... stages) {
+        this.stages = stages;
+    }
+
+    @Override
+    public double apply(double value, double dt) {
+        for (InputStage stage : stages) value = stage.apply(value, dt);
+        return value;
+    }
+
+    @Override
+    public void reset(double value) {
+        for (InputStage stage : stages) stage.reset(value);
+    }
+
+    /**
+     * Runs a trace of stick samples taken at the given times, in seconds, and writes the shaped values to output.
+     */
+    public void replay(double[] times, double[] input, double[] output) {
+        reset(0);
+        for (int i = 0; i < input.length; i++) {
+            output[i] = apply(input[i], i == 0 ? 0 : times[i] - times[i - 1]);
+        }
+    }
+}
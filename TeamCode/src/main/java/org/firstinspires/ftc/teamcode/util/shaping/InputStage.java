@@ -0,0 +1,14 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+/**
+ * One step of stick input shaping. Stages keep their state in fields, so calling them allocates nothing.
+ */
+public interface InputStage {
+    /**
+     * @param dt seconds since the previous call
+     */
+    double apply(double value, double dt);
+
+    default void reset(double value) {
+    }
+}
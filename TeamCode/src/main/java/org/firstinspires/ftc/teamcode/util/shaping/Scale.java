@@ -0,0 +1,16 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+import java.util.function.DoubleSupplier;
+
+public class Scale implements InputStage {
+    private final DoubleSupplier scale;
+
+    public Scale(DoubleSupplier scale) {
+        this.scale = scale;
+    }
+
+    @Override
+    public double apply(double value, double dt) {
+        return value * scale.getAsDouble();
+    }
+}
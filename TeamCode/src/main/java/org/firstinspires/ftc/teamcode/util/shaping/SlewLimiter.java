@@ -0,0 +1,32 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Limits how fast the output may change, in units per second. Speeding up and slowing down get separate
+ * limits, since braking hard tips the robot as easily as accelerating hard.
+ */
+public class SlewLimiter implements InputStage {
+    private final DoubleSupplier accel, decel;
+    private double output;
+
+    public SlewLimiter(DoubleSupplier accel, DoubleSupplier decel) {
+        this.accel = accel;
+        this.decel = decel;
+    }
+
+    @Override
+    public double apply(double value, double dt) {
+        double delta = value - output;
+        // Moving away from zero is accelerating, anything toward or across zero is braking.
+        boolean speedingUp = output == 0 ? value != 0 : Math.signum(delta) == Math.signum(output);
+        double limit = (speedingUp ? accel : decel).getAsDouble() * dt;
+        output += Math.max(-limit, Math.min(limit, delta));
+        return output;
+    }
+
+    @Override
+    public void reset(double value) {
+        output = value;
+    }
+}
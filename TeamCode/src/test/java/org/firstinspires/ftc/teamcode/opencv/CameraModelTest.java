@@ -0,0 +1,65 @@
+package org.firstinspires.ftc.teamcode.opencv;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CameraModelTest {
+    private static final double X_COVERAGE = 14.80314960629921;
+    private static final double Y_COVERAGE = 10.7440945;
+    private static final double X_OFFSET = 4;
+    private static final double Y_OFFSET = 3;
+
+    /**
+     * The linear mapping SampleTrackPipeline used before CameraModel, which ignored the robot heading.
+     */
+    private static double[] oldMapping(double robotX, double robotY, double u, double v) {
+        double realWorldX = (u - 160) / 320 * X_COVERAGE - X_OFFSET;
+        double realWorldY = (v - 120) / 240 * Y_COVERAGE - Y_OFFSET;
+        return new double[]{robotX + realWorldY, robotY + realWorldX};
+    }
+
+    @Test
+    public void defaultsMatchOldMappingAtTeleopHeading() {
+        CameraModel model = new CameraModel(320, 240, new CameraModel.Params());
+        double[] out = new double[2];
+        for (int v = 0; v < 240; v += 7) {
+            for (int u = 0; u < 320; u += 9) {
+                model.toField(12, -30, Math.toRadians(90), u, v, out);
+                double[] expected = oldMapping(12, -30, u, v);
+                assertEquals(expected[0], out[0], 1e-4, "x at " + u + ", " + v);
+                assertEquals(expected[1], out[1], 1e-4, "y at " + u + ", " + v);
+            }
+        }
+    }
+
+    @Test
+    public void projectionRotatesWithHeading() {
+        CameraModel model = new CameraModel(320, 240, new CameraModel.Params());
+        double[] atNinety = new double[2], atZero = new double[2];
+        model.toField(0, 0, Math.toRadians(90), 40, 200, atNinety);
+        model.toField(0, 0, 0, 40, 200, atZero);
+        // Turning the robot 90 degrees clockwise turns the seen point with it.
+        assertEquals(atNinety[1], atZero[0], 1e-4);
+        assertEquals(-atNinety[0], atZero[1], 1e-4);
+    }
+
+    @Test
+    public void solvedHomographyReproducesCorrespondences() {
+        CameraModel.Params params = new CameraModel.Params();
+        List<double[]> pixels = new ArrayList<>();
+        List<double[]> floor = new ArrayList<>();
+        CameraModel reference = new CameraModel(320, 240, params);
+        for (int v = 20; v < 240; v += 100) {
+            for (int u = 20; u < 320; u += 140) {
+                pixels.add(new double[]{u, v});
+                floor.add(new double[]{reference.forward(u, v), reference.left(u, v)});
+            }
+        }
+        CameraModel.Params solved = CameraModel.solveHomography(new CameraModel.Params(), pixels, floor);
+        assertEquals(0, CameraModel.reprojectionError(solved, pixels, floor), 1e-3);
+    }
+}
@@ -0,0 +1,112 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.arcrobotics.ftclib.trajectory.TrapezoidProfile;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfiledPIDFControllerTest {
+    private static final double MAX_VEL = 2400;
+    private static final double MAX_ACCEL = 4000;
+    private static final double DT = 0.02;
+
+    @Test
+    public void setpointsMatchFtclibTrapezoid() {
+        ProfiledPIDFController controller = new ProfiledPIDFController(0, 0, 0, MAX_VEL, MAX_ACCEL);
+        controller.reset(0);
+        controller.setGoal(1500);
+
+        TrapezoidProfile.Constraints constraints = new TrapezoidProfile.Constraints(MAX_VEL, MAX_ACCEL);
+        TrapezoidProfile.State goal = new TrapezoidProfile.State(1500, 0);
+        TrapezoidProfile.State state = new TrapezoidProfile.State(0, 0);
+        for (int i = 0; i < 100; i++) {
+            state = new TrapezoidProfile(constraints, goal, state).calculate(DT);
+            controller.calculate(controller.getSetpointPosition(), DT);
+            assertEquals(state.position, controller.getSetpointPosition(), 1e-6, "position at step " + i);
+            assertEquals(state.velocity, controller.getSetpointVelocity(), 1e-6, "velocity at step " + i);
+        }
+        assertEquals(1500, controller.getSetpointPosition(), 1e-9);
+        assertEquals(0, controller.getTimeToGoal(), 1e-9);
+    }
+
+    @Test
+    public void movesDownAsWellAsUp() {
+        ProfiledPIDFController controller = new ProfiledPIDFController(0, 0, 0, MAX_VEL, MAX_ACCEL);
+        controller.reset(1000);
+        controller.setGoal(200);
+        controller.calculate(1000, DT);
+        assertEquals(1000 - MAX_ACCEL * DT * DT / 2, controller.getSetpointPosition(), 1e-9);
+        assertEquals(-MAX_ACCEL * DT, controller.getSetpointVelocity(), 1e-9);
+        assertEquals(-MAX_ACCEL, controller.getSetpointAcceleration(), 1e-6);
+    }
+
+    @Test
+    public void timeToGoalCountsDown() {
+        ProfiledPIDFController controller = new ProfiledPIDFController(0, 0, 0, MAX_VEL, MAX_ACCEL);
+        controller.reset(0);
+        controller.setGoal(1500);
+        controller.calculate(0, DT);
+        // Accelerate 0.6 s, cruise 0.025 s, decelerate 0.6 s.
+        assertEquals(0.6 + 0.025 + 0.6 - DT, controller.getTimeToGoal(), 1e-9);
+        double last = controller.getTimeToGoal();
+        controller.calculate(0, DT);
+        assertEquals(last - DT, controller.getTimeToGoal(), 1e-9);
+    }
+
+    @Test
+    public void firstCallWithoutDtStillPlans() {
+        ProfiledPIDFController controller = new ProfiledPIDFController(0, 0, 0, MAX_VEL, MAX_ACCEL);
+        controller.reset(0);
+        controller.setGoal(1500);
+        controller.calculate(0, 0);
+        assertEquals(0, controller.getSetpointPosition(), 1e-12);
+        assertEquals(1.225, controller.getTimeToGoal(), 1e-9);
+
+        // A new goal is reflected straight away too.
+        controller.setGoal(0);
+        controller.calculate(0, 0);
+        assertEquals(0, controller.getTimeToGoal(), 1e-12);
+    }
+
+    @Test
+    public void feedforwardUsesSetpoint() {
+        ProfiledPIDFController controller = new ProfiledPIDFController(0, 0, 0, MAX_VEL, MAX_ACCEL);
+        controller.setFeedforward(0.05, 0.001, 0.0001, 0.1);
+        double output = controller.calculate(10, 10, 200, 1000, DT);
+        assertEquals(0.05 + 0.001 * 200 + 0.0001 * 1000 + 0.1, output, 1e-12);
+
+        output = controller.calculate(10, 10, -200, 0, DT);
+        assertEquals(-0.05 - 0.001 * 200 + 0.1, output, 1e-12);
+
+        controller.setFeedforward((position, velocity, acceleration) -> position + velocity + acceleration);
+        assertEquals(10 + 2 + 3, controller.calculate(10, 10, 2, 3, DT), 1e-12);
+    }
+
+    @Test
+    public void pidTermsAndIntegralBounds() {
+        ProfiledPIDFController controller = new ProfiledPIDFController(0.01, 1, 0.001, MAX_VEL, MAX_ACCEL);
+        controller.setIntegrationBounds(-0.5, 0.5);
+
+        // First call has no previous error, so no integral or derivative yet.
+        assertEquals(0.01 * 100, controller.calculate(0, 100, 0, 0, DT), 1e-12);
+
+        // Error falls from 100 to 90: integral 0.02 * 90, derivative -10 / 0.02.
+        double output = controller.calculate(10, 100, 0, 0, DT);
+        assertEquals(0.01 * 90 + 1 * 0.5 + 0.001 * (-10 / DT), output, 1e-9);
+        assertEquals(-10 / DT, controller.getVelocityError(), 1e-9);
+    }
+
+    @Test
+    public void atGoalNeedsProfileFinished() {
+        ProfiledPIDFController controller = new ProfiledPIDFController(0, 0, 0, MAX_VEL, MAX_ACCEL);
+        controller.setTolerance(5);
+        controller.reset(0);
+        controller.setGoal(100);
+        assertFalse(controller.atGoal());
+        controller.calculate(0, DT);
+        assertTrue(controller.atSetpoint());
+        assertFalse(controller.atGoal());
+        for (int i = 0; i < 50; i++) controller.calculate(controller.getSetpointPosition(), DT);
+        assertTrue(controller.atGoal());
+    }
+}
@@ -0,0 +1,110 @@
+package org.firstinspires.ftc.teamcode.util.localization;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PoseFusionTest {
+    private static final double TRANSLATION_GAIN = PoseFusion.TRANSLATION_GAIN;
+    private static final double HEADING_GAIN = PoseFusion.HEADING_GAIN;
+
+    @AfterEach
+    public void restoreGains() {
+        PoseFusion.TRANSLATION_GAIN = TRANSLATION_GAIN;
+        PoseFusion.HEADING_GAIN = HEADING_GAIN;
+    }
+
+    private static long ms(long millis) {
+        return millis * 1_000_000L;
+    }
+
+    /**
+     * Drives along x at 1 in every 10 ms, from x = 0 at t = 0 to x = 10 at t = 100 ms.
+     */
+    private static PoseFusion driveForward() {
+        PoseFusion fusion = new PoseFusion();
+        for (int i = 0; i <= 10; i++) fusion.addOdometry(ms(10 * i), i, 0, 0);
+        return fusion;
+    }
+
+    @Test
+    public void followsOdometryWithoutFixes() {
+        PoseFusion fusion = driveForward();
+        assertEquals(10, fusion.getX(), 1e-12);
+        assertEquals(0, fusion.getY(), 1e-12);
+        assertFalse(fusion.hasCorrection());
+    }
+
+    @Test
+    public void delayedFixIsComparedWhereOdometryWasAtCapture() {
+        PoseFusion fusion = driveForward();
+        // Taken at 45 ms, when odometry read 4.5, and 2 in further along than that.
+        assertTrue(fusion.addFix(ms(45), 6.5, 0, 0));
+        assertEquals(10 + PoseFusion.TRANSLATION_GAIN * 2, fusion.getX(), 1e-9);
+        assertEquals(0, fusion.getY(), 1e-9);
+        assertEquals(1, fusion.getAccepted());
+    }
+
+    @Test
+    public void headingCorrectionCarriesThroughMotionSinceCapture() {
+        PoseFusion.TRANSLATION_GAIN = 1;
+        PoseFusion.HEADING_GAIN = 1;
+        PoseFusion fusion = driveForward();
+        assertTrue(fusion.addFix(ms(50), 5, 0, 0.05));
+        // The 5 in driven since the frame was taken now point along the corrected heading.
+        assertEquals(5 + 5 * Math.cos(0.05), fusion.getX(), 1e-9);
+        assertEquals(5 * Math.sin(0.05), fusion.getY(), 1e-9);
+        assertEquals(0.05, fusion.getHeading(), 1e-9);
+    }
+
+    @Test
+    public void fixOlderThanHistoryIsDropped() {
+        PoseFusion fusion = new PoseFusion();
+        for (int i = 0; i < 200; i++) fusion.addOdometry(ms(10 * i), 0, 0, 0);
+        assertFalse(fusion.addFix(ms(10), 1, 0, 0));
+        assertEquals(1, fusion.getDropped());
+        assertFalse(fusion.hasCorrection());
+    }
+
+    @Test
+    public void outliersAreDroppedUntilTheyKeepAgreeing() {
+        PoseFusion fusion = driveForward();
+        for (int i = 0; i < PoseFusion.REACQUIRE_FIXES; i++) assertFalse(fusion.addFix(ms(100), 30, 0, 0));
+        assertEquals(10, fusion.getX(), 1e-12);
+        assertTrue(fusion.addFix(ms(100), 30, 0, 0));
+        assertEquals(30, fusion.getX(), 1e-9);
+        assertEquals(PoseFusion.REACQUIRE_FIXES, fusion.getDropped());
+    }
+
+    @Test
+    public void fixesInFlightStillLineUpAfterApplyingTheCorrection() {
+        PoseFusion.TRANSLATION_GAIN = 1;
+        PoseFusion fusion = driveForward();
+        assertTrue(fusion.addFix(ms(50), 7, 0, 0));
+        assertEquals(12, fusion.getX(), 1e-9);
+
+        // The odometry is set to the fused pose, then keeps driving in its new frame.
+        fusion.applyCorrection();
+        assertFalse(fusion.hasCorrection());
+        fusion.addOdometry(ms(110), 13, 0, 0);
+        assertEquals(13, fusion.getX(), 1e-9);
+
+        // A frame from before the write-back that agrees with the corrected pose changes nothing.
+        assertTrue(fusion.addFix(ms(60), 8, 0, 0));
+        assertEquals(13, fusion.getX(), 1e-9);
+        assertEquals(0, fusion.getY(), 1e-9);
+    }
+
+    @Test
+    public void resetMovesTheFusedPoseOnly() {
+        PoseFusion fusion = driveForward();
+        fusion.reset(20, 5, Math.PI / 2);
+        assertEquals(20, fusion.getX(), 1e-9);
+        assertEquals(5, fusion.getY(), 1e-9);
+        fusion.addOdometry(ms(110), 11, 0, 0);
+        // Odometry's +x is now the field's +y.
+        assertEquals(20, fusion.getX(), 1e-9);
+        assertEquals(6, fusion.getY(), 1e-9);
+    }
+}
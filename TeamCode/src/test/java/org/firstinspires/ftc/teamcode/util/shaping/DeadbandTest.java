@@ -0,0 +1,29 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DeadbandTest {
+    private final Deadband deadband = new Deadband(() -> 0.1);
+
+    @Test
+    public void zeroesInsideTheBand() {
+        assertEquals(0, deadband.apply(0.05, 0.02), 1e-12);
+        assertEquals(0, deadband.apply(-0.1, 0.02), 1e-12);
+    }
+
+    @Test
+    public void rescalesOutsideTheBand() {
+        assertEquals(0.5, deadband.apply(0.55, 0.02), 1e-12);
+        assertEquals(-0.5, deadband.apply(-0.55, 0.02), 1e-12);
+        assertEquals(1, deadband.apply(1, 0.02), 1e-12);
+        assertEquals(-1, deadband.apply(-1, 0.02), 1e-12);
+    }
+
+    @Test
+    public void clampsPastFullStick() {
+        assertEquals(1, deadband.apply(1.2, 0.02), 1e-12);
+        assertEquals(-1, deadband.apply(-1.2, 0.02), 1e-12);
+    }
+}
@@ -0,0 +1,22 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ExpoTest {
+    @Test
+    public void blendsLinearAndCubic() {
+        assertEquals(0.5, new Expo(() -> 0).apply(0.5, 0.02), 1e-12);
+        assertEquals(0.125, new Expo(() -> 1).apply(0.5, 0.02), 1e-12);
+        assertEquals(0.5 * 0.5 + 0.5 * 0.125, new Expo(() -> 0.5).apply(0.5, 0.02), 1e-12);
+    }
+
+    @Test
+    public void keepsFullStickAndSign() {
+        Expo expo = new Expo(() -> 0.7);
+        assertEquals(1, expo.apply(1, 0.02), 1e-12);
+        assertEquals(-1, expo.apply(-1, 0.02), 1e-12);
+        assertEquals(-expo.apply(0.3, 0.02), expo.apply(-0.3, 0.02), 1e-12);
+    }
+}
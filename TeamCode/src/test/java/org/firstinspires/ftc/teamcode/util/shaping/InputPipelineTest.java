@@ -0,0 +1,48 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InputPipelineTest {
+    private static InputPipeline drivePipeline() {
+        return new InputPipeline(new Deadband(() -> 0.1), new Expo(() -> 0), new SlewLimiter(() -> 2, () -> 4));
+    }
+
+    @Test
+    public void runsStagesInOrder() {
+        InputPipeline pipeline = new InputPipeline(new Scale(() -> 0.5), new Deadband(() -> 0.5));
+        // Scaled to 0.4 first, so the deadband zeroes it.
+        assertEquals(0, pipeline.apply(0.8, 0.02), 1e-12);
+        assertEquals(0.5, new InputPipeline(new Deadband(() -> 0.5), new Scale(() -> 0.5)).apply(1, 0.02), 1e-12);
+    }
+
+    @Test
+    public void resetReachesEveryStage() {
+        InputPipeline pipeline = new InputPipeline(new InputPipeline(new SlewLimiter(() -> 1, () -> 1)));
+        pipeline.reset(0.5);
+        assertEquals(0.5, pipeline.apply(0.5, 0.1), 1e-12);
+    }
+
+    @Test
+    public void replaysATrace() {
+        double[] times = {0, 0.1, 0.2, 0.3, 0.4};
+        double[] input = {1, 1, 1, 0.05, 0.05};
+        double[] output = new double[input.length];
+        drivePipeline().replay(times, input, output);
+        // The first sample has no time to move in, then accel 2/s up and decel 4/s back down.
+        assertArrayEquals(new double[]{0, 0.2, 0.4, 0, 0}, output, 1e-12);
+    }
+
+    @Test
+    public void replayStartsFromRest() {
+        InputPipeline pipeline = drivePipeline();
+        double[] times = {0, 0.1, 0.2};
+        double[] input = {1, 1, 1};
+        double[] first = new double[3], second = new double[3];
+        pipeline.replay(times, input, first);
+        pipeline.replay(times, input, second);
+        assertArrayEquals(first, second, 1e-12);
+    }
+}
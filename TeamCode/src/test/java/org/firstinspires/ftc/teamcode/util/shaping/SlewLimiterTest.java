@@ -0,0 +1,43 @@
+package org.firstinspires.ftc.teamcode.util.shaping;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SlewLimiterTest {
+    private static final double DT = 0.1;
+
+    @Test
+    public void speedsUpAtTheAccelLimit() {
+        SlewLimiter slew = new SlewLimiter(() -> 2, () -> 4);
+        assertEquals(0.2, slew.apply(1, DT), 1e-12);
+        assertEquals(0.4, slew.apply(1, DT), 1e-12);
+        for (int i = 0; i < 3; i++) slew.apply(1, DT);
+        assertEquals(1, slew.apply(1, DT), 1e-12);
+    }
+
+    @Test
+    public void slowsDownAtTheDecelLimit() {
+        SlewLimiter slew = new SlewLimiter(() -> 2, () -> 4);
+        slew.reset(1);
+        assertEquals(0.6, slew.apply(0, DT), 1e-12);
+        assertEquals(0.2, slew.apply(0, DT), 1e-12);
+        assertEquals(0, slew.apply(0, DT), 1e-12);
+    }
+
+    @Test
+    public void brakesThroughZeroThenSpeedsUp() {
+        SlewLimiter slew = new SlewLimiter(() -> 2, () -> 4);
+        slew.reset(0.2);
+        // Still braking when it crosses zero.
+        assertEquals(-0.2, slew.apply(-1, DT), 1e-12);
+        assertEquals(-0.4, slew.apply(-1, DT), 1e-12);
+    }
+
+    @Test
+    public void holdsWithoutTime() {
+        SlewLimiter slew = new SlewLimiter(() -> 2, () -> 4);
+        slew.reset(0.5);
+        assertEquals(0.5, slew.apply(-1, 0), 1e-12);
+    }
+}